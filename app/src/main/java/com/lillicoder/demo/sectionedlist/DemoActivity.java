@@ -16,21 +16,42 @@
 
 package com.lillicoder.demo.sectionedlist;
 
-import android.content.res.Resources;
+import android.content.Context;
+import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.support.v4.app.LoaderManager;
+import android.support.v4.content.Loader;
 import android.support.v7.app.ActionBarActivity;
+import android.util.Log;
 import android.view.*;
 import android.widget.ListView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
+import com.lillicoder.demo.sectionedlist.list.CountingSectionBuilder;
+import com.lillicoder.demo.sectionedlist.list.FirstCharacterBucketer;
 import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.MappedSnapshot;
+import com.lillicoder.demo.sectionedlist.list.SnapshotWriter;
+import com.lillicoder.demo.sectionedlist.widget.HolderIndexableListAdapter;
 import com.lillicoder.demo.sectionedlist.widget.IndexableListAdapter;
+import com.lillicoder.demo.sectionedlist.widget.IndexableListLoader;
+import com.lillicoder.demo.sectionedlist.widget.PinnedHeaderListView;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
-public class DemoActivity extends ActionBarActivity {
+public class DemoActivity extends ActionBarActivity
+    implements LoaderManager.LoaderCallbacks<IndexableListAdapter.Snapshot<String, String>> {
 
-    private ListView mList;
+    private static final int LOADER_ANIMALS = 0;
+
+    private static final String STATE_SECTIONS_COLLAPSED = "sectionsCollapsed";
+
+    private SimpleIndexableListAdapter mAdapter;
+    private boolean mSectionsCollapsed;
+
+    private PinnedHeaderListView mList;
     private ProgressBar mProgressBar;
 
     @Override
@@ -38,23 +59,69 @@ public class DemoActivity extends ActionBarActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_demo);
 
-        mList = (ListView) findViewById(R.id.DemoActivity_list);
+        if (savedInstanceState != null) {
+            mSectionsCollapsed = savedInstanceState.getBoolean(STATE_SECTIONS_COLLAPSED);
+        }
+
+        mList = (PinnedHeaderListView) findViewById(R.id.DemoActivity_list);
+        mList.setPinnedHeaderEnabled(true);
         mProgressBar = (ProgressBar) findViewById(R.id.DemoActivity_progressBar);
 
+        mAdapter = new SimpleIndexableListAdapter();
+        mList.setAdapter(mAdapter);
+
         showProgressBar();
 
-        Map<String, List<String>> animals = getAnimalsByName();
-        SimpleIndexableListAdapter adapter = new SimpleIndexableListAdapter(animals);
-        mList.setAdapter(adapter);
+        getSupportLoaderManager().initLoader(LOADER_ANIMALS, null, this);
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(STATE_SECTIONS_COLLAPSED, mSectionsCollapsed);
+    }
+
+    @Override
+    public Loader<IndexableListAdapter.Snapshot<String, String>> onCreateLoader(int id, Bundle args) {
+        return new AnimalsLoader(this);
+    }
+
+    @Override
+    public void onLoadFinished(Loader<IndexableListAdapter.Snapshot<String, String>> loader,
+                               IndexableListAdapter.Snapshot<String, String> snapshot) {
+        // Keep the first visible row at the same offset when a refresh is diffed against the shown sections
+        View firstChild = mList.getChildAt(0);
+        int top = firstChild == null ? 0 : firstChild.getTop();
+
+        int anchorPosition = mAdapter.swapSnapshot(snapshot, mList.getFirstVisiblePosition());
+        if (anchorPosition >= 0) {
+            mList.setSelectionFromTop(anchorPosition, top);
+        }
+
+        // The adapter keeps collapsed sections by key, but it is new after a configuration change and new
+        // sections start expanded
+        if (mSectionsCollapsed) {
+            mAdapter.setAllSectionsCollapsed(true);
+        }
 
         showList();
     }
 
+    @Override
+    public void onLoaderReset(Loader<IndexableListAdapter.Snapshot<String, String>> loader) {
+        mAdapter.swapSnapshot(IndexableListAdapter.Snapshot.<String, String>empty());
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         MenuInflater inflater = getMenuInflater();
         inflater.inflate(R.menu.demo, menu);
 
+        // Sections may still be collapsed from before a configuration change
+        if (mSectionsCollapsed) {
+            menu.findItem(R.id.DemoActivityMenu_toggleCollapsed).setTitle(R.string.menu_expand_all);
+        }
+
         return true;
     }
 
@@ -71,37 +138,20 @@ public class DemoActivity extends ActionBarActivity {
             }
 
             return true;
-        } else {
-            return super.onOptionsItemSelected(item);
-        }
-    }
-
-    /**
-     * Gets a map of animals names where each key in the map is the starting letter and each
-     * entry is the collection of animal names beginning with that starting letter.
-     * @return Map of animal names.
-     */
-    private Map<String, List<String>> getAnimalsByName() {
-        // TreeMap is used to get a proper sort order by default
-        Map<String, List<String>> animalsByName = new TreeMap<String, List<String>>();
-
-        Resources resources = getResources();
-        String[] animals = resources.getStringArray(R.array.animals);
-        for (String animal : animals) {
-            String firstLetter = animal.substring(0, 1);
-
-            List<String> namesForLetter = animalsByName.get(firstLetter);
-            if (namesForLetter == null) {
-                namesForLetter = new ArrayList<String>();
-                namesForLetter.add(animal);
-
-                animalsByName.put(firstLetter, namesForLetter);
+        } else if (itemId == R.id.DemoActivityMenu_toggleCollapsed) {
+            // Collapse every section, or expand them all again, and update menu item title
+            mSectionsCollapsed = !mSectionsCollapsed;
+            mAdapter.setAllSectionsCollapsed(mSectionsCollapsed);
+            if (mSectionsCollapsed) {
+                item.setTitle(R.string.menu_expand_all);
             } else {
-                namesForLetter.add(animal);
+                item.setTitle(R.string.menu_collapse_all);
             }
-        }
 
-        return animalsByName;
+            return true;
+        } else {
+            return super.onOptionsItemSelected(item);
+        }
     }
 
     /**
@@ -121,43 +171,124 @@ public class DemoActivity extends ActionBarActivity {
     }
 
     /**
-     * Simple {@link IndexableListAdapter} that shows sections of strings.
+     * {@link IndexableListLoader} that sections animal names by their starting letter. Sections are
+     * cached in a memory-mapped snapshot file, so later cold starts skip parsing and sectioning.
      */
-    private static class SimpleIndexableListAdapter extends IndexableListAdapter<String, String> {
+    private static class AnimalsLoader extends IndexableListLoader<String, String> {
+
+        private static final String TAG = "AnimalsLoader";
+
+        private static final String SNAPSHOT_FILE_NAME = "animals.snapshot";
 
-        private static final Object TAG_CHILD = "tag_childView";
-        private static final Object TAG_HEADER = "tag_headerView";
+        private static final String WARNING_SNAPSHOT_READ_FAILED =
+            "Cannot read animals snapshot, rebuilding sections.";
+        private static final String WARNING_SNAPSHOT_WRITE_FAILED =
+            "Cannot write animals snapshot.";
 
-        public SimpleIndexableListAdapter(Map<String, ? extends Collection<String>> sections) {
-            super(sections);
+        public AnimalsLoader(Context context) {
+            super(context);
         }
 
         @Override
-        protected View getChildView(String child, View convertView, ViewGroup parent) {
-            if (convertView == null || !TAG_CHILD.equals(convertView.getTag())) {
-                LayoutInflater inflater = LayoutInflater.from(parent.getContext());
-                convertView = inflater.inflate(R.layout.list_item_child, parent, false);
-                convertView.setTag(TAG_CHILD);
+        protected List<IndexableList<String, String>> loadSections() {
+            File snapshotFile = new File(getContext().getCacheDir(), SNAPSHOT_FILE_NAME);
+            if (isSnapshotCurrent(snapshotFile)) {
+                try {
+                    return MappedSnapshot.open(snapshotFile).getSections();
+                } catch (IOException e) {
+                    Log.w(TAG, WARNING_SNAPSHOT_READ_FAILED, e);
+                }
             }
 
-            TextView childView = (TextView) convertView;
-            childView.setText(child);
+            String[] animals = getContext().getResources().getStringArray(R.array.animals);
 
-            return childView;
+            // Animal names are bucketed by their starting letter
+            CountingSectionBuilder<String, String> builder =
+                new CountingSectionBuilder<String, String>(new FirstCharacterBucketer<String>('A', 'Z'));
+            List<IndexableList<String, String>> sections = builder.build(animals);
+
+            try {
+                SnapshotWriter.write(sections, snapshotFile);
+            } catch (IOException e) {
+                Log.w(TAG, WARNING_SNAPSHOT_WRITE_FAILED, e);
+            }
+
+            return sections;
         }
 
         @Override
-        protected View getHeaderView(IndexableList<String, String> section, View convertView, ViewGroup parent) {
-            if (convertView == null || !TAG_HEADER.equals(convertView.getTag())) {
-                LayoutInflater inflater = LayoutInflater.from(parent.getContext());
-                convertView = inflater.inflate(R.layout.list_item_header, parent, false);
-                convertView.setTag(TAG_HEADER);
+        protected boolean isDiffed() {
+            return true;
+        }
+
+        /**
+         * Determines if the given snapshot file exists and was written since this app was last installed
+         * or updated, as updates may change the animals resource.
+         * @param snapshotFile Snapshot file to check.
+         * @return {@code true} if the snapshot can be used, {@code false} otherwise.
+         */
+        private boolean isSnapshotCurrent(File snapshotFile) {
+            if (!snapshotFile.exists()) {
+                return false;
             }
 
-            TextView headerView = (TextView) convertView;
-            headerView.setText(section.getLabel());
+            try {
+                Context context = getContext();
+                long lastUpdateTime = context.getPackageManager()
+                                             .getPackageInfo(context.getPackageName(), 0)
+                                             .lastUpdateTime;
+                return snapshotFile.lastModified() >= lastUpdateTime;
+            } catch (PackageManager.NameNotFoundException e) {
+                return false;
+            }
+        }
+
+    }
+
+    /**
+     * Simple {@link HolderIndexableListAdapter} that shows sections of strings.
+     */
+    private static class SimpleIndexableListAdapter
+        extends HolderIndexableListAdapter<String, String, TextHolder, TextHolder> {
+
+        public SimpleIndexableListAdapter() {
+            super();
+        }
+
+        @Override
+        protected TextHolder onCreateHeaderHolder(ViewGroup parent) {
+            LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+            return new TextHolder((TextView) inflater.inflate(R.layout.list_item_header, parent, false));
+        }
+
+        @Override
+        protected TextHolder onCreateHolder(ViewGroup parent, int viewType) {
+            LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+            return new TextHolder((TextView) inflater.inflate(R.layout.list_item_child, parent, false));
+        }
+
+        @Override
+        protected void onBindHeader(TextHolder holder, IndexableList<String, String> section) {
+            holder.mText.setText(section.getLabel());
+        }
+
+        @Override
+        protected void onBind(TextHolder holder, String child) {
+            holder.mText.setText(child);
+        }
+
+    }
+
+    /**
+     * {@link HolderIndexableListAdapter.ViewHolder} for rows that are a single {@link TextView}.
+     */
+    private static class TextHolder extends HolderIndexableListAdapter.ViewHolder {
+
+        private final TextView mText;
 
-            return headerView;
+        public TextHolder(TextView text) {
+            super(text);
+            mText = text;
         }
 
     }
@@ -0,0 +1,171 @@
+package com.lillicoder.demo.sectionedlist.widget;
+
+import android.view.View;
+import android.view.ViewGroup;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.CharIndexableList;
+import com.lillicoder.demo.sectionedlist.list.PatchedIndexableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ *     {@link IndexableListAdapter} for sections of {@code char} values.
+ * </p>
+ *
+ * <p>
+ *     Sections that are {@link CharIndexableList} are bound and identified without boxing, including
+ *     after inserts and removals, which patch them rather than copying them. Sections built from a map
+ *     and new sections created by {@link #insert(Comparable, Object)} are stored as
+ *     {@link CharIndexableList}. Any other {@link IndexableList} is still supported and is unboxed
+ *     before binding.
+ * </p>
+ *
+ * <p>
+ *     A few paths still box: each element inserted into an existing section is kept boxed in its
+ *     patch until the section is rebuilt, and filtering and {@link #remove(Comparable, Object)} box
+ *     every element they test.
+ * </p>
+ * @param <K> Type of object each indexable list is indexable by.
+ */
+public abstract class CharIndexableListAdapter<K extends Comparable<K>> extends IndexableListAdapter<K, Character> {
+
+    /**
+     * Instantiates this adapter with no sections, to be published later with
+     * {@link #swapSnapshot(Snapshot)}.
+     */
+    public CharIndexableListAdapter() {
+        super();
+    }
+
+    /**
+     * Instantiates this adapter with the given {@link List} of {@link IndexableList}.
+     * @param sections List of indexable lists for this adapter,
+     *                 where each indexable list represents a section.
+     */
+    public CharIndexableListAdapter(List<IndexableList<K, Character>> sections) {
+        super(sections);
+    }
+
+    /**
+     * Instantiates this adapter with the given map of {@link Collection}. Each key represents
+     * a section and each collection mapped to a key represents the items for that section.
+     * Items are unboxed into an {@link CharIndexableList} per section.
+     * @param sections Map of sections for this adapter.
+     */
+    public CharIndexableListAdapter(Map<K, ? extends Collection<Character>> sections) {
+        super(convertToCharList(sections));
+    }
+
+    /**
+     * Instantiates this adapter with the given {@link Snapshot}.
+     * @param snapshot Snapshot of sections for this adapter.
+     */
+    public CharIndexableListAdapter(Snapshot<K, Character> snapshot) {
+        super(snapshot);
+    }
+
+    /**
+     * Gets a view for the given child.
+     * @param child Child section item.
+     * @param convertView The old view to reuse, if possible.
+     * @param parent The parent that this view will eventually be attached to.
+     * @return View for the given child.
+     */
+    protected abstract View getChildView(char child, View convertView, ViewGroup parent);
+
+    /**
+     * Gets the identity of the given element within its section, used to derive item IDs. By default
+     * this is the element itself, so equal elements share an identity; see
+     * {@link IndexableListAdapter#getElementId(Object)} for when to report stable IDs.
+     * @param element Element to identify.
+     * @return Identity of the element.
+     */
+    protected long getElementId(char element) {
+        return element;
+    }
+
+    @Override
+    protected final View getChildView(Character child, View convertView, ViewGroup parent) {
+        return getChildView(child.charValue(), convertView, parent);
+    }
+
+    @Override
+    protected View getChildView(IndexableList<K, Character> section,
+                                int childPosition,
+                                View convertView,
+                                ViewGroup parent) {
+        return getChildView(getChar(section, childPosition), convertView, parent);
+    }
+
+    @Override
+    protected final long getElementId(Character element) {
+        return getElementId(element.charValue());
+    }
+
+    @Override
+    protected long getChildId(IndexableList<K, Character> section, int childPosition) {
+        return getElementId(getChar(section, childPosition));
+    }
+
+    @Override
+    protected IndexableList<K, Character> createSection(K key) {
+        return new CharIndexableList<K>(key, key.toString(), 1);
+    }
+
+    /**
+     * Reads the element at the given location of the given section, without boxing if the section is
+     * an {@link CharIndexableList} or patches one and the element is not one inserted by the patch.
+     * @param section Section to read.
+     * @param location Location of the element.
+     * @return Element at the given location.
+     */
+    private static <K extends Comparable<K>> char getChar(IndexableList<K, Character> section, int location) {
+        if (section instanceof CharIndexableList) {
+            return ((CharIndexableList<K>) section).getChar(location);
+        }
+
+        if (section instanceof PatchedIndexableList) {
+            PatchedIndexableList<K, Character> patched = (PatchedIndexableList<K, Character>) section;
+            int baseLocation = patched.getBaseLocation(location);
+            if (baseLocation >= 0 && patched.getBase() instanceof CharIndexableList) {
+                return ((CharIndexableList<K>) patched.getBase()).getChar(baseLocation);
+            }
+        }
+
+        return section.get(location);
+    }
+
+    /**
+     * Converts the given {@link Map} of sections into a list of {@link CharIndexableList}, unboxing
+     * each item once.
+     * @param sections Sections map to convert.
+     * @return List of sections, or {@code null} if the given map is {@code null}.
+     */
+    private static <K extends Comparable<K>> List<IndexableList<K, Character>> convertToCharList(
+        Map<K, ? extends Collection<Character>> sections) {
+        if (sections == null) {
+            return null;
+        }
+
+        List<IndexableList<K, Character>> sectionsList = new ArrayList<IndexableList<K, Character>>(sections.size());
+        for (Map.Entry<K, ? extends Collection<Character>> entry : sections.entrySet()) {
+            K sectionKey = entry.getKey();
+            Collection<Character> sectionItems = entry.getValue();
+
+            CharIndexableList<K> section =
+                new CharIndexableList<K>(sectionKey, sectionKey.toString(), sectionItems.size());
+            for (Character item : sectionItems) {
+                section.addChar(item);
+            }
+
+            sectionsList.add(section);
+        }
+
+        return sectionsList;
+    }
+
+}
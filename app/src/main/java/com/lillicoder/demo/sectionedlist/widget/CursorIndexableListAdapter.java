@@ -0,0 +1,301 @@
+package com.lillicoder.demo.sectionedlist.widget;
+
+import android.database.Cursor;
+import android.database.DataSetObserver;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import com.lillicoder.demo.sectionedlist.list.SectionIndex;
+import junit.framework.Assert;
+
+/**
+ * <p>
+ *     {@link android.widget.BaseAdapter} implementation that shows sections of rows read lazily from a
+ *     {@link Cursor}.
+ * </p>
+ *
+ * <p>
+ *     Sections come from a small count cursor with one row per section, such as the result of
+ *     {@code SELECT key, COUNT(*) FROM table GROUP BY key ORDER BY key}. Only that cursor is read
+ *     up front, so building the section index is O(S) for S sections. Rows come from a second cursor
+ *     ordered by the same key, such as {@code SELECT _id, ... FROM table ORDER BY key, ...}, and are
+ *     only read as positions are bound, one {@link android.database.CursorWindow} at a time.
+ * </p>
+ *
+ * <p>
+ *     Header rows are virtual: position p in section s is row {@code p - s - 1} of the row cursor.
+ *     Headers are bound from the count cursor moved to the section's row, so keys can be of any column
+ *     type; the key column's string form labels each section. If the row cursor has an {@code _id}
+ *     column it is used for stable item IDs.
+ * </p>
+ *
+ * <p>
+ *     This adapter observes both cursors: when either is requeried the counts are read again, and when
+ *     either is deactivated or closed this adapter shows no rows until new cursors are swapped in. If the
+ *     counts add up to more rows than the row cursor has, as when the cursors were queried at different
+ *     times, the last sections are clamped to the row cursor and a warning is logged rather than failing.
+ *     Content changes behind the cursors are left to whoever queried them, such as a
+ *     {@code CursorLoader} that hands new cursors to {@link #swapCursors(Cursor, Cursor)}.
+ * </p>
+ */
+public abstract class CursorIndexableListAdapter extends SectionedListAdapter {
+
+    private static final String TAG = "CursorIndexableListAdapter";
+
+    private static final String COLUMN_ID = "_id";
+
+    private static final String PRECONDITION_NULL_COLUMNS =
+        "Cannot read section counts with a null key or count column name.";
+
+    private static final String WARNING_MISMATCHED_COUNTS =
+        "Section counts add up to %d rows, but the row cursor has %d rows, clamping sections to the row cursor.";
+    private static final String WARNING_ROW_NOT_FOUND =
+        "Cannot move the row cursor to row %d of %d, binding its last row instead.";
+
+    private static final String ERROR_NO_ROWS =
+        "Cannot bind row %d, the row cursor has no rows.";
+
+    private String mKeyColumn;
+    private String mCountColumn;
+
+    private Cursor mSectionCounts;
+    private Cursor mRows;
+    private int mIdColumn;
+
+    private int[] mKeyHashes;
+    private SectionIndex mIndex;
+
+    private final DataSetObserver mObserver = new CursorObserver();
+
+    /**
+     * Instantiates this adapter with the given cursors.
+     * @param sectionCounts Cursor with one row per section, in section order, or {@code null} for no sections.
+     * @param keyColumn Name of the section key column of the count cursor.
+     * @param countColumn Name of the row count column of the count cursor.
+     * @param rows Cursor with every row, ordered by section, or {@code null} for no rows.
+     */
+    public CursorIndexableListAdapter(Cursor sectionCounts, String keyColumn, String countColumn, Cursor rows) {
+        Assert.assertTrue(PRECONDITION_NULL_COLUMNS, keyColumn != null && countColumn != null);
+
+        mKeyColumn = keyColumn;
+        mCountColumn = countColumn;
+
+        setCursors(sectionCounts, rows);
+    }
+
+    /**
+     * Gets a view for the child at the current position of the given {@link Cursor}.
+     * @param cursor Row cursor, moved to the child's row.
+     * @param convertView The old view to reuse, if possible.
+     * @param parent The parent that this view will eventually be attached to.
+     * @return View for the given child.
+     */
+    protected abstract View getChildView(Cursor cursor, View convertView, ViewGroup parent);
+
+    /**
+     * Gets a header view for the section at the current position of the given count {@link Cursor}.
+     * @param sectionCounts Count cursor, moved to the section's row.
+     * @param convertView The old view to reuse, if possible.
+     * @param parent The parent that this view will eventually be attached to.
+     * @return Header view for the given section.
+     */
+    protected abstract View getHeaderView(Cursor sectionCounts, View convertView, ViewGroup parent);
+
+    /**
+     * Gets the row cursor for this adapter.
+     * @return Row cursor or {@code null} if there is none.
+     */
+    public Cursor getCursor() {
+        return mRows;
+    }
+
+    /**
+     * Replaces the cursors for this adapter and notifies any observers. The count cursor is read fully
+     * and kept to bind headers. Neither old cursor is closed; the old row cursor is returned to the caller.
+     * @param sectionCounts Cursor with one row per section, in section order, or {@code null} for no sections.
+     * @param rows Cursor with every row, ordered by section, or {@code null} for no rows.
+     * @return Previous row cursor or {@code null} if there was none.
+     */
+    public Cursor swapCursors(Cursor sectionCounts, Cursor rows) {
+        Cursor previousRows = mRows;
+        setCursors(sectionCounts, rows);
+
+        if (rows != null) {
+            notifyDataSetChanged();
+        } else {
+            notifyDataSetInvalidated();
+        }
+
+        return previousRows;
+    }
+
+    @Override
+    public Object getItem(int position) {
+        // Headers resolve to the count cursor moved to their section, children to the row cursor moved to their row
+        int sectionIndex = mIndex.getSectionForPosition(position);
+        if (position == mIndex.getPositionForSection(sectionIndex)) {
+            return moveToSection(sectionIndex);
+        }
+
+        return moveToRow(position, sectionIndex);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        int sectionIndex = mIndex.getSectionForPosition(position);
+        int keyHash = mKeyHashes[sectionIndex];
+        if (position == mIndex.getPositionForSection(sectionIndex)) {
+            return StableIds.forHeader(keyHash);
+        }
+
+        int row = position - sectionIndex - 1;
+        long rowId = mIdColumn < 0 ? row : moveToRow(position, sectionIndex).getLong(mIdColumn);
+        return StableIds.forChild(keyHash, rowId);
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return mIdColumn >= 0;
+    }
+
+    @Override
+    SectionIndex getSectionIndex() {
+        return mIndex;
+    }
+
+    @Override
+    View getViewForHeader(int sectionIndex, View convertView, ViewGroup parent) {
+        return getHeaderView(moveToSection(sectionIndex), convertView, parent);
+    }
+
+    @Override
+    View getViewForChild(int sectionIndex, int childPosition, View convertView, ViewGroup parent) {
+        int position = mIndex.getPositionForSection(sectionIndex) + 1 + childPosition;
+        return getChildView(moveToRow(position, sectionIndex), convertView, parent);
+    }
+
+    /**
+     * Moves the count cursor to the row for the section at the given index.
+     * @param sectionIndex Index of the section.
+     * @return Count cursor, moved to the section's row.
+     */
+    private Cursor moveToSection(int sectionIndex) {
+        mSectionCounts.moveToPosition(sectionIndex);
+        return mSectionCounts;
+    }
+
+    /**
+     * Moves the row cursor to the row for the given child position. If the row cursor has fewer rows
+     * than the counts it was read with, as when it changed without notifying this adapter, its last row
+     * is used instead and a warning is logged.
+     * @param position Adapter position of a child.
+     * @param sectionIndex Index of the child's section.
+     * @return Row cursor, moved to the child's row.
+     */
+    private Cursor moveToRow(int position, int sectionIndex) {
+        // One header precedes this child for its own section and for each section before it
+        int row = position - sectionIndex - 1;
+        if (!mRows.moveToPosition(row)) {
+            int rowCount = mRows.getCount();
+            Log.w(TAG, String.format(WARNING_ROW_NOT_FOUND, row, rowCount));
+
+            if (rowCount == 0 || !mRows.moveToPosition(rowCount - 1)) {
+                throw new IllegalStateException(String.format(ERROR_NO_ROWS, row));
+            }
+        }
+
+        return mRows;
+    }
+
+    /**
+     * Keeps the given cursors, observing them in place of the previous ones, and reads the section index.
+     * @param sectionCounts Cursor with one row per section or {@code null} for no sections.
+     * @param rows Cursor with every row or {@code null} for no rows.
+     */
+    private void setCursors(Cursor sectionCounts, Cursor rows) {
+        if (mSectionCounts != null) {
+            mSectionCounts.unregisterDataSetObserver(mObserver);
+        }
+
+        if (mRows != null && mRows != mSectionCounts) {
+            mRows.unregisterDataSetObserver(mObserver);
+        }
+
+        mSectionCounts = sectionCounts;
+        mRows = rows;
+        mIdColumn = rows == null ? -1 : rows.getColumnIndex(COLUMN_ID);
+
+        if (sectionCounts != null) {
+            sectionCounts.registerDataSetObserver(mObserver);
+        }
+
+        if (rows != null && rows != sectionCounts) {
+            rows.registerDataSetObserver(mObserver);
+        }
+
+        readCounts();
+    }
+
+    /**
+     * Reads the count cursor into a new section index, clamping the sections to the row cursor.
+     */
+    private void readCounts() {
+        Cursor sectionCounts = mSectionCounts;
+        int sectionCount = sectionCounts == null ? 0 : sectionCounts.getCount();
+        String[] keys = new String[sectionCount];
+        int[] sizes = new int[sectionCount];
+        int[] keyHashes = new int[sectionCount];
+        int rowCount = 0;
+
+        if (sectionCount > 0) {
+            int keyColumn = sectionCounts.getColumnIndexOrThrow(mKeyColumn);
+            int countColumn = sectionCounts.getColumnIndexOrThrow(mCountColumn);
+
+            sectionCounts.moveToPosition(-1);
+            for (int section = 0; sectionCounts.moveToNext(); section++) {
+                keys[section] = sectionCounts.getString(keyColumn);
+                sizes[section] = sectionCounts.getInt(countColumn);
+                keyHashes[section] = keys[section] == null ? 0 : keys[section].hashCode();
+                rowCount += sizes[section];
+            }
+        }
+
+        int rowsCount = mRows == null ? 0 : mRows.getCount();
+        if (rowCount != rowsCount) {
+            Log.w(TAG, String.format(WARNING_MISMATCHED_COUNTS, rowCount, rowsCount));
+
+            // Later sections give up their rows first, extra rows past the last section are not shown
+            int remaining = rowsCount;
+            for (int section = 0; section < sectionCount; section++) {
+                sizes[section] = Math.min(sizes[section], remaining);
+                remaining -= sizes[section];
+            }
+        }
+
+        mKeyHashes = keyHashes;
+        mIndex = new SectionIndex(keys, sizes, true);
+    }
+
+    /**
+     * {@link DataSetObserver} that keeps this adapter in step with its cursors.
+     */
+    private class CursorObserver extends DataSetObserver {
+
+        @Override
+        public void onChanged() {
+            // A requeried cursor may have new counts, read them before any row is bound again
+            readCounts();
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onInvalidated() {
+            // Deactivated or closed cursors cannot be read, show nothing until new cursors are swapped in
+            mKeyHashes = new int[0];
+            mIndex = new SectionIndex(new String[0], new int[0], true);
+            notifyDataSetInvalidated();
+        }
+
+    }
+
+}
@@ -0,0 +1,233 @@
+package com.lillicoder.demo.sectionedlist.widget;
+
+import android.view.View;
+import android.view.ViewGroup;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import junit.framework.Assert;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ *     {@link IndexableListAdapter} that creates and recycles its own views through view holders.
+ * </p>
+ *
+ * <p>
+ *     Subclasses create a holder per view type in {@link #onCreateHeaderHolder(ViewGroup)} and
+ *     {@link #onCreateHolder(ViewGroup, int)}, and bind elements to them in
+ *     {@link #onBindHeader(ViewHolder, IndexableList)} and {@link #onBind(ViewHolder, Object)}. Each holder
+ *     is kept as its view's tag along with the view type it was created for, so binding a recycled row
+ *     never inflates, looks views up or casts in subclass code, and a row is only ever rebound through a
+ *     holder created for its own view type. Header and child holders have their own types; all child view
+ *     types share one.
+ * </p>
+ *
+ * <p>
+ *     Holders only cover flat lists of sections. {@link IndexableExpandableListAdapter} and
+ *     {@link CursorIndexableListAdapter} still bind through their own view getters.
+ * </p>
+ * @param <K> Type of object each indexable list is indexable by.
+ * @param <E> Type of object each indexable list contains.
+ * @param <HH> Type of header view holder.
+ * @param <CH> Type of child view holder.
+ */
+public abstract class HolderIndexableListAdapter<K extends Comparable<K>,
+                                                 E,
+                                                 HH extends HolderIndexableListAdapter.ViewHolder,
+                                                 CH extends HolderIndexableListAdapter.ViewHolder>
+    extends IndexableListAdapter<K, E> {
+
+    /**
+     * Instantiates this adapter with no sections. Sections can be published later
+     * on with {@link #swapSnapshot(Snapshot)}.
+     */
+    public HolderIndexableListAdapter() {
+        super();
+    }
+
+    /**
+     * Instantiates this adapter with the given {@link List} of {@link IndexableList}.
+     * @param sections List of indexable lists for this adapter,
+     *                 where each indexable list represents a section.
+     */
+    public HolderIndexableListAdapter(List<IndexableList<K, E>> sections) {
+        super(sections);
+    }
+
+    /**
+     * Instantiates this adapter with the given map of {@link Collection}. Each key represents
+     * a section and each collection mapped to a key represents the items for that section.
+     * @param sections Map of sections for this adapter.
+     */
+    public HolderIndexableListAdapter(Map<K, ? extends Collection<E>> sections) {
+        super(sections);
+    }
+
+    /**
+     * Instantiates this adapter with the given {@link Snapshot}.
+     * @param snapshot Snapshot of sections for this adapter.
+     */
+    public HolderIndexableListAdapter(Snapshot<K, E> snapshot) {
+        super(snapshot);
+    }
+
+    /**
+     * Creates a holder for a new header view.
+     * @param parent The parent that the view will eventually be attached to.
+     * @return Header view holder.
+     */
+    protected abstract HH onCreateHeaderHolder(ViewGroup parent);
+
+    /**
+     * Creates a holder for a new child view of the given type.
+     * @param parent The parent that the view will eventually be attached to.
+     * @param viewType View type of the child, see {@link #getChildViewType(IndexableList, int)}.
+     * @return Child view holder.
+     */
+    protected abstract CH onCreateHolder(ViewGroup parent, int viewType);
+
+    /**
+     * Binds the given holder to the header of the given {@link IndexableList}.
+     * @param holder Header view holder.
+     * @param section Sortable list containing all elements for a section.
+     */
+    protected abstract void onBindHeader(HH holder, IndexableList<K, E> section);
+
+    /**
+     * Binds the given holder to the given child.
+     * @param holder Child view holder.
+     * @param child Child section item.
+     */
+    protected abstract void onBind(CH holder, E child);
+
+    /**
+     * Binds the given holder to the child at the given position in the given {@link IndexableList}. By
+     * default this delegates to {@link #onBind(ViewHolder, Object)}. Subclasses whose sections are backed
+     * by primitive lists can override this to read the child without boxing.
+     * @param holder Child view holder.
+     * @param section Sortable list containing the child.
+     * @param childPosition Position of the child in the given section.
+     */
+    protected void onBind(CH holder, IndexableList<K, E> section, int childPosition) {
+        onBind(holder, section.get(childPosition));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected final View getHeaderView(IndexableList<K, E> section, View convertView, ViewGroup parent) {
+        // Views are only recycled between rows of the same type, so a header's tag is always a header holder
+        HH holder;
+        if (convertView == null) {
+            holder = onCreateHeaderHolder(parent);
+            keep(holder, VIEW_TYPE_HEADER);
+        } else {
+            holder = (HH) convertView.getTag();
+        }
+
+        onBindHeader(holder, section);
+
+        return holder.getView();
+    }
+
+    @Override
+    protected final View getChildView(IndexableList<K, E> section,
+                                      int childPosition,
+                                      View convertView,
+                                      ViewGroup parent) {
+        CH holder = getChildHolder(convertView, parent, getChildViewType(section, childPosition));
+        onBind(holder, section, childPosition);
+
+        return holder.getView();
+    }
+
+    /**
+     * Gets a view for the given child, bound as {@link #VIEW_TYPE_CHILD} since a child alone has no view
+     * type. The given view is only reused if its holder was created for that type. Rows of this adapter
+     * are bound through {@link #getChildView(IndexableList, int, View, ViewGroup)} instead.
+     * @param child Child section item.
+     * @param convertView The old view to reuse, if possible.
+     * @param parent The parent that this view will eventually be attached to.
+     * @return View for the given child.
+     */
+    @Override
+    protected final View getChildView(E child, View convertView, ViewGroup parent) {
+        CH holder = getChildHolder(convertView, parent, VIEW_TYPE_CHILD);
+        onBind(holder, child);
+
+        return holder.getView();
+    }
+
+    /**
+     * Gets the holder of the given recycled child view if it was created for the given view type, or
+     * creates a new holder and view otherwise.
+     * @param convertView The old view to reuse, if possible.
+     * @param parent The parent that this view will eventually be attached to.
+     * @param viewType View type of the child.
+     * @return Child view holder.
+     */
+    @SuppressWarnings("unchecked")
+    private CH getChildHolder(View convertView, ViewGroup parent, int viewType) {
+        if (convertView != null) {
+            CH holder = (CH) convertView.getTag();
+            if (((ViewHolder) holder).mViewType == viewType) {
+                return holder;
+            }
+        }
+
+        CH holder = onCreateHolder(parent, viewType);
+        keep(holder, viewType);
+
+        return holder;
+    }
+
+    /**
+     * Stores the given new holder as its view's tag, along with the view type it was created for.
+     * @param holder New view holder.
+     * @param viewType View type the holder was created for.
+     */
+    private static void keep(ViewHolder holder, int viewType) {
+        holder.mViewType = viewType;
+        holder.mView.setTag(holder);
+    }
+
+    /**
+     * <p>
+     *     Holds a row view and any child views a subclass looks up once, when the row is created.
+     * </p>
+     *
+     * <p>
+     *     Subclasses add fields for the child views they bind. The holder is stored as the row view's
+     *     tag, so the tag must not be used for anything else.
+     * </p>
+     */
+    public static class ViewHolder {
+
+        private static final String PRECONDITION_NULL_VIEW =
+            "Cannot instantiate a view holder with a null view.";
+
+        private final View mView;
+        private int mViewType;
+
+        /**
+         * Instantiates this holder with the given row {@link View}.
+         * @param view Row view held by this holder.
+         */
+        public ViewHolder(View view) {
+            Assert.assertTrue(PRECONDITION_NULL_VIEW, view != null);
+
+            mView = view;
+        }
+
+        /**
+         * Gets the row view held by this holder.
+         * @return Row view.
+         */
+        public final View getView() {
+            return mView;
+        }
+
+    }
+
+}
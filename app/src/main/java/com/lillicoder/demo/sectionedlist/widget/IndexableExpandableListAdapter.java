@@ -4,6 +4,7 @@ import android.util.Log;
 import android.widget.BaseExpandableListAdapter;
 import android.widget.SectionIndexer;
 import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.SectionIndex;
 import junit.framework.Assert;
 
 import java.util.*;
@@ -38,6 +39,8 @@ public abstract class IndexableExpandableListAdapter<K extends Comparable<K>, E>
 
     private Indexer<K, E> mIndexer;
 
+    private int[] mKeyHashes;
+
     /**
      * Instantiates this adapter with the given {@link List} of {@link IndexableList}.
      * @param sections List of indexable lists for this adapter,
@@ -48,6 +51,7 @@ public abstract class IndexableExpandableListAdapter<K extends Comparable<K>, E>
 
         mSections = sections;
         mIndexer = new Indexer<K, E>(sections);
+        mKeyHashes = hashKeys(sections);
     }
 
     /**
@@ -61,6 +65,20 @@ public abstract class IndexableExpandableListAdapter<K extends Comparable<K>, E>
 
         mSections = convertToList(sections);
         mIndexer = new Indexer<K, E>(mSections);
+        mKeyHashes = hashKeys(mSections);
+    }
+
+    /**
+     * Gets the identity of the given element within its section, used to derive child IDs. By default
+     * this is the element's hash code, which equal or colliding elements share, so {@link #hasStableIds()}
+     * returns {@code false}. Subclasses that override this, or {@link #getChildId(int, int)}, to return an
+     * identity that is unique within the element's section, such as a database row ID, should also
+     * override {@link #hasStableIds()} to return {@code true}.
+     * @param element Element to identify.
+     * @return Identity of the element.
+     */
+    protected long getElementId(E element) {
+        return element.hashCode();
     }
 
     @Override
@@ -71,7 +89,8 @@ public abstract class IndexableExpandableListAdapter<K extends Comparable<K>, E>
 
     @Override
     public long getChildId(int groupPosition, int childPosition) {
-        return childPosition;
+        E child = getChild(groupPosition, childPosition);
+        return StableIds.forChild(mKeyHashes[groupPosition], getElementId(child));
     }
 
     @Override
@@ -92,7 +111,7 @@ public abstract class IndexableExpandableListAdapter<K extends Comparable<K>, E>
 
     @Override
     public long getGroupId(int groupPosition) {
-        return groupPosition;
+        return StableIds.forHeader(mKeyHashes[groupPosition]);
     }
 
     @Override
@@ -110,6 +129,12 @@ public abstract class IndexableExpandableListAdapter<K extends Comparable<K>, E>
         return mIndexer.getSectionForPosition(position);
     }
 
+    /**
+     * Determines if group and child IDs are stable. Group IDs always are, child IDs are only as unique
+     * as {@link #getElementId(Object)}, so this returns {@code false} unless a subclass that identifies
+     * its own elements overrides it.
+     * @return {@code true} if IDs are stable, {@code false} by default.
+     */
     @Override
     public boolean hasStableIds() {
         return false;
@@ -125,18 +150,66 @@ public abstract class IndexableExpandableListAdapter<K extends Comparable<K>, E>
         return mSections.isEmpty();
     }
 
+    /**
+     * Updates this adapter after elements were added to or removed from the section at the given
+     * index, then notifies any observers. Only that section's size is re-read, so this is O(log S)
+     * for S sections instead of rebuilding the adapter.
+     * @param sectionIndex Index of the section that changed.
+     */
+    public void notifySectionChanged(int sectionIndex) {
+        mIndexer.onGroupChanged(sectionIndex);
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public void onGroupCollapsed(int groupPosition) {
+        super.onGroupCollapsed(groupPosition);
+        mIndexer.onGroupCollapsed(groupPosition);
+    }
+
+    @Override
+    public void onGroupExpanded(int groupPosition) {
+        super.onGroupExpanded(groupPosition);
+        mIndexer.onGroupExpanded(groupPosition);
+    }
+
+    /**
+     * Gets the flat list position of the given group, taking expanded groups into account. This is O(log n)
+     * for n groups.
+     * @param groupPosition Position of the group.
+     * @return Flat list position of the group or -1 if the group is out of range.
+     */
+    public int getFlatPositionForGroup(int groupPosition) {
+        return mIndexer.getFlatPositionForGroup(groupPosition);
+    }
+
+    /**
+     * Gets the hash code of each section's key, so stable IDs never touch the keys themselves.
+     * @param sections Sections to hash.
+     * @return Key hash for each section.
+     */
+    private int[] hashKeys(List<IndexableList<K, E>> sections) {
+        int[] keyHashes = new int[sections.size()];
+        for (int index = 0; index < keyHashes.length; index++) {
+            keyHashes[index] = sections.get(index).getKey().hashCode();
+        }
+
+        return keyHashes;
+    }
+
     /**
      * Converts the given sections {@link Map} to a {@link List} of {@link IndexableList}. Each indexable list
-     * created will use the key's toString() method as that list's label.
+     * created will use the key's toString() method as that list's label. Items are copied, so later changes
+     * to the map's collections do not reach this adapter.
      * @param sections Sections to convert.
      * @return List of indexable lists converted from the given map.
      */
     private List<IndexableList<K, E>> convertToList(Map<K, Collection<E>> sections) {
-        Set<K> keys = sections.keySet();
-        List<IndexableList<K, E>> sectionsList = new ArrayList<IndexableList<K, E>>(keys.size());
+        List<IndexableList<K, E>> sectionsList = new ArrayList<IndexableList<K, E>>(sections.size());
 
-        for (K sectionKey : keys) {
-            Collection<E> sectionItems = sections.get(sectionKey);
+        for (Map.Entry<K, Collection<E>> entry : sections.entrySet()) {
+            K sectionKey = entry.getKey();
+            Collection<E> sectionItems = entry.getValue();
 
             IndexableList<K, E> section =
                 new IndexableList<K, E>(sectionKey, sectionKey.toString(), sectionItems.size());
@@ -149,7 +222,16 @@ public abstract class IndexableExpandableListAdapter<K extends Comparable<K>, E>
     }
 
     /**
-     * {@link SectionIndexer} implementation that handles creating the proper section tracking information.
+     * <p>
+     *     {@link SectionIndexer} implementation that maps flat list positions to groups.
+     * </p>
+     *
+     * <p>
+     *     Each group is a section labelled with its group's label. A group covers one flat position for
+     *     its group row plus one per child while it is expanded. Groups are collapsed sections of the
+     *     wrapped {@link SectionIndex}, which keeps each group's size while it is collapsed, so expanding,
+     *     collapsing or resizing a group is O(log n) for n groups.
+     * </p>
      * @param <K> Type of object sections are indexable by.
      * @param <E> Type of object each section contains.
      */
@@ -169,61 +251,81 @@ public abstract class IndexableExpandableListAdapter<K extends Comparable<K>, E>
         private static final int INVALID_POSITION = -1;
         private static final int INVALID_SECTION = -1;
 
-        private CharSequence[] mSections;
-        private int[] mSectionSizes;
-        private int[] mSectionStartPositions;
+        private List<IndexableList<K, E>> mGroups;
+        private SectionIndex mIndex;
 
         public Indexer(List<IndexableList<K, E>> sections) {
             Assert.assertTrue(PRECONDITION_NULL_ITEMS, sections != null);
 
-            // One section per list
-            mSections = new CharSequence[sections.size()];
-
-            // One element for each section's size and starting position
-            mSectionSizes = new int[mSections.length];
-            mSectionStartPositions = new int[mSections.length];
+            // One section per group, each labelled with its group's label. Groups start
+            // collapsed, so each one only covers its own group row.
+            mGroups = sections;
+            mIndex = SectionIndex.forSections(sections, true);
+            mIndex.setAllCollapsed(true);
+        }
 
-            // Populate section sizes and starting positions
-            int lastPosition = 0;
-            for (int sectionPosition = 0; sectionPosition < sections.size(); sectionPosition++) {
-                // Section starting position is the last position we reached
-                mSectionStartPositions[sectionPosition] = lastPosition;
+        /**
+         * Updates this indexer after the given group was collapsed.
+         * @param groupPosition Position of the collapsed group.
+         */
+        public void onGroupCollapsed(int groupPosition) {
+            mIndex.setCollapsed(groupPosition, true);
+        }
 
-                IndexableList<K, E> section = sections.get(sectionPosition);
-                int sectionSize = section.size();
+        /**
+         * Updates this indexer after the given group was expanded.
+         * @param groupPosition Position of the expanded group.
+         */
+        public void onGroupExpanded(int groupPosition) {
+            mIndex.setCollapsed(groupPosition, false);
+        }
 
-                // Increase position by section size for next section
-                lastPosition += sectionSize;
+        /**
+         * Updates this indexer after children were added to or removed from the given group. The new
+         * size is kept whether or not the group is expanded.
+         * @param groupPosition Position of the changed group.
+         */
+        public void onGroupChanged(int groupPosition) {
+            mIndex.setSectionSize(groupPosition, mGroups.get(groupPosition).size());
+        }
 
-                // Store section size
-                mSectionSizes[sectionPosition] = sectionSize;
-            }
+        /**
+         * Gets the flat list position of the given group.
+         * @param groupPosition Position of the group.
+         * @return Flat list position of the group or -1 if the group is out of range.
+         */
+        public int getFlatPositionForGroup(int groupPosition) {
+            return mIndex.getPositionForSection(groupPosition);
         }
 
         @Override
-        public CharSequence[] getSections() {
-            return mSections;
+        public Object[] getSections() {
+            return mIndex.getSections();
         }
 
+        /**
+         * Gets the position for the given section. Sections are groups and the framework's fast
+         * scroller expects a group position back for expandable lists, so the group position is returned.
+         * Use {@link #getFlatPositionForGroup(int)} for the flat list position.
+         * @param section Index of the section.
+         * @return Group position of the section or -1 if the section is out of range.
+         */
         @Override
         public int getPositionForSection(int section) {
-            if (section < 0 || section >= mSections.length) {
+            int sectionCount = mIndex.getSectionCount();
+            if (section < 0 || section >= sectionCount) {
                 Log.w(TAG, String.format(WARNING_SECTION_INDEX_OUT_OF_BOUNDS,
                                          section,
-                                         mSections.length));
+                                         sectionCount));
                 return INVALID_POSITION;
             }
 
-            return mSectionStartPositions[section];
+            return section;
         }
 
         @Override
         public int getSectionForPosition(int position) {
-            // Last item position is the last section's start position plus the position of the last item that section
-            int lastSectionIndex = mSections.length - 1;
-            int lastSectionStartPosition = mSectionStartPositions[lastSectionIndex];
-            int lastSectionLastItemPosition = mSectionSizes[lastSectionIndex] - 1;
-            int lastItemPosition = lastSectionStartPosition + lastSectionLastItemPosition;
+            int lastItemPosition = mIndex.getPositionCount() - 1;
             if (position < 0 || position > lastItemPosition) {
                 Log.w(TAG, String.format(WARNING_POSITION_INDEX_OUT_OF_BOUNDS,
                                          position,
@@ -231,17 +333,7 @@ public abstract class IndexableExpandableListAdapter<K extends Comparable<K>, E>
                 return INVALID_SECTION;
             }
 
-            int closestSection = Arrays.binarySearch(mSectionStartPositions, position);
-
-            /*
-             * Consider this example: section positions are 0, 3, 5; the supplied
-             * position is 4. The section corresponding to position 4 starts at
-             * position 3, so the expected return value is 1. Binary search will not
-             * find 4 in the array and thus will return -insertPosition-1, i.e. -3.
-             * To get from that number to the expected value of 1 we need to negate
-             * and subtract 2.
-             */
-            return closestSection >= 0 ? closestSection : closestSection - 2;
+            return mIndex.getSectionForPosition(position);
         }
 
     }
@@ -1,17 +1,30 @@
 package com.lillicoder.demo.sectionedlist.widget;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.BaseAdapter;
-import android.widget.SectionIndexer;
+import android.widget.Filter;
+import android.widget.Filterable;
 import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.NarrowingFilter;
+import com.lillicoder.demo.sectionedlist.list.PagedIndexableList;
+import com.lillicoder.demo.sectionedlist.list.PatchedIndexableList;
+import com.lillicoder.demo.sectionedlist.list.PrefixIndex;
+import com.lillicoder.demo.sectionedlist.list.SectionDiff;
+import com.lillicoder.demo.sectionedlist.list.SectionIndex;
 import junit.framework.Assert;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>
- *     {@link BaseAdapter} implementation that can support an
+ *     {@link android.widget.BaseAdapter} implementation that can support an
  *     arbitrary collection of {@link IndexableList}.
  * </p>
  *
@@ -22,26 +35,97 @@ import java.util.*;
  *     a header view representing the indexable information and child views under a
  *     header representing the list items.
  * </p>
+ *
+ * <p>
+ *     Sections can be filtered off the UI thread with {@link #filter(CharSequence)} or through
+ *     {@link #getFilter()}. Each new query cancels any filtering still in flight, and each result is
+ *     published as a whole {@link Snapshot}. Children match when their string form contains the query,
+ *     ignoring case; subclasses can change this with {@link #getMatcher()}.
+ * </p>
+ *
+ * <p>
+ *     Sections can be collapsed to their header with {@link #setSectionCollapsed(int, boolean)} or all
+ *     at once with {@link #setAllSectionsCollapsed(boolean)}. Collapsed sections belong to this adapter,
+ *     not to the snapshot shown: they are kept by key, so a section stays collapsed when the snapshot is
+ *     replaced, filtered or published again, and new sections start expanded. Collapsing only updates
+ *     this adapter's copy of the section index, in O(log S) per section for S sections, so no elements
+ *     are walked or copied and snapshots themselves are never collapsed.
+ * </p>
  * @param <K> Type of object each indexable list is indexable by.
  * @param <E> Type of object each indexable list contains.
  */
 public abstract class IndexableListAdapter<K extends Comparable<K>, E>
-    extends BaseAdapter
-    implements SectionIndexer {
+    extends SectionedListAdapter
+    implements Filterable {
 
     private static final String PRECONDITION_NULL_MAP =
         "Cannot instantiate a section list adapter with a null map of sections.";
     private static final String PRECONDITION_NULL_SECTIONS =
         "Cannot instantiate a section list adapter with a null collection of sections.";
+    private static final String PRECONDITION_NULL_SECTION =
+        "Cannot add a null section to a section list adapter.";
+    private static final String PRECONDITION_DUPLICATE_SECTION =
+        "Cannot add a section whose key is already used by another section.";
+    private static final String PRECONDITION_MISSING_SECTION =
+        "Cannot remove a child from a section that is not in a section list adapter.";
+    private static final String PRECONDITION_MISMATCHED_SECTION =
+        "Cannot replace a section with a section that has a different key.";
+    private static final String PRECONDITION_PAGED_REMOVE =
+        "Cannot remove an element from a paged section by value, remove it by position instead.";
+    private static final String PRECONDITION_PAGED_FILTER =
+        "Cannot filter paged sections, filtering reads every element.";
+    private static final String PRECONDITION_NULL_SNAPSHOT =
+        "Cannot use a null snapshot of sections with a section list adapter.";
+    private static final String PRECONDITION_NO_PREFIX_INDEX =
+        "Cannot search by prefix, the current snapshot was built without a prefix index.";
+
+    // Filtering runs on one shared low priority thread, in order of submission
+    private static final Executor FILTER_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "IndexableListAdapter-Filter");
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    });
+
+    private volatile Snapshot<K, E> mSnapshot;
+    private volatile Snapshot<K, E> mSourceSnapshot;
 
-    private List<Wrapper<K, E>> mItems;
+    // Index of the shown snapshot with collapsed sections applied, the snapshot's own index while none are
+    private SectionIndex mIndex;
+    private final Set<K> mCollapsedKeys = new HashSet<K>();
 
-    private Indexer<K, E> mIndexer;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger mFilterGeneration = new AtomicInteger();
+    private CharSequence mQuery;
+    private SectionFilter mFilter;
 
+    /**
+     * Instantiates this adapter with no sections. Sections can be published later
+     * on with {@link #swapSnapshot(Snapshot)}.
+     */
+    public IndexableListAdapter() {
+        this(Snapshot.<K, E>empty());
+    }
+
+    /**
+     * Instantiates this adapter with the given {@link List} of {@link IndexableList}.
+     * @param sections List of indexable lists for this adapter,
+     *                 where each indexable list represents a section.
+     */
     public IndexableListAdapter(List<IndexableList<K, E>> sections) {
         Assert.assertTrue(PRECONDITION_NULL_SECTIONS, sections != null);
-        mItems = flatten(sections);
-        mIndexer = new Indexer<K, E>(sections);
+
+        mSourceSnapshot = new Snapshot<K, E>(sections);
+        showSnapshot(mSourceSnapshot);
     }
 
     /**
@@ -52,9 +136,19 @@ public abstract class IndexableListAdapter<K extends Comparable<K>, E>
     public IndexableListAdapter(Map<K, ? extends Collection<E>> sections) {
         Assert.assertTrue(PRECONDITION_NULL_MAP, sections != null);
 
-        List<IndexableList<K, E>> sectionsAsList = convertToList(sections);
-        mItems = flatten(sectionsAsList);
-        mIndexer = new Indexer<K, E>(sections);
+        mSourceSnapshot = Snapshot.fromMap(sections);
+        showSnapshot(mSourceSnapshot);
+    }
+
+    /**
+     * Instantiates this adapter with the given {@link Snapshot}.
+     * @param snapshot Snapshot of sections for this adapter.
+     */
+    public IndexableListAdapter(Snapshot<K, E> snapshot) {
+        Assert.assertTrue(PRECONDITION_NULL_SNAPSHOT, snapshot != null);
+
+        mSourceSnapshot = snapshot;
+        showSnapshot(snapshot);
     }
 
     /**
@@ -66,6 +160,87 @@ public abstract class IndexableListAdapter<K extends Comparable<K>, E>
      */
     protected abstract View getChildView(E child, View convertView, ViewGroup parent);
 
+    /**
+     * Gets a view for the child at the given position in the given {@link IndexableList}. By default
+     * this delegates to {@link #getChildView(Object, View, ViewGroup)}. Subclasses whose sections are
+     * backed by primitive lists can override this to read the child without boxing.
+     * @param section Sortable list containing the child.
+     * @param childPosition Position of the child in the given section.
+     * @param convertView The old view to reuse, if possible.
+     * @param parent The parent that this view will eventually be attached to.
+     * @return View for the given child.
+     */
+    protected View getChildView(IndexableList<K, E> section, int childPosition, View convertView, ViewGroup parent) {
+        return getChildView(section.get(childPosition), convertView, parent);
+    }
+
+    /**
+     * Gets the view type of the child at the given position in the given {@link IndexableList}. Views
+     * are only recycled between rows of the same type. Subclasses that declare extra view types with
+     * {@link #getExtraViewTypeCount()} return them here, starting from {@link #VIEW_TYPE_FIRST_EXTRA}.
+     * @param section Sortable list containing the child.
+     * @param childPosition Position of the child in the given section.
+     * @return View type of the child, {@link #VIEW_TYPE_CHILD} by default.
+     */
+    protected int getChildViewType(IndexableList<K, E> section, int childPosition) {
+        return VIEW_TYPE_CHILD;
+    }
+
+    /**
+     * Gets the number of child view types this adapter uses in addition to {@link #VIEW_TYPE_HEADER}
+     * and {@link #VIEW_TYPE_CHILD}. This must not change while the adapter is set on a list.
+     * @return Number of extra view types, 0 by default.
+     */
+    protected int getExtraViewTypeCount() {
+        return 0;
+    }
+
+    /**
+     * Gets the identity of the given element within its section, used to derive item IDs. By default
+     * this is the element's hash code, which equal or colliding elements share, so {@link #hasStableIds()}
+     * returns {@code false}. Subclasses that override this or {@link #getChildId(IndexableList, int)} to
+     * return an identity that is unique within the element's section, such as a database row ID, should
+     * also override {@link #hasStableIds()} to return {@code true}.
+     * @param element Element to identify.
+     * @return Identity of the element.
+     */
+    protected long getElementId(E element) {
+        return element.hashCode();
+    }
+
+    /**
+     * Gets the identity of the child at the given position in the given {@link IndexableList}. By
+     * default this delegates to {@link #getElementId(Object)}. Subclasses whose sections are backed
+     * by primitive lists can override this to identify the child without boxing; like overrides of
+     * {@link #getElementId(Object)}, they should override {@link #hasStableIds()} as well.
+     * @param section Sortable list containing the child.
+     * @param childPosition Position of the child in the given section.
+     * @return Identity of the child.
+     */
+    protected long getChildId(IndexableList<K, E> section, int childPosition) {
+        return getElementId(section.get(childPosition));
+    }
+
+    /**
+     * Creates an empty section with the given key, used by {@link #insert(Comparable, Object)} when no
+     * section has the key yet. By default this is an {@link IndexableList} labeled by the key's string
+     * form. Subclasses with primitive sections can override this to store new sections unboxed.
+     * @param key Key of the section.
+     * @return Empty section.
+     */
+    protected IndexableList<K, E> createSection(K key) {
+        return new IndexableList<K, E>(key, key.toString(), 1);
+    }
+
+    /**
+     * Gets the {@link NarrowingFilter.Matcher} used to filter children. By default children match when
+     * their string form contains the query, ignoring case. This is called on the filtering thread.
+     * @return Matcher for children, or {@code null} for the default.
+     */
+    protected NarrowingFilter.Matcher<? super E> getMatcher() {
+        return null;
+    }
+
     /**
      * Gets a header view for the given {@link IndexableList}.
      * @param section Sortable list containing all elements for a section.
@@ -76,72 +251,554 @@ public abstract class IndexableListAdapter<K extends Comparable<K>, E>
     protected abstract View getHeaderView(IndexableList<K, E> section, View convertView, ViewGroup parent);
 
     @Override
-    public boolean areAllItemsEnabled() {
-        return false;
+    public Object getItem(int position) {
+        // Headers resolve to their section, children to the underlying element
+        Snapshot<K, E> snapshot = mSnapshot;
+        int sectionIndex = mIndex.getSectionForPosition(position);
+        IndexableList<K, E> section = snapshot.mSections.get(sectionIndex);
+
+        int offset = position - mIndex.getPositionForSection(sectionIndex);
+        return offset == 0 ? section : section.get(offset - 1);
     }
 
     @Override
-    public int getCount() {
-        return mItems.size();
+    public long getItemId(int position) {
+        Snapshot<K, E> snapshot = mSnapshot;
+        int sectionIndex = mIndex.getSectionForPosition(position);
+        int keyHash = snapshot.mKeyHashes[sectionIndex];
+
+        int offset = position - mIndex.getPositionForSection(sectionIndex);
+        if (offset == 0) {
+            return StableIds.forHeader(keyHash);
+        } else {
+            IndexableList<K, E> section = snapshot.mSections.get(sectionIndex);
+            return StableIds.forChild(keyHash, getChildId(section, offset - 1));
+        }
     }
 
+    /**
+     * Determines if item IDs are stable. Header IDs always are, child IDs are only as unique as
+     * {@link #getElementId(Object)} or {@link #getChildId(IndexableList, int)}, so this returns
+     * {@code false} unless a subclass that identifies its own elements overrides it.
+     * @return {@code true} if item IDs are stable, {@code false} by default.
+     */
     @Override
-    public Object getItem(int position) {
-        // We return actual underlying values as AdapterView can query for items
-        // and users of this adapter shouldn't have to handle wrappers
-        Wrapper<K, E> wrapper = mItems.get(position);
-        return wrapper.getValue();
+    public boolean hasStableIds() {
+        return false;
     }
 
     @Override
-    public long getItemId(int position) {
-        return position;
+    public int getViewTypeCount() {
+        return VIEW_TYPE_FIRST_EXTRA + getExtraViewTypeCount();
     }
 
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        // Delegate to getHeaderView or getChildView
-        Wrapper<K, E> wrapper = mItems.get(position);
-        if (wrapper.isSection()) {
-            return getHeaderView((IndexableList<K, E>) wrapper.getValue(), convertView, parent);
-        } else {
-            return getChildView((E) wrapper.getValue(), convertView, parent);
-        }
+    SectionIndex getSectionIndex() {
+        return mIndex;
     }
 
     @Override
-    public boolean isEnabled(int position) {
-        // Sections items are never enabled
-        Wrapper<K, E> wrapper = mItems.get(position);
-        return !wrapper.isSection();
+    View getViewForHeader(int sectionIndex, View convertView, ViewGroup parent) {
+        return getHeaderView(mSnapshot.mSections.get(sectionIndex), convertView, parent);
     }
 
     @Override
-    public Object[] getSections() {
-        return mIndexer.getSections();
+    View getViewForChild(int sectionIndex, int childPosition, View convertView, ViewGroup parent) {
+        return getChildView(mSnapshot.mSections.get(sectionIndex), childPosition, convertView, parent);
     }
 
     @Override
-    public int getPositionForSection(int section) {
-        return mIndexer.getPositionForSection(section);
+    int getViewTypeForChild(int sectionIndex, int childPosition) {
+        return getChildViewType(mSnapshot.mSections.get(sectionIndex), childPosition);
+    }
+
+    /**
+     * Gets the positions of every child whose element starts with the given prefix, ignoring case.
+     * This is O(log n + m) for n children and m matches. The current snapshot must have been built
+     * with a prefix index, see {@link Snapshot#Snapshot(List, boolean)}.
+     * @param prefix Prefix to search for.
+     * @return Positions of the matching children, ordered by element.
+     */
+    public int[] getPositionsForPrefix(CharSequence prefix) {
+        PrefixIndex prefixIndex = mSnapshot.mPrefixIndex;
+        Assert.assertTrue(PRECONDITION_NO_PREFIX_INDEX, prefixIndex != null);
+
+        int[] positions = prefixIndex.getPositions(prefix);
+        SectionIndex index = mIndex;
+        if (index.getCollapsedCount() == 0) {
+            return positions;
+        }
+
+        // The prefix index holds expanded positions, children of collapsed sections are left out
+        int count = 0;
+        for (int expandedPosition : positions) {
+            int position = index.getPositionForExpandedPosition(expandedPosition);
+            if (position >= 0) {
+                positions[count++] = position;
+            }
+        }
+
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * Determines if the section at the given index is collapsed.
+     * @param sectionIndex Index of the section.
+     * @return {@code true} if only the section's header is shown, {@code false} otherwise.
+     */
+    public boolean isSectionCollapsed(int sectionIndex) {
+        return mIndex.isCollapsed(sectionIndex);
+    }
+
+    /**
+     * Collapses the section at the given index to its header, or expands it again, and notifies any
+     * observers. The section stays collapsed under its key until it is expanded again. This is O(log S)
+     * for S sections, plus O(S) the first time a section of the shown snapshot is collapsed. This must be
+     * called on the UI thread.
+     * @param sectionIndex Index of the section.
+     * @param collapsed {@code true} to hide the section's children, {@code false} to show them.
+     */
+    public void setSectionCollapsed(int sectionIndex, boolean collapsed) {
+        K key = mSnapshot.mSections.get(sectionIndex).getKey();
+        if (collapsed) {
+            mCollapsedKeys.add(key);
+        } else {
+            mCollapsedKeys.remove(key);
+        }
+
+        if (mIndex.isCollapsed(sectionIndex) != collapsed) {
+            getCollapsibleIndex().setCollapsed(sectionIndex, collapsed);
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Collapses the section at the given index if it is expanded, or expands it if it is collapsed.
+     * @param sectionIndex Index of the section.
+     */
+    public void toggleSection(int sectionIndex) {
+        setSectionCollapsed(sectionIndex, !isSectionCollapsed(sectionIndex));
+    }
+
+    /**
+     * Collapses every section to its header, or expands every section, and notifies any observers.
+     * This is O(S) for S sections. This must be called on the UI thread.
+     * @param collapsed {@code true} to hide every section's children, {@code false} to show them.
+     */
+    public void setAllSectionsCollapsed(boolean collapsed) {
+        if (collapsed) {
+            // Sections hidden by a filter are collapsed too, so they stay collapsed once it is cleared
+            for (IndexableList<K, E> section : mSourceSnapshot.mSections) {
+                mCollapsedKeys.add(section.getKey());
+            }
+
+            for (IndexableList<K, E> section : mSnapshot.mSections) {
+                mCollapsedKeys.add(section.getKey());
+            }
+
+            getCollapsibleIndex().setAllCollapsed(true);
+        } else {
+            mCollapsedKeys.clear();
+            mIndex = mSnapshot.mIndex;
+        }
+
+        notifyDataSetChanged();
     }
 
     @Override
-    public int getSectionForPosition(int position) {
-        return mIndexer.getSectionForPosition(position);
+    public Filter getFilter() {
+        if (mFilter == null) {
+            mFilter = new SectionFilter();
+        }
+
+        return mFilter;
+    }
+
+    /**
+     * Filters the sections shown by this adapter by the given query on a worker thread, cancelling
+     * any filtering still in flight. When the query extends the previous one, only the previous matches
+     * are tested again. The result is published on the UI thread. This must be called on the UI thread.
+     * Sections that are paged, see {@link PagedIndexableList#isPaged(List)}, cannot be filtered.
+     * @param query Query to filter by, {@code null} or empty to show every section.
+     */
+    public void filter(CharSequence query) {
+        final int generation = mFilterGeneration.incrementAndGet();
+        final String queryString = query == null ? "" : query.toString();
+        final Snapshot<K, E> source = mSourceSnapshot;
+        Assert.assertTrue(PRECONDITION_PAGED_FILTER, queryString.length() == 0 || !source.hasPagedSections());
+
+        mQuery = queryString;
+        FILTER_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Snapshot<K, E> filtered = filterSnapshot(source, queryString, generation);
+                if (filtered != null) {
+                    mHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            publishFiltered(filtered, source, queryString, generation);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the query the sections shown by this adapter are filtered by.
+     * @return Current query, empty or {@code null} if the sections are not filtered.
+     */
+    public CharSequence getQuery() {
+        return mQuery;
+    }
+
+    /**
+     * Gets the {@link Snapshot} of sections currently shown by this adapter. While a filter is
+     * applied, this is the filtered snapshot.
+     * @return Current snapshot.
+     */
+    public Snapshot<K, E> getSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * Replaces the sections shown by this adapter with the given {@link Snapshot} and notifies any
+     * observers. Snapshots are meant to be built off the UI thread, this must be called on the UI thread.
+     * If a filter is applied, it is applied again to the new sections and the filtered result replaces
+     * the current one once ready; filtering still in flight for the previous sections is run again
+     * rather than published.
+     * @param snapshot Snapshot to show.
+     */
+    public void swapSnapshot(Snapshot<K, E> snapshot) {
+        Assert.assertTrue(PRECONDITION_NULL_SNAPSHOT, snapshot != null);
+
+        mSourceSnapshot = snapshot;
+        if (isFiltered()) {
+            filter(mQuery);
+        } else {
+            showSnapshot(snapshot);
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Replaces the sections shown by this adapter with the given {@link Snapshot}, like
+     * {@link #swapSnapshot(Snapshot)}, and maps the given position through the snapshot's {@link SectionDiff}
+     * so a list can stay scrolled to the same row. The snapshot must have been diffed against the sections
+     * currently shown, see {@link Snapshot#diffFrom(Snapshot)}; while a filter is applied positions cannot
+     * be mapped. Diffs cover every child, so positions are mapped as if every section were expanded, and a
+     * row that ends up in a collapsed section maps to that section's header. This must be called on the UI
+     * thread.
+     * @param snapshot Snapshot to show.
+     * @param anchorPosition Position the list is scrolled to, typically its first visible position.
+     * @return Position to scroll the list to, or -1 if the given position cannot be mapped.
+     */
+    public int swapSnapshot(Snapshot<K, E> snapshot, int anchorPosition) {
+        Assert.assertTrue(PRECONDITION_NULL_SNAPSHOT, snapshot != null);
+
+        SectionDiff diff = isFiltered() ? null : snapshot.getDiffFrom(mSourceSnapshot);
+        int expandedAnchorPosition = mIndex.getExpandedPositionForPosition(anchorPosition);
+        swapSnapshot(snapshot);
+
+        if (diff == null || expandedAnchorPosition < 0) {
+            return -1;
+        }
+
+        int expandedPosition = diff.getAnchorPosition(expandedAnchorPosition);
+        if (expandedPosition < 0) {
+            return -1;
+        }
+
+        int position = mIndex.getPositionForExpandedPosition(expandedPosition);
+        if (position < 0) {
+            // The row is hidden in a collapsed section, the snapshot's own index is always expanded
+            position = mIndex.getPositionForSection(snapshot.mIndex.getSectionForPosition(expandedPosition));
+        }
+
+        return position;
+    }
+
+    /**
+     * Appends the given element to the section with the given key and notifies any observers. If no
+     * section has the given key, a new section is created for it as if by {@link #addSection(IndexableList)}.
+     * The edit is published in a new {@link Snapshot} that shares the section's elements through a
+     * {@link PatchedIndexableList} rather than copying them, so sections being filtered or diffed are never
+     * changed, and read-only sections of any storage, such as those from
+     * {@link com.lillicoder.demo.sectionedlist.list.SortedSections} or
+     * {@link com.lillicoder.demo.sectionedlist.list.MappedSnapshot}, can be added to. The section index is
+     * updated in O(log S) for S sections and a prefix index, if any, only indexes the new element. Edits
+     * apply to the unfiltered sections; while a filter is applied, it is applied again to the new sections
+     * as by {@link #swapSnapshot(Snapshot)}.
+     * @param key Key of the section to add the element to.
+     * @param element Element to add.
+     */
+    public void insert(K key, E element) {
+        int sectionIndex = indexOfSection(key);
+        if (sectionIndex < 0) {
+            IndexableList<K, E> section = createSection(key);
+            section.add(element);
+
+            addSection(section);
+        } else {
+            int childPosition = mSourceSnapshot.mSections.get(sectionIndex).size();
+            swapResizedSnapshot(mSourceSnapshot.withInserted(sectionIndex, childPosition, element), sectionIndex);
+        }
+    }
+
+    /**
+     * Removes the first occurrence of the given element from the section with the given key and notifies
+     * any observers. The element is found by walking the section, so paged sections, see
+     * {@link PagedIndexableList#isPaged(List)}, must use {@link #removeAt(Comparable, int)} to remove a
+     * child by position instead. Otherwise this behaves like {@link #removeAt(Comparable, int)}.
+     * @param key Key of the section to remove the element from.
+     * @param element Element to remove.
+     * @return {@code true} if the element was removed, {@code false} otherwise.
+     */
+    public boolean remove(K key, E element) {
+        int sectionIndex = indexOfSection(key);
+        if (sectionIndex < 0) {
+            return false;
+        }
+
+        IndexableList<K, E> section = mSourceSnapshot.mSections.get(sectionIndex);
+        Assert.assertTrue(PRECONDITION_PAGED_REMOVE, !PagedIndexableList.isPaged(section));
+
+        int childPosition = section.indexOf(element);
+        if (childPosition < 0) {
+            return false;
+        }
+
+        removeAt(key, childPosition);
+
+        return true;
+    }
+
+    /**
+     * Removes the child at the given position of the section with the given key and notifies any observers.
+     * A section left empty by the removal is removed along with its header. The edit is published in a new
+     * {@link Snapshot} as by {@link #insert(Comparable, Object)}, without reading or copying the section's
+     * other elements.
+     * @param key Key of the section to remove the child from.
+     * @param childPosition Position of the child in the unfiltered section.
+     */
+    public void removeAt(K key, int childPosition) {
+        int sectionIndex = indexOfSection(key);
+        Assert.assertTrue(PRECONDITION_MISSING_SECTION, sectionIndex >= 0);
+
+        if (mSourceSnapshot.mSections.get(sectionIndex).size() == 1) {
+            removeSection(key);
+        } else {
+            swapResizedSnapshot(mSourceSnapshot.withRemoved(sectionIndex, childPosition), sectionIndex);
+        }
+    }
+
+    /**
+     * Adds the given {@link IndexableList} as a new section and notifies any observers. The section is
+     * placed before the first existing section with a greater key, so sorted sections stay sorted.
+     * Only the section index is rebuilt, in O(S) for S sections; a prefix index, if any, is merged
+     * with the section's m elements in O(n + m log m) for n children. A filter, if any, is applied again
+     * as by {@link #swapSnapshot(Snapshot)}.
+     * @param section Section to add.
+     */
+    public void addSection(IndexableList<K, E> section) {
+        Assert.assertTrue(PRECONDITION_NULL_SECTION, section != null);
+        Assert.assertTrue(PRECONDITION_DUPLICATE_SECTION, indexOfSection(section.getKey()) < 0);
+
+        List<IndexableList<K, E>> sections = mSourceSnapshot.mSections;
+        int sectionIndex = 0;
+        while (sectionIndex < sections.size() && sections.get(sectionIndex).compareTo(section) < 0) {
+            sectionIndex++;
+        }
+
+        swapSnapshot(mSourceSnapshot.withSectionAdded(sectionIndex, section));
+    }
+
+    /**
+     * Removes the section with the given key and notifies any observers. Only the section index is
+     * rebuilt, in O(S) for S sections; a prefix index, if any, drops the section's elements in O(n) for
+     * n children. A filter, if any, is applied again as by {@link #swapSnapshot(Snapshot)}.
+     * @param key Key of the section to remove.
+     * @return Removed section or {@code null} if no section has the given key.
+     */
+    public IndexableList<K, E> removeSection(K key) {
+        int sectionIndex = indexOfSection(key);
+        if (sectionIndex < 0) {
+            return null;
+        }
+
+        IndexableList<K, E> section = mSourceSnapshot.mSections.get(sectionIndex);
+        swapSnapshot(mSourceSnapshot.withoutSection(sectionIndex));
+
+        return section;
     }
 
     /**
-     * Converts the given {@link Map} of sections into a collection of {@link IndexableList}.
+     * Replaces the section at the given index with the given {@link IndexableList}, which must have the
+     * same key, and notifies any observers. The change is published as a new {@link Snapshot} that shares
+     * every other section, so the sections of a published snapshot are never changed in place while they
+     * may be filtered or diffed on a worker thread. The section index is copied and only this section's
+     * size is updated, in O(log S) for S sections, as is this adapter's own index while sections are
+     * collapsed; a prefix index, if any, is merged with the section's m elements in O(n + m log m) for n
+     * children rather than sorted again. A filter, if any, is applied again as by
+     * {@link #swapSnapshot(Snapshot)}.
+     * @param sectionIndex Index of the section to replace among the unfiltered sections.
+     * @param section New contents of the section.
+     */
+    public void setSection(int sectionIndex, IndexableList<K, E> section) {
+        Assert.assertTrue(PRECONDITION_NULL_SECTION, section != null);
+        Assert.assertTrue(PRECONDITION_MISMATCHED_SECTION,
+                          section.getKey().compareTo(mSourceSnapshot.mSections.get(sectionIndex).getKey()) == 0);
+
+        swapResizedSnapshot(mSourceSnapshot.withSection(sectionIndex, section), sectionIndex);
+    }
+
+    /**
+     * Determines if the sections shown by this adapter are filtered or about to be.
+     * @return {@code true} if a non-empty query is applied, {@code false} otherwise.
+     */
+    private boolean isFiltered() {
+        return mQuery != null && mQuery.length() > 0;
+    }
+
+    /**
+     * Shows the given {@link Snapshot} with this adapter's collapsed sections applied. While no section
+     * is collapsed the snapshot's own section index is used as is; otherwise it is copied first, so a
+     * snapshot is never collapsed itself and can be published again, such as by a loader. Called on the
+     * UI thread.
+     * @param snapshot Snapshot to show.
+     */
+    private void showSnapshot(Snapshot<K, E> snapshot) {
+        mSnapshot = snapshot;
+        mIndex = snapshot.mIndex;
+        if (mCollapsedKeys.isEmpty()) {
+            return;
+        }
+
+        List<IndexableList<K, E>> sections = snapshot.mSections;
+        for (int sectionIndex = 0; sectionIndex < sections.size(); sectionIndex++) {
+            if (mCollapsedKeys.contains(sections.get(sectionIndex).getKey())) {
+                getCollapsibleIndex().setCollapsed(sectionIndex, true);
+            }
+        }
+    }
+
+    /**
+     * Replaces the sections shown by this adapter with the given {@link Snapshot}, like
+     * {@link #swapSnapshot(Snapshot)}, when it only differs from the unfiltered snapshot in the size of the
+     * section at the given index. If this adapter has its own copy of the section index, for collapsed
+     * sections, that section's size is updated in O(log S) for S sections rather than collapsing every
+     * section of the new snapshot again.
+     * @param snapshot Snapshot to show.
+     * @param sectionIndex Index of the resized section.
+     */
+    private void swapResizedSnapshot(Snapshot<K, E> snapshot, int sectionIndex) {
+        SectionIndex index = mIndex;
+        boolean shared = index == mSnapshot.mIndex || index.getSections() != snapshot.mIndex.getSections();
+        if (shared || isFiltered() || mSnapshot != mSourceSnapshot) {
+            swapSnapshot(snapshot);
+            return;
+        }
+
+        index.setSectionSize(sectionIndex, snapshot.mIndex.getSectionSize(sectionIndex));
+        mSourceSnapshot = snapshot;
+        mSnapshot = snapshot;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Gets this adapter's own copy of the shown section index, copying the snapshot's index in O(S)
+     * for S sections if it is still shared. Only the index is copied, no section is read.
+     * @return Section index that can be collapsed.
+     */
+    private SectionIndex getCollapsibleIndex() {
+        if (mIndex == mSnapshot.mIndex) {
+            mIndex = new SectionIndex(mSnapshot.mIndex);
+        }
+
+        return mIndex;
+    }
+
+    /**
+     * Filters the given source {@link Snapshot} by the given query. Called on a worker thread.
+     * @param source Unfiltered snapshot.
+     * @param query Query to filter by.
+     * @param generation Generation of this filter request, filtering stops once a newer one starts.
+     * @return Filtered snapshot, the source snapshot for an empty query, or {@code null} if canceled.
+     */
+    private Snapshot<K, E> filterSnapshot(Snapshot<K, E> source, String query, final int generation) {
+        if (query.length() == 0) {
+            return source;
+        }
+
+        NarrowingFilter.CancellationSignal signal = new NarrowingFilter.CancellationSignal() {
+            @Override
+            public boolean isCanceled() {
+                return mFilterGeneration.get() != generation;
+            }
+        };
+
+        List<IndexableList<K, E>> sections = source.getNarrowingFilter(getMatcher()).filter(query, signal);
+        if (sections == null) {
+            return null;
+        }
+
+        // The section index and any prefix index are built here, off the UI thread
+        return new Snapshot<K, E>(sections, source.mPrefixIndex != null);
+    }
+
+    /**
+     * Shows the given filtered {@link Snapshot} unless a newer filter request has started since it
+     * was requested. If the sections were edited or swapped while filtering, the query is applied
+     * again to the new sections instead. Called on the UI thread.
+     * @param filtered Filtered snapshot.
+     * @param source Unfiltered snapshot the filtered snapshot was filtered from.
+     * @param query Query the snapshot was filtered by.
+     * @param generation Generation of the filter request.
+     */
+    private void publishFiltered(Snapshot<K, E> filtered, Snapshot<K, E> source, String query, int generation) {
+        if (mFilterGeneration.get() != generation) {
+            return;
+        }
+
+        if (source != mSourceSnapshot) {
+            filter(query);
+            return;
+        }
+
+        mQuery = query;
+        showSnapshot(filtered);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Gets the index of the section with the given key among the unfiltered sections.
+     * @param key Key of the section to find.
+     * @return Index of the section or -1 if no section has the given key.
+     */
+    private int indexOfSection(K key) {
+        List<IndexableList<K, E>> sections = mSourceSnapshot.mSections;
+        for (int index = 0; index < sections.size(); index++) {
+            if (key.compareTo(sections.get(index).getKey()) == 0) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Converts the given {@link Map} of sections into a collection of {@link IndexableList}. Items are
+     * copied, so later changes to the map's collections do not reach the published snapshot.
      * @param sections Sections map to convert.
      * @return Collection of indexable lists converted from the given map.
      */
-    private List<IndexableList<K, E>> convertToList(Map <K, ? extends Collection<E>> sections) {
-        Set<K> keys = sections.keySet();
-        List<IndexableList<K, E>> sectionsList = new ArrayList<IndexableList<K, E>>(keys.size());
+    private static <K extends Comparable<K>, E> List<IndexableList<K, E>> convertToList(
+        Map <K, ? extends Collection<E>> sections) {
+        List<IndexableList<K, E>> sectionsList = new ArrayList<IndexableList<K, E>>(sections.size());
 
-        for (K sectionKey : keys) {
-            Collection<E> sectionItems = sections.get(sectionKey);
+        for (Map.Entry<K, ? extends Collection<E>> entry : sections.entrySet()) {
+            K sectionKey = entry.getKey();
+            Collection<E> sectionItems = entry.getValue();
 
             IndexableList<K, E> section =
                 new IndexableList<K, E>(sectionKey, sectionKey.toString(), sectionItems.size());
@@ -154,197 +811,423 @@ public abstract class IndexableListAdapter<K extends Comparable<K>, E>
     }
 
     /**
-     * Flattens the given collection of {@link IndexableList} into a collection of {@link Wrapper}.
-     * @param sections Sections to flatten.
-     * @return Collection of wrappers for each section and section item in the given collection.
+     * <p>
+     *     {@link Filter} that filters this adapter's sections on the framework's filter thread.
+     * </p>
+     *
+     * <p>
+     *     The framework only runs the latest pending query, and each query started here cancels any
+     *     filtering started with {@link IndexableListAdapter#filter(CharSequence)}.
+     * </p>
      */
-    private List<Wrapper<K, E>> flatten(List<IndexableList<K, E>> sections) {
-        List<Wrapper<K, E>> items = new ArrayList<Wrapper<K, E>>();
+    private class SectionFilter extends Filter {
+
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            int generation = mFilterGeneration.incrementAndGet();
+            String query = constraint == null ? "" : constraint.toString();
 
-        for (IndexableList<K, E> section : sections) {
-            Wrapper<K, E> header = new Wrapper<K, E>(section);
-            items.add(header);
+            Snapshot<K, E> source = mSourceSnapshot;
+            Snapshot<K, E> filtered = filterSnapshot(source, query, generation);
+
+            FilterResults results = new FilterResults();
+            results.values = new FilteredSnapshot<K, E>(filtered, source, query, generation);
+            results.count = filtered == null ? 0 : filtered.getCount();
+
+            return results;
+        }
 
-            for (E element : section) {
-                Wrapper<K, E> item = new Wrapper<K, E>(element);
-                items.add(item);
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            FilteredSnapshot<K, E> result = (FilteredSnapshot<K, E>) results.values;
+            if (result.mSnapshot != null) {
+                publishFiltered(result.mSnapshot, result.mSource, result.mQuery, result.mGeneration);
             }
         }
 
-        return items;
     }
 
     /**
-     * General purpose {@link SectionIndexer} for use with a {@link IndexableListAdapter}.
-     * @param <E>
+     * Result of one filter request, handed from the filter thread to the UI thread.
+     * @param <K> Type of object each indexable list is indexable by.
+     * @param <E> Type of object each indexable list contains.
      */
-    private static class Indexer<K extends Comparable<K>, E> implements SectionIndexer {
+    private static class FilteredSnapshot<K extends Comparable<K>, E> {
 
-        private static final String PRECONDITION_NULL_SECTIONS =
-            "Cannot make a section list adapter indexer with null sections.";
+        private final Snapshot<K, E> mSnapshot;
+        private final Snapshot<K, E> mSource;
+        private final String mQuery;
+        private final int mGeneration;
 
-        private Object[] mSections;
-        private int[] mSectionCounts;
-        private int[] mPositionMarkers;
+        public FilteredSnapshot(Snapshot<K, E> snapshot, Snapshot<K, E> source, String query, int generation) {
+            mSnapshot = snapshot;
+            mSource = source;
+            mQuery = query;
+            mGeneration = generation;
+        }
+
+    }
+
+    /**
+     * <p>
+     *     Sections and section index for a {@link IndexableListAdapter}.
+     * </p>
+     *
+     * <p>
+     *     Building a snapshot computes section sizes, start positions, labels and key hashes, so it can be done on a
+     *     worker thread and then handed to {@link IndexableListAdapter#swapSnapshot(Snapshot)} on the UI
+     *     thread. Once published, a snapshot and its sections are never changed: filtering and diffing read
+     *     them from worker threads, so edits such as {@link IndexableListAdapter#insert(Comparable, Object)}
+     *     build a new snapshot instead. Sections handed to a snapshot must not be changed afterwards.
+     * </p>
+     * @param <K> Type of object each indexable list is indexable by.
+     * @param <E> Type of object each indexable list contains.
+     */
+    public static class Snapshot<K extends Comparable<K>, E> {
+
+        private final List<IndexableList<K, E>> mSections;
+        private final SectionIndex mIndex;
+        private final int[] mKeyHashes;
+        private PrefixIndex mPrefixIndex;
+        private NarrowingFilter<K, E> mNarrowingFilter;
+        private SectionDiff mDiff;
+        private Snapshot<K, E> mDiffBase;
 
         /**
-         * Instantiates this indexer from the given collection of {@link IndexableList}.
-         * @param sections Collection of indexable lists.
+         * Instantiates this snapshot with the given {@link List} of {@link IndexableList}.
+         * @param sections List of indexable lists, where each indexable list represents a section.
          */
-        public Indexer(List<IndexableList<K, E>> sections) {
-            Assert.assertTrue(PRECONDITION_NULL_SECTIONS, sections != null);
+        public Snapshot(List<IndexableList<K, E>> sections) {
+            this(sections, false);
+        }
 
-            // We can simply walk over the collection of lists
-            // and generate the section and position arrays in one pass
-            mSections = new Object[sections.size()];
-            mSectionCounts = new int[mSections.length];
-            mPositionMarkers = new int[mSections.length];
-
-            int position = 0;
-            for (int index = 0; index < sections.size(); index++) {
-                // Get section value for position
-                IndexableList<K, E> section = sections.get(index);
-                mSections[index] = section.getKey();
-
-                // Get section size for position
-                int sectionCount = section.size();
-                mSectionCounts[index] = sectionCount;
-
-                // Mark position for section and increase the counter
-                mPositionMarkers[index] = position;
-                position += sectionCount;
+        /**
+         * Instantiates this snapshot with the given {@link List} of {@link IndexableList}, optionally
+         * building a {@link PrefixIndex} of its elements for {@link IndexableListAdapter#getPositionsForPrefix(CharSequence)}.
+         * @param sections List of indexable lists, where each indexable list represents a section.
+         * @param prefixIndexed {@code true} to build a prefix index, {@code false} otherwise.
+         */
+        public Snapshot(List<IndexableList<K, E>> sections, boolean prefixIndexed) {
+            this(copySections(sections), (PrefixIndex) null);
+
+            if (prefixIndexed) {
+                mPrefixIndex = PrefixIndex.forSections(mSections, true);
             }
+        }
 
+        /**
+         * Instantiates this snapshot with the given {@link List} of {@link IndexableList}, which it takes
+         * ownership of, and the given {@link PrefixIndex} of its elements.
+         * @param sections List of indexable lists, where each indexable list represents a section.
+         * @param prefixIndex Prefix index of the sections, or {@code null} for none.
+         */
+        private Snapshot(ArrayList<IndexableList<K, E>> sections, PrefixIndex prefixIndex) {
+            this(sections, SectionIndex.forSections(sections, true), hashKeys(sections), prefixIndex);
         }
 
         /**
-         * Instantiates this indexer from the given {@link Map} of sections.
-         * @param sections Map of sections.
+         * Instantiates this snapshot with the given {@link List} of {@link IndexableList}, which it takes
+         * ownership of, along with its section index, key hashes and {@link PrefixIndex}, none of which
+         * are computed again.
+         * @param sections List of indexable lists, where each indexable list represents a section.
+         * @param index Section index of the sections.
+         * @param keyHashes Hash code of each section's key.
+         * @param prefixIndex Prefix index of the sections, or {@code null} for none.
          */
-        public Indexer(Map<K, ? extends Collection<E>> sections) {
-            Assert.assertTrue(PRECONDITION_NULL_SECTIONS, sections != null);
+        private Snapshot(ArrayList<IndexableList<K, E>> sections,
+                         SectionIndex index,
+                         int[] keyHashes,
+                         PrefixIndex prefixIndex) {
+            mSections = sections;
+            mIndex = index;
+            mKeyHashes = keyHashes;
+            mPrefixIndex = prefixIndex;
+        }
 
-            // Sections are the keys in the map
-            Set<K> keys = sections.keySet();
-            mSections = new Object[keys.size()];
-            keys.toArray(mSections);
-
-            // Section counts are the number of items per key and position marker
-            // is starting index of the section in the overall collection of items
-            mSectionCounts = new int[mSections.length];
-            mPositionMarkers = new int[mSections.length];
-
-            int position = 0;
-            for (int index = 0; index < mSections.length; index++) {
-                // Get summaries for section
-                Object key = mSections[index];
-                Collection<E> summaries = sections.get(key);
-
-                // Section count is size of the summaries list + 1 for the section header
-                int sectionCount = summaries.size() + 1;
-                mSectionCounts[index] = sectionCount;
-
-                // Set the position marker and increase the value by the number
-                // of items in this section for the next iteration
-                mPositionMarkers[index] = position;
-                position += sectionCount;
+        /**
+         * Hashes the key of each of the given sections. Section key hashes are cached so stable IDs never
+         * touch the keys themselves.
+         * @param sections List of sections.
+         * @return Hash code of each section's key.
+         */
+        private static int[] hashKeys(List<? extends IndexableList<?, ?>> sections) {
+            int[] keyHashes = new int[sections.size()];
+            for (int index = 0; index < keyHashes.length; index++) {
+                keyHashes[index] = sections.get(index).getKey().hashCode();
             }
+
+            return keyHashes;
         }
 
-        @Override
-        public Object[] getSections() {
-            return mSections;
+        /**
+         * Copies the given list of sections so a snapshot isn't affected by later changes to it.
+         * @param sections List of sections to copy.
+         * @return Copy of the list.
+         */
+        private static <K extends Comparable<K>, E> ArrayList<IndexableList<K, E>> copySections(
+            List<IndexableList<K, E>> sections) {
+            Assert.assertTrue(PRECONDITION_NULL_SECTIONS, sections != null);
+
+            return new ArrayList<IndexableList<K, E>>(sections);
         }
 
-        @Override
-        public int getPositionForSection(int section) {
-            // If section is out of range, return -1 to indicate no position
-            if (section < 0 || section >= mSections.length) {
-                return -1;
-            }
+        /**
+         * Creates a snapshot with no sections.
+         * @return Empty snapshot.
+         */
+        public static <K extends Comparable<K>, E> Snapshot<K, E> empty() {
+            return new Snapshot<K, E>(Collections.<IndexableList<K, E>>emptyList());
+        }
+
+        /**
+         * Creates a snapshot from the given map of {@link Collection}. Each key represents
+         * a section and each collection mapped to a key represents the items for that section.
+         * @param sections Map of sections.
+         * @return Snapshot of the given sections.
+         */
+        public static <K extends Comparable<K>, E> Snapshot<K, E> fromMap(Map<K, ? extends Collection<E>> sections) {
+            Assert.assertTrue(PRECONDITION_NULL_MAP, sections != null);
 
-            return mPositionMarkers[section];
+            return new Snapshot<K, E>(convertToList(sections));
         }
 
-        @Override
-        public int getSectionForPosition(int position) {
-            int lastSectionIndex = mSections.length - 1;
-            int lastSectionStart = mPositionMarkers[lastSectionIndex];
-            int lastSectionEnd = mSectionCounts[lastSectionIndex] - 1;
-            int lastItemPosition = lastSectionStart + lastSectionEnd;
-
-            // If position is out of range, return -1 to indicate no section
-            if (position < 0 || position > lastItemPosition) {
-                return -1;
+        /**
+         * Gets the sections in this snapshot.
+         * @return Unmodifiable list of sections.
+         */
+        public List<IndexableList<K, E>> getSections() {
+            return Collections.unmodifiableList(mSections);
+        }
+
+        /**
+         * Gets the number of adapter positions in this snapshot, including section headers.
+         * @return Number of positions.
+         */
+        public int getCount() {
+            return mIndex.getPositionCount();
+        }
+
+        /**
+         * Determines if any section of this snapshot is paged, see {@link PagedIndexableList#isPaged(List)}.
+         * @return {@code true} if a section is paged, {@code false} otherwise.
+         */
+        boolean hasPagedSections() {
+            for (IndexableList<K, E> section : mSections) {
+                if (PagedIndexableList.isPaged(section)) {
+                    return true;
+                }
             }
 
-            int index = Arrays.binarySearch(mPositionMarkers, position);
+            return false;
+        }
 
-            /*
-             * Comment below taken from the framework source:
-             *
-             * Consider this example: section positions are 0, 3, 5; the supplied
-             * position is 4. The section corresponding to position 4 starts at
-             * position 3, so the expected return value is 1. Binary search will not
-             * find 4 in the array and thus will return -insertPosition-1, i.e. -3.
-             * To get from that number to the expected value of 1 we need to negate
-             * and subtract 2.
-             */
-            return index >= 0 ? index : -index - 2;
+        /**
+         * Calculates the differences from the given previous snapshot to this one, for
+         * {@link IndexableListAdapter#swapSnapshot(Snapshot, int)}. This walks every element, so call it on
+         * a worker thread before publishing this snapshot, while the previous snapshot is not being changed.
+         * @param previous Snapshot this one replaces.
+         */
+        public void diffFrom(Snapshot<K, E> previous) {
+            Assert.assertTrue(PRECONDITION_NULL_SNAPSHOT, previous != null);
+
+            mDiff = SectionDiff.calculate(previous.mSections, mSections, true);
+            mDiffBase = previous;
         }
 
-    }
+        /**
+         * Gets the differences from the previous snapshot to this one.
+         * @return Differences calculated by {@link #diffFrom(Snapshot)}, or {@code null} if not diffed.
+         */
+        public SectionDiff getDiff() {
+            return mDiff;
+        }
 
-    /**
-     * Wrapper that is used to create a consistent model for {@link IndexableListAdapter}.
-     * @param <K> Type of sort key for wrapped sections.
-     * @param <E> Type of item for wrapped section items.
-     */
-    private static class Wrapper<K extends Comparable<K>, E> {
+        /**
+         * Gets the section index of this snapshot, with a header position at the start of each section.
+         * @return Section index.
+         */
+        SectionIndex getIndex() {
+            return mIndex;
+        }
+
+        /**
+         * Gets the cached hash code of the key of the given section.
+         * @param section Index of the section.
+         * @return Hash code of the section key.
+         */
+        int getKeyHash(int section) {
+            return mKeyHashes[section];
+        }
+
+        /**
+         * Gets the differences from the given snapshot to this one, if this snapshot was diffed against
+         * it. Diffs cover every child, so they are in positions as if every section were expanded, whatever
+         * an adapter has collapsed. The reference to the previous snapshot is dropped either way, so
+         * snapshots are not chained together.
+         * @param previous Snapshot this one replaces.
+         * @return Differences from the given snapshot, or {@code null} if there are none to use.
+         */
+        SectionDiff getDiffFrom(Snapshot<K, E> previous) {
+            boolean current = mDiff != null
+                              && mDiffBase == previous
+                              && mDiff.getOldCount() == previous.mIndex.getExpandedPositionCount();
+            mDiffBase = null;
+
+            return current ? mDiff : null;
+        }
+
+        /**
+         * Creates a snapshot like this one with the section at the given index replaced by a section with
+         * the same key. Every other section is shared, not copied, and this snapshot is left as is. The
+         * section index is copied and only the replaced section's size is updated, in O(log S) for S
+         * sections, and key hashes are shared. A prefix index, if any, is updated with only the replaced
+         * section's elements, see {@link PrefixIndex#replace(int, int, int, List, int)}.
+         * @param sectionIndex Index of the section to replace.
+         * @param section Replacement section.
+         * @return New snapshot.
+         */
+        Snapshot<K, E> withSection(int sectionIndex, IndexableList<K, E> section) {
+            PrefixIndex prefixIndex = null;
+            if (mPrefixIndex != null) {
+                int position = mIndex.getExpandedPositionForSection(sectionIndex) + 1;
+                prefixIndex = mPrefixIndex.replace(position,
+                                                   mSections.get(sectionIndex).size(),
+                                                   section.size(),
+                                                   section,
+                                                   position);
+            }
+
+            return withResizedSection(sectionIndex, section, prefixIndex);
+        }
+
+        /**
+         * Creates a snapshot like this one with the given element inserted into the section at the given
+         * index. The section is patched, not copied, see {@link PatchedIndexableList}, so none of its
+         * elements are read. The section index is updated as by {@link #withSection(int, IndexableList)},
+         * and a prefix index, if any, only indexes the new element, see {@link PrefixIndex#insert(int, Object)}.
+         * @param sectionIndex Index of the section.
+         * @param childPosition Position in the section to insert the element at.
+         * @param element Element to insert.
+         * @return New snapshot.
+         */
+        Snapshot<K, E> withInserted(int sectionIndex, int childPosition, E element) {
+            IndexableList<K, E> section =
+                PatchedIndexableList.withInserted(mSections.get(sectionIndex), childPosition, element);
 
-        private static final String EXCEPTION_NO_WRAPPED_VALUE =
-            "No value wrapped, this item wrapper cannot be used.";
+            PrefixIndex prefixIndex = null;
+            if (mPrefixIndex != null) {
+                int position = mIndex.getExpandedPositionForSection(sectionIndex) + 1 + childPosition;
+                prefixIndex = mPrefixIndex.insert(position, element);
+            }
 
-        private IndexableList<K, E> mSection;
-        private E mElement;
+            return withResizedSection(sectionIndex, section, prefixIndex);
+        }
 
         /**
-         * Instantiates this wrapper with the given section.
-         * @param section Section to wrap.
+         * Creates a snapshot like this one without the child at the given position of the section at the
+         * given index. The section is patched, not copied, as by {@link #withInserted(int, int, Object)},
+         * and a prefix index, if any, only drops the removed element, see {@link PrefixIndex#remove(int)}.
+         * @param sectionIndex Index of the section.
+         * @param childPosition Position of the child in the section.
+         * @return New snapshot.
          */
-        public Wrapper(IndexableList<K, E> section) {
-            mSection = section;
+        Snapshot<K, E> withRemoved(int sectionIndex, int childPosition) {
+            IndexableList<K, E> section = PatchedIndexableList.withRemoved(mSections.get(sectionIndex), childPosition);
+
+            PrefixIndex prefixIndex = null;
+            if (mPrefixIndex != null) {
+                prefixIndex = mPrefixIndex.remove(mIndex.getExpandedPositionForSection(sectionIndex) + 1 + childPosition);
+            }
+
+            return withResizedSection(sectionIndex, section, prefixIndex);
         }
 
         /**
-         * Instantiates this wrapper with the given element.
-         * @param element Element to wrap.
+         * Creates a snapshot like this one with the section at the given index replaced by a section with
+         * the same key and the given, already updated, {@link PrefixIndex}. The section index is copied and
+         * only the replaced section's size is updated, in O(log S) for S sections, and key hashes are shared.
+         * @param sectionIndex Index of the section to replace.
+         * @param section Replacement section.
+         * @param prefixIndex Prefix index of the new sections, or {@code null} for none.
+         * @return New snapshot.
          */
-        public Wrapper(E element) {
-            mElement = element;
+        private Snapshot<K, E> withResizedSection(int sectionIndex,
+                                                  IndexableList<K, E> section,
+                                                  PrefixIndex prefixIndex) {
+            ArrayList<IndexableList<K, E>> sections = new ArrayList<IndexableList<K, E>>(mSections);
+            IndexableList<K, E> previous = sections.set(sectionIndex, section);
+
+            if (!section.getLabel().equals(previous.getLabel())) {
+                // Section objects are labels, shared between copies of an index, so a new label needs a new index
+                return new Snapshot<K, E>(sections, SectionIndex.forSections(sections, true), mKeyHashes, prefixIndex);
+            }
+
+            SectionIndex index = new SectionIndex(mIndex);
+            index.setSectionSize(sectionIndex, section.size());
+
+            return new Snapshot<K, E>(sections, index, mKeyHashes, prefixIndex);
         }
 
         /**
-         * Gets the wrapped value for this wrapper.
-         * @return Wrapper value.
+         * Creates a snapshot like this one with the given section inserted at the given index. A prefix
+         * index, if any, is updated with only the new section's elements.
+         * @param sectionIndex Index to insert the section at.
+         * @param section Section to insert.
+         * @return New snapshot.
          */
-        public Object getValue() {
-            if (mElement != null) {
-                return mElement;
-            } else if (mSection != null) {
-                return mSection;
-            } else {
-                throw new IllegalStateException(EXCEPTION_NO_WRAPPED_VALUE);
+        Snapshot<K, E> withSectionAdded(int sectionIndex, IndexableList<K, E> section) {
+            ArrayList<IndexableList<K, E>> sections = new ArrayList<IndexableList<K, E>>(mSections);
+            sections.add(sectionIndex, section);
+
+            PrefixIndex prefixIndex = null;
+            if (mPrefixIndex != null) {
+                // Sections are added before an existing section or at the end, after every position
+                int position = sectionIndex < mSections.size()
+                               ? mIndex.getExpandedPositionForSection(sectionIndex)
+                               : mIndex.getExpandedPositionCount();
+                prefixIndex = mPrefixIndex.replace(position, 0, section.size() + 1, section, position + 1);
             }
+
+            return new Snapshot<K, E>(sections, prefixIndex);
+        }
+
+        /**
+         * Creates a snapshot like this one without the section at the given index. A prefix index, if
+         * any, is updated by dropping only the removed section's elements.
+         * @param sectionIndex Index of the section to remove.
+         * @return New snapshot.
+         */
+        Snapshot<K, E> withoutSection(int sectionIndex) {
+            ArrayList<IndexableList<K, E>> sections = new ArrayList<IndexableList<K, E>>(mSections);
+            IndexableList<K, E> section = sections.remove(sectionIndex);
+
+            PrefixIndex prefixIndex = null;
+            if (mPrefixIndex != null) {
+                int position = mIndex.getExpandedPositionForSection(sectionIndex);
+                prefixIndex = mPrefixIndex.replace(position,
+                                                   section.size() + 1,
+                                                   0,
+                                                   Collections.emptyList(),
+                                                   position);
+            }
+
+            return new Snapshot<K, E>(sections, prefixIndex);
         }
 
         /**
-         * Determines if this wrapper represents a section.
-         * @return {@code true} if this wrapper represents a section,
-         *         {@code false} otherwise.
+         * Gets the {@link NarrowingFilter} for the sections of this snapshot, creating it on first use.
+         * @param matcher Matcher to create the filter with, or {@code null} for the default.
+         * @return Narrowing filter for this snapshot.
          */
-        public boolean isSection() {
-            return mSection != null;
+        private synchronized NarrowingFilter<K, E> getNarrowingFilter(NarrowingFilter.Matcher<? super E> matcher) {
+            if (mNarrowingFilter == null) {
+                mNarrowingFilter = matcher == null
+                                   ? new NarrowingFilter<K, E>(mSections)
+                                   : new NarrowingFilter<K, E>(mSections, matcher);
+            }
+
+            return mNarrowingFilter;
         }
 
     }
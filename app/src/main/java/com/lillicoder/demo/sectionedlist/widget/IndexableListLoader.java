@@ -0,0 +1,115 @@
+package com.lillicoder.demo.sectionedlist.widget;
+
+import android.content.Context;
+import android.support.v4.content.AsyncTaskLoader;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+
+import java.util.List;
+
+/**
+ * <p>
+ *     {@link AsyncTaskLoader} that builds a {@link IndexableListAdapter.Snapshot} on a worker thread.
+ * </p>
+ *
+ * <p>
+ *     Subclasses load their sections in {@link #loadSections()}. The section index is built
+ *     alongside them, so the UI thread only has to call
+ *     {@link IndexableListAdapter#swapSnapshot(IndexableListAdapter.Snapshot)} with the result.
+ * </p>
+ *
+ * <p>
+ *     Loaders that refresh can also diff each snapshot against the last one they delivered, see
+ *     {@link #isDiffed()}, so the UI thread can keep the list scrolled to the same row with
+ *     {@link IndexableListAdapter#swapSnapshot(IndexableListAdapter.Snapshot, int)}.
+ * </p>
+ * @param <K> Type of object each indexable list is indexable by.
+ * @param <E> Type of object each indexable list contains.
+ */
+public abstract class IndexableListLoader<K extends Comparable<K>, E>
+    extends AsyncTaskLoader<IndexableListAdapter.Snapshot<K, E>> {
+
+    private volatile IndexableListAdapter.Snapshot<K, E> mSnapshot;
+
+    /**
+     * Instantiates this loader with the given {@link Context}.
+     * @param context Context for this loader.
+     */
+    public IndexableListLoader(Context context) {
+        super(context);
+    }
+
+    /**
+     * Loads the sections for this loader. Called on a worker thread.
+     * @return List of indexable lists, where each indexable list represents a section.
+     */
+    protected abstract List<IndexableList<K, E>> loadSections();
+
+    /**
+     * Determines if snapshots from this loader should include a prefix index, built on the worker
+     * thread along with the section index. See {@link IndexableListAdapter#getPositionsForPrefix(CharSequence)}.
+     * @return {@code true} to build a prefix index, {@code false} by default.
+     */
+    protected boolean isPrefixIndexed() {
+        return false;
+    }
+
+    /**
+     * Determines if snapshots from this loader should be diffed against the last snapshot this loader
+     * delivered, on the worker thread. See {@link IndexableListAdapter.Snapshot#diffFrom(IndexableListAdapter.Snapshot)}.
+     * @return {@code true} to diff snapshots, {@code false} by default.
+     */
+    protected boolean isDiffed() {
+        return false;
+    }
+
+    @Override
+    public IndexableListAdapter.Snapshot<K, E> loadInBackground() {
+        IndexableListAdapter.Snapshot<K, E> snapshot =
+            new IndexableListAdapter.Snapshot<K, E>(loadSections(), isPrefixIndexed());
+
+        IndexableListAdapter.Snapshot<K, E> previous = mSnapshot;
+        if (previous != null && isDiffed()) {
+            snapshot.diffFrom(previous);
+        }
+
+        return snapshot;
+    }
+
+    @Override
+    public void deliverResult(IndexableListAdapter.Snapshot<K, E> snapshot) {
+        if (isReset()) {
+            return;
+        }
+
+        mSnapshot = snapshot;
+        if (isStarted()) {
+            super.deliverResult(snapshot);
+        }
+    }
+
+    @Override
+    protected void onStartLoading() {
+        // Deliver any snapshot we already have, then reload if it is missing or stale
+        if (mSnapshot != null) {
+            deliverResult(mSnapshot);
+        }
+
+        if (takeContentChanged() || mSnapshot == null) {
+            forceLoad();
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        onStopLoading();
+
+        mSnapshot = null;
+    }
+
+}
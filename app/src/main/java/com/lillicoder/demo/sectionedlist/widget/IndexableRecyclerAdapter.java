@@ -0,0 +1,385 @@
+package com.lillicoder.demo.sectionedlist.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.v7.widget.RecyclerView;
+import android.widget.SectionIndexer;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.SectionDiff;
+import com.lillicoder.demo.sectionedlist.list.SectionIndex;
+import junit.framework.Assert;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ *     {@link RecyclerView.Adapter} implementation that can support an
+ *     arbitrary collection of {@link IndexableList}.
+ * </p>
+ *
+ * <p>
+ *     This adapter shows the same {@link IndexableListAdapter.Snapshot} of sections as
+ *     {@link IndexableListAdapter}: a header row at the start of each section followed by its children.
+ *     Subclasses create view holders in {@link #onCreateViewHolder(android.view.ViewGroup, int)} by view
+ *     type and bind them in {@link #onBindHeaderViewHolder(RecyclerView.ViewHolder, IndexableList)} and
+ *     {@link #onBindChildViewHolder(RecyclerView.ViewHolder, IndexableList, int)}.
+ * </p>
+ *
+ * <p>
+ *     New sections are published with {@link #submitSnapshot(IndexableListAdapter.Snapshot)} or
+ *     {@link #submitSections(List)}. The new sections are diffed against the shown ones on a worker thread,
+ *     and the result is applied on the UI thread as item range inserts, removes and moves, so the
+ *     {@link RecyclerView} only rebinds and animates the rows that changed. Shown sections are never
+ *     changed in place; {@link #setSection(int, IndexableList)} publishes a new snapshot instead, so the
+ *     sections a worker thread is diffing stay as they were.
+ * </p>
+ * @param <K> Type of object each indexable list is indexable by.
+ * @param <E> Type of object each indexable list contains.
+ * @param <VH> Type of view holder.
+ */
+public abstract class IndexableRecyclerAdapter<K extends Comparable<K>, E, VH extends RecyclerView.ViewHolder>
+    extends RecyclerView.Adapter<VH>
+    implements SectionIndexer {
+
+    /**
+     * View type of section header rows.
+     */
+    public static final int VIEW_TYPE_HEADER = 0;
+
+    /**
+     * Default view type of child rows.
+     */
+    public static final int VIEW_TYPE_CHILD = 1;
+
+    /**
+     * First view type available to subclasses for their own child rows.
+     */
+    public static final int VIEW_TYPE_FIRST_EXTRA = 2;
+
+    private static final String PRECONDITION_MISMATCHED_SECTION =
+        "Cannot replace a section with a section that has a different key.";
+    private static final String PRECONDITION_NULL_SECTION =
+        "Cannot use a null section with a section recycler adapter.";
+    private static final String PRECONDITION_NULL_SECTIONS =
+        "Cannot submit a null collection of sections to a section recycler adapter.";
+    private static final String PRECONDITION_NULL_SNAPSHOT =
+        "Cannot use a null snapshot of sections with a section recycler adapter.";
+
+    // Diffs with more updates than this are applied as one data set change, which is cheaper to lay out
+    private static final int MAX_ITEM_UPDATES = 1000;
+
+    // Diffing runs on one shared low priority thread, in order of submission
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "IndexableRecyclerAdapter-Diff");
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    });
+
+    private IndexableListAdapter.Snapshot<K, E> mSnapshot;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger mSubmitGeneration = new AtomicInteger();
+
+    /**
+     * Instantiates this adapter with no sections.
+     */
+    public IndexableRecyclerAdapter() {
+        this(IndexableListAdapter.Snapshot.<K, E>empty());
+    }
+
+    /**
+     * Instantiates this adapter with the given {@link IndexableListAdapter.Snapshot}.
+     * @param snapshot Snapshot of sections for this adapter.
+     */
+    public IndexableRecyclerAdapter(IndexableListAdapter.Snapshot<K, E> snapshot) {
+        Assert.assertTrue(PRECONDITION_NULL_SNAPSHOT, snapshot != null);
+
+        mSnapshot = snapshot;
+    }
+
+    /**
+     * Binds the given view holder to the header of the given {@link IndexableList}.
+     * @param holder View holder created for {@link #VIEW_TYPE_HEADER}.
+     * @param section Sortable list containing all elements for a section.
+     */
+    protected abstract void onBindHeaderViewHolder(VH holder, IndexableList<K, E> section);
+
+    /**
+     * Binds the given view holder to the child at the given position in the given {@link IndexableList}.
+     * @param holder View holder created for the child's view type.
+     * @param section Sortable list containing the child.
+     * @param childPosition Position of the child in the given section.
+     */
+    protected abstract void onBindChildViewHolder(VH holder, IndexableList<K, E> section, int childPosition);
+
+    /**
+     * Gets the view type of the child at the given position in the given {@link IndexableList}.
+     * Subclasses with more than one kind of child row return their own types here, starting
+     * from {@link #VIEW_TYPE_FIRST_EXTRA}.
+     * @param section Sortable list containing the child.
+     * @param childPosition Position of the child in the given section.
+     * @return View type of the child, {@link #VIEW_TYPE_CHILD} by default.
+     */
+    protected int getChildViewType(IndexableList<K, E> section, int childPosition) {
+        return VIEW_TYPE_CHILD;
+    }
+
+    /**
+     * Gets the identity of the given element within its section, used to derive item IDs. By default
+     * this is the element's hash code, which equal or colliding elements share, so this adapter does not
+     * report stable IDs by default. Subclasses that override this to return an identity that is unique
+     * within the element's section, such as a database row ID, should also call
+     * {@link #setHasStableIds(boolean)} with {@code true} from their constructor.
+     * @param element Element to identify.
+     * @return Identity of the element.
+     */
+    protected long getElementId(E element) {
+        return element.hashCode();
+    }
+
+    @Override
+    public int getItemCount() {
+        return mSnapshot.getCount();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        IndexableListAdapter.Snapshot<K, E> snapshot = mSnapshot;
+        int sectionIndex = snapshot.getIndex().getSectionForPosition(position);
+        int keyHash = snapshot.getKeyHash(sectionIndex);
+
+        int offset = position - snapshot.getIndex().getPositionForSection(sectionIndex);
+        if (offset == 0) {
+            return StableIds.forHeader(keyHash);
+        } else {
+            IndexableList<K, E> section = snapshot.getSections().get(sectionIndex);
+            return StableIds.forChild(keyHash, getElementId(section.get(offset - 1)));
+        }
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        IndexableListAdapter.Snapshot<K, E> snapshot = mSnapshot;
+        int sectionIndex = snapshot.getIndex().getSectionForPosition(position);
+        IndexableList<K, E> section = snapshot.getSections().get(sectionIndex);
+
+        int offset = position - snapshot.getIndex().getPositionForSection(sectionIndex);
+        return offset == 0 ? VIEW_TYPE_HEADER : getChildViewType(section, offset - 1);
+    }
+
+    @Override
+    public void onBindViewHolder(VH holder, int position) {
+        // Delegate to onBindHeaderViewHolder or onBindChildViewHolder
+        IndexableListAdapter.Snapshot<K, E> snapshot = mSnapshot;
+        int sectionIndex = snapshot.getIndex().getSectionForPosition(position);
+        IndexableList<K, E> section = snapshot.getSections().get(sectionIndex);
+
+        int offset = position - snapshot.getIndex().getPositionForSection(sectionIndex);
+        if (offset == 0) {
+            onBindHeaderViewHolder(holder, section);
+        } else {
+            onBindChildViewHolder(holder, section, offset - 1);
+        }
+    }
+
+    @Override
+    public Object[] getSections() {
+        return mSnapshot.getIndex().getSections();
+    }
+
+    @Override
+    public int getPositionForSection(int section) {
+        return mSnapshot.getIndex().getPositionForSection(section);
+    }
+
+    @Override
+    public int getSectionForPosition(int position) {
+        return mSnapshot.getIndex().getSectionForPosition(position);
+    }
+
+    /**
+     * Gets the {@link IndexableListAdapter.Snapshot} of sections currently shown by this adapter.
+     * @return Current snapshot.
+     */
+    public IndexableListAdapter.Snapshot<K, E> getSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * Replaces the sections shown by this adapter with the given {@link IndexableListAdapter.Snapshot}
+     * right away, as one data set change, and drops any submission still being diffed. This must be
+     * called on the UI thread.
+     * @param snapshot Snapshot to show.
+     */
+    public void swapSnapshot(IndexableListAdapter.Snapshot<K, E> snapshot) {
+        Assert.assertTrue(PRECONDITION_NULL_SNAPSHOT, snapshot != null);
+
+        mSubmitGeneration.incrementAndGet();
+        mSnapshot = snapshot;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Builds a snapshot of the given sections and diffs it against the shown sections on a worker thread,
+     * then shows it on the UI thread with item range updates. A later submission replaces this one if it
+     * is still in flight. This must be called on the UI thread.
+     * @param sections List of indexable lists, where each indexable list represents a section.
+     */
+    public void submitSections(final List<IndexableList<K, E>> sections) {
+        Assert.assertTrue(PRECONDITION_NULL_SECTIONS, sections != null);
+
+        final int generation = mSubmitGeneration.incrementAndGet();
+        final IndexableListAdapter.Snapshot<K, E> current = mSnapshot;
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mSubmitGeneration.get() != generation) {
+                    return;
+                }
+
+                IndexableListAdapter.Snapshot<K, E> snapshot = new IndexableListAdapter.Snapshot<K, E>(sections);
+                snapshot.diffFrom(current);
+                postSnapshot(snapshot, generation);
+            }
+        });
+    }
+
+    /**
+     * Shows the given {@link IndexableListAdapter.Snapshot} with item range updates. If the snapshot was
+     * already diffed against the shown sections, see {@link IndexableListAdapter.Snapshot#diffFrom(IndexableListAdapter.Snapshot)},
+     * its diff is applied right away; otherwise it is diffed on a worker thread first. A later submission
+     * replaces this one if it is still in flight. This must be called on the UI thread.
+     * @param snapshot Snapshot to show.
+     */
+    public void submitSnapshot(final IndexableListAdapter.Snapshot<K, E> snapshot) {
+        Assert.assertTrue(PRECONDITION_NULL_SNAPSHOT, snapshot != null);
+
+        final int generation = mSubmitGeneration.incrementAndGet();
+        final IndexableListAdapter.Snapshot<K, E> current = mSnapshot;
+
+        SectionDiff diff = snapshot.getDiffFrom(current);
+        if (diff != null) {
+            applySnapshot(snapshot, diff);
+            return;
+        }
+
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mSubmitGeneration.get() != generation) {
+                    return;
+                }
+
+                snapshot.diffFrom(current);
+                postSnapshot(snapshot, generation);
+            }
+        });
+    }
+
+    /**
+     * Replaces the section at the given index with the given {@link IndexableList}, which must have the
+     * same key, then notifies any observers of the section's item range. The change is shown as a new
+     * {@link IndexableListAdapter.Snapshot} sharing every other section, so sections being diffed are
+     * never changed in place, and any submission still being diffed is dropped. The section's children
+     * are reported as changed, followed by the children added or removed at its end. This must be called
+     * on the UI thread.
+     * @param sectionIndex Index of the section to replace.
+     * @param section New contents of the section.
+     */
+    public void setSection(int sectionIndex, IndexableList<K, E> section) {
+        Assert.assertTrue(PRECONDITION_NULL_SECTION, section != null);
+        Assert.assertTrue(PRECONDITION_MISMATCHED_SECTION,
+                          section.getKey().compareTo(mSnapshot.getSections().get(sectionIndex).getKey()) == 0);
+
+        SectionIndex index = mSnapshot.getIndex();
+        int start = index.getPositionForSection(sectionIndex) + 1;
+        int oldSize = index.getVisibleSectionSize(sectionIndex);
+
+        mSubmitGeneration.incrementAndGet();
+        mSnapshot = mSnapshot.withSection(sectionIndex, section);
+        int newSize = mSnapshot.getIndex().getVisibleSectionSize(sectionIndex);
+
+        notifyItemRangeChanged(start, Math.min(oldSize, newSize));
+        if (newSize > oldSize) {
+            notifyItemRangeInserted(start + oldSize, newSize - oldSize);
+        } else if (oldSize > newSize) {
+            notifyItemRangeRemoved(start + newSize, oldSize - newSize);
+        }
+    }
+
+    /**
+     * Posts the given diffed snapshot to the UI thread. Called on the diff thread.
+     * @param snapshot Diffed snapshot.
+     * @param generation Generation of the submission.
+     */
+    private void postSnapshot(final IndexableListAdapter.Snapshot<K, E> snapshot, final int generation) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mSubmitGeneration.get() != generation) {
+                    return;
+                }
+
+                // The shown sections changed since they were diffed, so the updates would not line up
+                SectionDiff diff = snapshot.getDiffFrom(mSnapshot);
+                if (diff == null) {
+                    mSnapshot = snapshot;
+                    notifyDataSetChanged();
+                } else {
+                    applySnapshot(snapshot, diff);
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows the given {@link IndexableListAdapter.Snapshot} and notifies any observers of the updates in
+     * the given diff. Called on the UI thread.
+     * @param snapshot Snapshot to show.
+     * @param diff Differences from the shown snapshot to the given one.
+     */
+    private void applySnapshot(IndexableListAdapter.Snapshot<K, E> snapshot, SectionDiff diff) {
+        mSnapshot = snapshot;
+        if (!diff.hasChanges()) {
+            return;
+        }
+
+        if (diff.getMaxUpdateCount() > MAX_ITEM_UPDATES) {
+            notifyDataSetChanged();
+            return;
+        }
+
+        diff.dispatchUpdates(new SectionDiff.Callback() {
+            @Override
+            public void onInserted(int position, int count) {
+                notifyItemRangeInserted(position, count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                notifyItemRangeRemoved(position, count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                notifyItemMoved(fromPosition, toPosition);
+            }
+        });
+    }
+
+}
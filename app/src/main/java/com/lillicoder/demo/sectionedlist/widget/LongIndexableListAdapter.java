@@ -0,0 +1,171 @@
+package com.lillicoder.demo.sectionedlist.widget;
+
+import android.view.View;
+import android.view.ViewGroup;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.LongIndexableList;
+import com.lillicoder.demo.sectionedlist.list.PatchedIndexableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ *     {@link IndexableListAdapter} for sections of {@code long} values.
+ * </p>
+ *
+ * <p>
+ *     Sections that are {@link LongIndexableList} are bound and identified without boxing, including
+ *     after inserts and removals, which patch them rather than copying them. Sections built from a map
+ *     and new sections created by {@link #insert(Comparable, Object)} are stored as
+ *     {@link LongIndexableList}. Any other {@link IndexableList} is still supported and is unboxed
+ *     before binding.
+ * </p>
+ *
+ * <p>
+ *     A few paths still box: each element inserted into an existing section is kept boxed in its
+ *     patch until the section is rebuilt, and filtering and {@link #remove(Comparable, Object)} box
+ *     every element they test.
+ * </p>
+ * @param <K> Type of object each indexable list is indexable by.
+ */
+public abstract class LongIndexableListAdapter<K extends Comparable<K>> extends IndexableListAdapter<K, Long> {
+
+    /**
+     * Instantiates this adapter with no sections, to be published later with
+     * {@link #swapSnapshot(Snapshot)}.
+     */
+    public LongIndexableListAdapter() {
+        super();
+    }
+
+    /**
+     * Instantiates this adapter with the given {@link List} of {@link IndexableList}.
+     * @param sections List of indexable lists for this adapter,
+     *                 where each indexable list represents a section.
+     */
+    public LongIndexableListAdapter(List<IndexableList<K, Long>> sections) {
+        super(sections);
+    }
+
+    /**
+     * Instantiates this adapter with the given map of {@link Collection}. Each key represents
+     * a section and each collection mapped to a key represents the items for that section.
+     * Items are unboxed into an {@link LongIndexableList} per section.
+     * @param sections Map of sections for this adapter.
+     */
+    public LongIndexableListAdapter(Map<K, ? extends Collection<Long>> sections) {
+        super(convertToLongList(sections));
+    }
+
+    /**
+     * Instantiates this adapter with the given {@link Snapshot}.
+     * @param snapshot Snapshot of sections for this adapter.
+     */
+    public LongIndexableListAdapter(Snapshot<K, Long> snapshot) {
+        super(snapshot);
+    }
+
+    /**
+     * Gets a view for the given child.
+     * @param child Child section item.
+     * @param convertView The old view to reuse, if possible.
+     * @param parent The parent that this view will eventually be attached to.
+     * @return View for the given child.
+     */
+    protected abstract View getChildView(long child, View convertView, ViewGroup parent);
+
+    /**
+     * Gets the identity of the given element within its section, used to derive item IDs. By default
+     * this is the element itself, so equal elements share an identity; see
+     * {@link IndexableListAdapter#getElementId(Object)} for when to report stable IDs.
+     * @param element Element to identify.
+     * @return Identity of the element.
+     */
+    protected long getElementId(long element) {
+        return element;
+    }
+
+    @Override
+    protected final View getChildView(Long child, View convertView, ViewGroup parent) {
+        return getChildView(child.longValue(), convertView, parent);
+    }
+
+    @Override
+    protected View getChildView(IndexableList<K, Long> section,
+                                int childPosition,
+                                View convertView,
+                                ViewGroup parent) {
+        return getChildView(getLong(section, childPosition), convertView, parent);
+    }
+
+    @Override
+    protected final long getElementId(Long element) {
+        return getElementId(element.longValue());
+    }
+
+    @Override
+    protected long getChildId(IndexableList<K, Long> section, int childPosition) {
+        return getElementId(getLong(section, childPosition));
+    }
+
+    @Override
+    protected IndexableList<K, Long> createSection(K key) {
+        return new LongIndexableList<K>(key, key.toString(), 1);
+    }
+
+    /**
+     * Reads the element at the given location of the given section, without boxing if the section is
+     * an {@link LongIndexableList} or patches one and the element is not one inserted by the patch.
+     * @param section Section to read.
+     * @param location Location of the element.
+     * @return Element at the given location.
+     */
+    private static <K extends Comparable<K>> long getLong(IndexableList<K, Long> section, int location) {
+        if (section instanceof LongIndexableList) {
+            return ((LongIndexableList<K>) section).getLong(location);
+        }
+
+        if (section instanceof PatchedIndexableList) {
+            PatchedIndexableList<K, Long> patched = (PatchedIndexableList<K, Long>) section;
+            int baseLocation = patched.getBaseLocation(location);
+            if (baseLocation >= 0 && patched.getBase() instanceof LongIndexableList) {
+                return ((LongIndexableList<K>) patched.getBase()).getLong(baseLocation);
+            }
+        }
+
+        return section.get(location);
+    }
+
+    /**
+     * Converts the given {@link Map} of sections into a list of {@link LongIndexableList}, unboxing
+     * each item once.
+     * @param sections Sections map to convert.
+     * @return List of sections, or {@code null} if the given map is {@code null}.
+     */
+    private static <K extends Comparable<K>> List<IndexableList<K, Long>> convertToLongList(
+        Map<K, ? extends Collection<Long>> sections) {
+        if (sections == null) {
+            return null;
+        }
+
+        List<IndexableList<K, Long>> sectionsList = new ArrayList<IndexableList<K, Long>>(sections.size());
+        for (Map.Entry<K, ? extends Collection<Long>> entry : sections.entrySet()) {
+            K sectionKey = entry.getKey();
+            Collection<Long> sectionItems = entry.getValue();
+
+            LongIndexableList<K> section =
+                new LongIndexableList<K>(sectionKey, sectionKey.toString(), sectionItems.size());
+            for (Long item : sectionItems) {
+                section.addLong(item);
+            }
+
+            sectionsList.add(section);
+        }
+
+        return sectionsList;
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.lillicoder.demo.sectionedlist.widget;
+
+import android.content.Context;
+import android.database.DataSetObserver;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ListAdapter;
+import android.widget.ListView;
+import android.widget.SectionIndexer;
+
+/**
+ * <p>
+ *     {@link ListView} that can pin the header of the section at its top, such as the sections of a
+ *     {@link IndexableListAdapter}.
+ * </p>
+ *
+ * <p>
+ *     The adapter must implement {@link SectionIndexer}, with each section starting at its header row.
+ *     The pinned section is found with {@link SectionIndexer#getSectionForPosition(int)} on every frame.
+ *     Its header is bound through the adapter, measured, laid out and drawn into a cached bitmap only
+ *     when the pinned section changes, so scrolling within a section just draws that bitmap. As the
+ *     next section's header reaches the top, it pushes the pinned header up and out; the incoming
+ *     header is the list's own row, so only one header view is ever bound for pinning.
+ * </p>
+ *
+ * <p>
+ *     The pinned header is only drawn, it does not receive touches.
+ * </p>
+ */
+public class PinnedHeaderListView extends ListView {
+
+    private static final int INVALID_SECTION = -1;
+
+    private ListAdapter mAdapter;
+    private SectionIndexer mIndexer;
+    private boolean mPinnedHeaderEnabled;
+
+    private View mHeaderView;
+    private int mHeaderViewType;
+    private int mHeaderSection = INVALID_SECTION;
+    private Bitmap mHeaderCache;
+    private Canvas mHeaderCanvas;
+
+    private final DataSetObserver mObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            invalidatePinnedHeader();
+        }
+
+        @Override
+        public void onInvalidated() {
+            invalidatePinnedHeader();
+        }
+    };
+
+    public PinnedHeaderListView(Context context) {
+        super(context);
+    }
+
+    public PinnedHeaderListView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public PinnedHeaderListView(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+    }
+
+    /**
+     * Determines if the header of the section at the top of this list is pinned.
+     * @return {@code true} if the header is pinned, {@code false} otherwise.
+     */
+    public boolean isPinnedHeaderEnabled() {
+        return mPinnedHeaderEnabled;
+    }
+
+    /**
+     * Sets whether the header of the section at the top of this list is pinned. Headers are only pinned
+     * if the adapter implements {@link SectionIndexer}.
+     * @param enabled {@code true} to pin the header, {@code false} otherwise.
+     */
+    public void setPinnedHeaderEnabled(boolean enabled) {
+        mPinnedHeaderEnabled = enabled;
+        invalidatePinnedHeader();
+    }
+
+    @Override
+    public void setAdapter(ListAdapter adapter) {
+        if (mAdapter != null) {
+            mAdapter.unregisterDataSetObserver(mObserver);
+        }
+
+        super.setAdapter(adapter);
+
+        mAdapter = adapter;
+        mIndexer = adapter instanceof SectionIndexer ? (SectionIndexer) adapter : null;
+        if (mAdapter != null) {
+            mAdapter.registerDataSetObserver(mObserver);
+        }
+
+        // A header view from another adapter can't be recycled
+        mHeaderView = null;
+        invalidatePinnedHeader();
+    }
+
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        invalidatePinnedHeader();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        if (mHeaderCache != null) {
+            mHeaderCache.recycle();
+            mHeaderCache = null;
+            mHeaderCanvas = null;
+        }
+
+        mHeaderSection = INVALID_SECTION;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+
+        if (!mPinnedHeaderEnabled || mIndexer == null || getChildCount() == 0) {
+            return;
+        }
+
+        // Nothing is pinned while the list's own header views are showing
+        int firstVisiblePosition = getFirstVisiblePosition();
+        int firstPosition = firstVisiblePosition - getHeaderViewsCount();
+        if (firstPosition < 0 || firstPosition >= mAdapter.getCount()) {
+            return;
+        }
+
+        int section = mIndexer.getSectionForPosition(firstPosition);
+        if (section < 0) {
+            return;
+        }
+
+        if (section != mHeaderSection && !bindPinnedHeader(section)) {
+            return;
+        }
+
+        // The next section's header pushes the pinned header up once it reaches it
+        int top = getListPaddingTop();
+        if (section + 1 < mIndexer.getSections().length) {
+            int nextHeaderPosition = mIndexer.getPositionForSection(section + 1);
+            int nextHeaderChild = nextHeaderPosition + getHeaderViewsCount() - firstVisiblePosition;
+            if (nextHeaderPosition >= 0 && nextHeaderChild < getChildCount()) {
+                int nextHeaderTop = getChildAt(nextHeaderChild).getTop();
+                top = Math.min(top, nextHeaderTop - mHeaderCache.getHeight());
+            }
+        }
+
+        canvas.drawBitmap(mHeaderCache, getListPaddingLeft(), top, null);
+    }
+
+    /**
+     * Binds, measures, lays out and draws the header of the given section into the header cache.
+     * This is the only place the pinned header is laid out.
+     * @param section Index of the section to pin.
+     * @return {@code true} if the header was drawn, {@code false} if there is nothing to pin.
+     */
+    private boolean bindPinnedHeader(int section) {
+        int position = mIndexer.getPositionForSection(section);
+        int width = getWidth() - getListPaddingLeft() - getListPaddingRight();
+        if (position < 0 || position >= mAdapter.getCount() || width <= 0) {
+            return false;
+        }
+
+        // Recycle the last pinned header into the adapter like any other row of the same type
+        int viewType = mAdapter.getItemViewType(position);
+        View convertView = viewType == mHeaderViewType ? mHeaderView : null;
+        mHeaderView = mAdapter.getView(position, convertView, this);
+        mHeaderViewType = viewType;
+
+        ViewGroup.LayoutParams params = mHeaderView.getLayoutParams();
+        int heightSpec = params != null && params.height > 0
+                         ? MeasureSpec.makeMeasureSpec(params.height, MeasureSpec.EXACTLY)
+                         : MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        mHeaderView.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY), heightSpec);
+
+        int height = mHeaderView.getMeasuredHeight();
+        if (height <= 0) {
+            return false;
+        }
+
+        mHeaderView.layout(0, 0, width, height);
+
+        // The bitmap is reused across sections while the header keeps its size
+        if (mHeaderCache == null || mHeaderCache.getWidth() != width || mHeaderCache.getHeight() != height) {
+            if (mHeaderCache != null) {
+                mHeaderCache.recycle();
+            }
+
+            mHeaderCache = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            mHeaderCanvas = new Canvas(mHeaderCache);
+        } else {
+            mHeaderCache.eraseColor(Color.TRANSPARENT);
+        }
+
+        mHeaderView.draw(mHeaderCanvas);
+        mHeaderSection = section;
+
+        return true;
+    }
+
+    /**
+     * Drops the cached pinned header, so it is bound and drawn again on the next frame.
+     */
+    private void invalidatePinnedHeader() {
+        mHeaderSection = INVALID_SECTION;
+        invalidate();
+    }
+
+}
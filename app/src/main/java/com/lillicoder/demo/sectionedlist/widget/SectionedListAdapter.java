@@ -0,0 +1,135 @@
+package com.lillicoder.demo.sectionedlist.widget;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.SectionIndexer;
+import com.lillicoder.demo.sectionedlist.list.SectionIndex;
+
+/**
+ * <p>
+ *     {@link BaseAdapter} implementation that lays out each section of a {@link SectionIndex} as a
+ *     header row followed by the section's child rows.
+ * </p>
+ *
+ * <p>
+ *     Subclasses supply the section index and the views for headers and children. View types, enabled
+ *     state and {@link SectionIndexer} lookups are resolved here from the index alone, so adapters
+ *     backed by different storage, such as {@link IndexableListAdapter} and
+ *     {@link CursorIndexableListAdapter}, share one dispatch. Headers are never enabled.
+ * </p>
+ */
+abstract class SectionedListAdapter extends BaseAdapter implements SectionIndexer {
+
+    /**
+     * View type of section header rows.
+     */
+    public static final int VIEW_TYPE_HEADER = 0;
+
+    /**
+     * Default view type of child rows.
+     */
+    public static final int VIEW_TYPE_CHILD = 1;
+
+    /**
+     * First view type available to subclasses for their own child rows.
+     */
+    public static final int VIEW_TYPE_FIRST_EXTRA = 2;
+
+    /**
+     * Gets the section index that positions are resolved with.
+     * @return Current section index.
+     */
+    abstract SectionIndex getSectionIndex();
+
+    /**
+     * Gets a header view for the section at the given index.
+     * @param sectionIndex Index of the section.
+     * @param convertView The old view to reuse, if possible.
+     * @param parent The parent that this view will eventually be attached to.
+     * @return Header view for the section.
+     */
+    abstract View getViewForHeader(int sectionIndex, View convertView, ViewGroup parent);
+
+    /**
+     * Gets a view for the child at the given position in the section at the given index.
+     * @param sectionIndex Index of the section.
+     * @param childPosition Position of the child in the section.
+     * @param convertView The old view to reuse, if possible.
+     * @param parent The parent that this view will eventually be attached to.
+     * @return View for the child.
+     */
+    abstract View getViewForChild(int sectionIndex, int childPosition, View convertView, ViewGroup parent);
+
+    /**
+     * Gets the view type of the child at the given position in the section at the given index.
+     * @param sectionIndex Index of the section.
+     * @param childPosition Position of the child in the section.
+     * @return View type of the child, {@link #VIEW_TYPE_CHILD} by default.
+     */
+    int getViewTypeForChild(int sectionIndex, int childPosition) {
+        return VIEW_TYPE_CHILD;
+    }
+
+    @Override
+    public boolean areAllItemsEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getCount() {
+        return getSectionIndex().getPositionCount();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        SectionIndex index = getSectionIndex();
+        int sectionIndex = index.getSectionForPosition(position);
+
+        int offset = position - index.getPositionForSection(sectionIndex);
+        return offset == 0 ? VIEW_TYPE_HEADER : getViewTypeForChild(sectionIndex, offset - 1);
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return VIEW_TYPE_FIRST_EXTRA;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        // Delegate to getViewForHeader or getViewForChild
+        SectionIndex index = getSectionIndex();
+        int sectionIndex = index.getSectionForPosition(position);
+
+        int offset = position - index.getPositionForSection(sectionIndex);
+        if (offset == 0) {
+            return getViewForHeader(sectionIndex, convertView, parent);
+        } else {
+            return getViewForChild(sectionIndex, offset - 1, convertView, parent);
+        }
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        // Sections items are never enabled, each section's header sits at its start position
+        SectionIndex index = getSectionIndex();
+        int sectionIndex = index.getSectionForPosition(position);
+        return position != index.getPositionForSection(sectionIndex);
+    }
+
+    @Override
+    public Object[] getSections() {
+        return getSectionIndex().getSections();
+    }
+
+    @Override
+    public int getPositionForSection(int section) {
+        return getSectionIndex().getPositionForSection(section);
+    }
+
+    @Override
+    public int getSectionForPosition(int position) {
+        return getSectionIndex().getSectionForPosition(position);
+    }
+
+}
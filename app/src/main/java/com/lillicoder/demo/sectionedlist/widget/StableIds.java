@@ -0,0 +1,62 @@
+package com.lillicoder.demo.sectionedlist.widget;
+
+/**
+ * <p>
+ *     Derives stable 64-bit row IDs from section keys and element identities.
+ * </p>
+ *
+ * <p>
+ *     IDs are computed, not stored, so lookups are O(1) and never allocate. Header IDs always
+ *     have the sign bit set and child IDs never do, so the two cannot collide.
+ * </p>
+ *
+ * <p>
+ *     Child IDs are only as unique as the element identities they are derived from, so adapters
+ *     only report stable IDs when a subclass that supplies those identities says so.
+ * </p>
+ */
+final class StableIds {
+
+    private static final long HEADER_BIT = Long.MIN_VALUE;
+
+    // Odd 64-bit constant used to spread the key hash before combining
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private StableIds() {
+    }
+
+    /**
+     * Gets the ID of the header for the section with the given key hash.
+     * @param keyHash Hash code of the section key.
+     * @return Header ID.
+     */
+    static long forHeader(int keyHash) {
+        return mix(keyHash) | HEADER_BIT;
+    }
+
+    /**
+     * Gets the ID of the child with the given element ID in the section with the given key hash.
+     * @param keyHash Hash code of the section key.
+     * @param elementId Identity of the element within its section.
+     * @return Child ID.
+     */
+    static long forChild(int keyHash, long elementId) {
+        return mix(keyHash * GOLDEN_RATIO + elementId) & ~HEADER_BIT;
+    }
+
+    /**
+     * Scrambles the given value with the 64-bit finalizer from MurmurHash3.
+     * @param value Value to scramble.
+     * @return Scrambled value.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+
+        return value;
+    }
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import com.lillicoder.demo.sectionedlist.list.FrontCodedIndexableList;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of random reads from a section of sorted surnames stored as {@link String} objects versus
+ * a {@link FrontCodedIndexableList} at several block sizes. Each operation reads
+ * {@link SectionSizes#LOOKUPS} random elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrontCodingBenchmark {
+
+    private static final String[] SURNAMES = {
+        "Smith", "Smithers", "Smithson", "Johnson", "Johnston", "Williams", "Williamson", "Brown", "Browning"
+    };
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"4", "16", "64"})
+    public int blockSize;
+
+    private IndexableList<String, String> mStrings;
+    private FrontCodedIndexableList<String> mFrontCoded;
+    private int[] mLocations;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+
+        List<String> names = new ArrayList<String>(size);
+        for (int index = 0; index < size; index++) {
+            names.add(SURNAMES[random.nextInt(SURNAMES.length)] + ", " + (char) ('A' + random.nextInt(26))
+                      + ". " + random.nextInt(1000));
+        }
+
+        Collections.sort(names);
+
+        mStrings = new IndexableList<String, String>("S", "S", names);
+        mFrontCoded = new FrontCodedIndexableList<String>("S", "S", names, blockSize);
+
+        mLocations = new int[SectionSizes.LOOKUPS];
+        for (int index = 0; index < mLocations.length; index++) {
+            mLocations[index] = random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public void strings(Blackhole blackhole) {
+        for (int location : mLocations) {
+            blackhole.consume(mStrings.get(location));
+        }
+    }
+
+    @Benchmark
+    public void frontCoded(Blackhole blackhole) {
+        for (int location : mLocations) {
+            blackhole.consume(mFrontCoded.get(location));
+        }
+    }
+
+}
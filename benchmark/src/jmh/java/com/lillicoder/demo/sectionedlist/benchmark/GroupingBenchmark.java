@@ -0,0 +1,86 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import com.lillicoder.demo.sectionedlist.list.CountingSectionBuilder;
+import com.lillicoder.demo.sectionedlist.list.FirstCharacterBucketer;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of grouping names by first letter, with a {@link TreeMap} lookup per name versus a
+ * {@link CountingSectionBuilder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GroupingBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({SectionSizes.UNIFORM, SectionSizes.ZIPF})
+    public String distribution;
+
+    private String[] mNames;
+    private CountingSectionBuilder<String, String> mBuilder;
+
+    @Setup
+    public void setUp() {
+        int[] sizes = SectionSizes.generate(distribution, size, 26);
+
+        mNames = new String[size];
+        int position = 0;
+        for (int letter = 0; letter < sizes.length; letter++) {
+            for (int count = 0; count < sizes[letter]; count++) {
+                mNames[position++] = (char) ('A' + letter) + "name" + count;
+            }
+        }
+
+        Collections.shuffle(Arrays.asList(mNames), new Random(42L));
+
+        mBuilder = new CountingSectionBuilder<String, String>(new FirstCharacterBucketer<String>('A', 'Z'));
+    }
+
+    @Benchmark
+    public Map<String, List<String>> treeMap() {
+        Map<String, List<String>> namesByLetter = new TreeMap<String, List<String>>();
+        for (String name : mNames) {
+            String firstLetter = name.substring(0, 1);
+
+            List<String> namesForLetter = namesByLetter.get(firstLetter);
+            if (namesForLetter == null) {
+                namesForLetter = new ArrayList<String>();
+                namesByLetter.put(firstLetter, namesForLetter);
+            }
+
+            namesForLetter.add(name);
+        }
+
+        return namesByLetter;
+    }
+
+    @Benchmark
+    public List<IndexableList<String, String>> countingSort() {
+        return mBuilder.build(mNames);
+    }
+
+}
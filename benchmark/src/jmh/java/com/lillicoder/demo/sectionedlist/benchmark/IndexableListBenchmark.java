@@ -0,0 +1,92 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.IntIndexableList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction and random access cost of boxed {@link IndexableList} versus {@link IntIndexableList}.
+ * Run with the gc profiler and divide {@code gc.alloc.rate.norm} of the build benchmarks by
+ * {@code size} to get bytes per element.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IndexableListBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private IndexableList<String, Integer> mBoxed;
+    private IntIndexableList<String> mPrimitive;
+    private int[] mLookups;
+
+    @Setup
+    public void setUp() {
+        mBoxed = buildBoxed();
+        mPrimitive = buildInt();
+        mLookups = SectionSizes.lookups(size);
+    }
+
+    @Benchmark
+    public IndexableList<String, Integer> buildBoxed() {
+        IndexableList<String, Integer> list = new IndexableList<String, Integer>("A", "A", size);
+        for (int value = 0; value < size; value++) {
+            list.add(value);
+        }
+
+        return list;
+    }
+
+    @Benchmark
+    public IntIndexableList<String> buildInt() {
+        IntIndexableList<String> list = new IntIndexableList<String>("A", "A", size);
+        for (int value = 0; value < size; value++) {
+            list.addInt(value);
+        }
+
+        return list;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SectionSizes.LOOKUPS)
+    public long getBoxed() {
+        long sum = 0;
+        for (int location : mLookups) {
+            sum += mBoxed.get(location);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SectionSizes.LOOKUPS)
+    public long getInt() {
+        long sum = 0;
+        for (int location : mLookups) {
+            sum += mPrimitive.getInt(location);
+        }
+
+        return sum;
+    }
+
+}
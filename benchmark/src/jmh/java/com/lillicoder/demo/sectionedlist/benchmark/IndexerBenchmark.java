@@ -0,0 +1,105 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import com.lillicoder.demo.sectionedlist.list.SectionIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     Construction, lookup and update cost of the section index.
+ * </p>
+ *
+ * <p>
+ *     Every adapter wraps a {@link SectionIndex} with one header position per section, which is
+ *     what is measured here.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IndexerBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"26", "1000"})
+    public int sections;
+
+    @Param({SectionSizes.UNIFORM, SectionSizes.ZIPF})
+    public String distribution;
+
+    private Object[] mSectionObjects;
+    private int[] mSectionSizes;
+    private SectionIndex mIndex;
+    private int[] mPositionLookups;
+    private int[] mSectionLookups;
+
+    @Setup
+    public void setUp() {
+        mSectionObjects = new Object[sections];
+        mSectionSizes = SectionSizes.generate(distribution, size, sections);
+
+        mIndex = build();
+        mPositionLookups = SectionSizes.lookups(mIndex.getPositionCount());
+        mSectionLookups = SectionSizes.lookups(sections);
+    }
+
+    @Benchmark
+    public SectionIndex build() {
+        return new SectionIndex(mSectionObjects, mSectionSizes, true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SectionSizes.LOOKUPS)
+    public int getSectionForPosition() {
+        int sum = 0;
+        for (int position : mPositionLookups) {
+            sum += mIndex.getSectionForPosition(position);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SectionSizes.LOOKUPS)
+    public int getPositionForSection() {
+        int sum = 0;
+        for (int section : mSectionLookups) {
+            sum += mIndex.getPositionForSection(section);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SectionSizes.LOOKUPS)
+    public SectionIndex updateSection() {
+        // Grow then shrink each section so the index stays the same across invocations
+        for (int section : mSectionLookups) {
+            int sectionSize = mSectionSizes[section];
+            mIndex.setSectionSize(section, sectionSize + 1);
+            mIndex.setSectionSize(section, sectionSize);
+        }
+
+        return mIndex;
+    }
+
+}
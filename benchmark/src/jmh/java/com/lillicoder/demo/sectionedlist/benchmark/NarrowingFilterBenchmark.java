@@ -0,0 +1,81 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import com.lillicoder.demo.sectionedlist.list.CountingSectionBuilder;
+import com.lillicoder.demo.sectionedlist.list.FirstCharacterBucketer;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.NarrowingFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of filtering sections as a query is typed one character at a time, with one
+ * {@link NarrowingFilter} reused across keystrokes versus a fresh filter, and so a full scan,
+ * for every keystroke.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NarrowingFilterBenchmark {
+
+    private static final String[] KEYSTROKES = { "a", "an", "ant", "ante", "antel" };
+
+    @Param({"10000", "400000"})
+    public int size;
+
+    private List<IndexableList<String, String>> mSections;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+
+        String[] names = new String[size];
+        for (int index = 0; index < size; index++) {
+            char[] name = new char[8];
+            name[0] = (char) ('A' + random.nextInt(26));
+            for (int letter = 1; letter < name.length; letter++) {
+                name[letter] = "aenolt".charAt(random.nextInt(6));
+            }
+
+            names[index] = new String(name);
+        }
+
+        mSections = new CountingSectionBuilder<String, String>(new FirstCharacterBucketer<String>('A', 'Z'))
+            .build(names);
+    }
+
+    @Benchmark
+    public void narrowing(Blackhole blackhole) {
+        NarrowingFilter<String, String> filter = new NarrowingFilter<String, String>(mSections);
+        for (String query : KEYSTROKES) {
+            blackhole.consume(filter.filter(query));
+        }
+    }
+
+    @Benchmark
+    public void rescanning(Blackhole blackhole) {
+        for (String query : KEYSTROKES) {
+            blackhole.consume(new NarrowingFilter<String, String>(mSections).filter(query));
+        }
+    }
+
+}
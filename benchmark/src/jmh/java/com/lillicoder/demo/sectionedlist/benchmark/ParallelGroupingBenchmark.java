@@ -0,0 +1,94 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import com.lillicoder.demo.sectionedlist.list.FirstCharacterBucketer;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.ParallelSectionBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of grouping and sorting names into sections with a {@link ParallelSectionBuilder} as
+ * the number of threads grows. Compare each thread count against the single thread run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelGroupingBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @Param({SectionSizes.UNIFORM, SectionSizes.ZIPF})
+    public String distribution;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private String[] mNames;
+    private ForkJoinPool mPool;
+    private ParallelSectionBuilder<String, String> mGroupingBuilder;
+    private ParallelSectionBuilder<String, String> mSortingBuilder;
+
+    @Setup
+    public void setUp() {
+        int[] sizes = SectionSizes.generate(distribution, size, 26);
+
+        mNames = new String[size];
+        int position = 0;
+        for (int letter = 0; letter < sizes.length; letter++) {
+            for (int count = 0; count < sizes[letter]; count++) {
+                mNames[position++] = (char) ('A' + letter) + "name" + count;
+            }
+        }
+
+        Collections.shuffle(Arrays.asList(mNames), new Random(42L));
+
+        FirstCharacterBucketer<String> bucketer = new FirstCharacterBucketer<String>('A', 'Z');
+        Comparator<String> comparator = new Comparator<String>() {
+            @Override
+            public int compare(String lhs, String rhs) {
+                return lhs.compareTo(rhs);
+            }
+        };
+
+        mPool = new ForkJoinPool(threads);
+        mGroupingBuilder = new ParallelSectionBuilder<String, String>(bucketer, null, mPool);
+        mSortingBuilder = new ParallelSectionBuilder<String, String>(bucketer, comparator, mPool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mPool.shutdown();
+    }
+
+    @Benchmark
+    public List<IndexableList<String, String>> group() {
+        return mGroupingBuilder.build(mNames);
+    }
+
+    @Benchmark
+    public List<IndexableList<String, String>> groupAndSort() {
+        return mSortingBuilder.build(mNames);
+    }
+
+}
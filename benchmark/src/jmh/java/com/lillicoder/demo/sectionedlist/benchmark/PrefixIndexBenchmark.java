@@ -0,0 +1,97 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import com.lillicoder.demo.sectionedlist.list.CountingSectionBuilder;
+import com.lillicoder.demo.sectionedlist.list.FirstCharacterBucketer;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.PrefixIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding the positions of every element starting with a type-ahead prefix, by scanning every
+ * section versus looking the prefix up in a {@link PrefixIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrefixIndexBenchmark {
+
+    @Param({"10000", "400000"})
+    public int size;
+
+    @Param({"K", "Kn", "Kna"})
+    public String prefix;
+
+    private List<IndexableList<String, String>> mSections;
+    private PrefixIndex mPrefixIndex;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+
+        String[] names = new String[size];
+        for (int index = 0; index < size; index++) {
+            char[] name = new char[6];
+            name[0] = (char) ('A' + random.nextInt(26));
+            for (int letter = 1; letter < name.length; letter++) {
+                name[letter] = (char) ('a' + random.nextInt(26));
+            }
+
+            names[index] = new String(name);
+        }
+
+        mSections = new CountingSectionBuilder<String, String>(new FirstCharacterBucketer<String>('A', 'Z'))
+            .build(names);
+        mPrefixIndex = PrefixIndex.forSections(mSections, true);
+    }
+
+    @Benchmark
+    public int[] scan() {
+        String lowerCasePrefix = prefix.toLowerCase(Locale.ROOT);
+
+        int[] positions = new int[16];
+        int count = 0;
+        int position = 0;
+        for (IndexableList<String, String> section : mSections) {
+            position++;
+            for (String element : section) {
+                if (element.toLowerCase(Locale.ROOT).startsWith(lowerCasePrefix)) {
+                    if (count == positions.length) {
+                        positions = Arrays.copyOf(positions, count * 2);
+                    }
+
+                    positions[count++] = position;
+                }
+
+                position++;
+            }
+        }
+
+        return Arrays.copyOf(positions, count);
+    }
+
+    @Benchmark
+    public int[] prefixIndex() {
+        return mPrefixIndex.getPositions(prefix);
+    }
+
+}
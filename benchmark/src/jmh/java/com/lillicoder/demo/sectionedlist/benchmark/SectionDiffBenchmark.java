@@ -0,0 +1,106 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import com.lillicoder.demo.sectionedlist.list.CountingSectionBuilder;
+import com.lillicoder.demo.sectionedlist.list.FirstCharacterBucketer;
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.SectionDiff;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of diffing a refresh of sectioned names against the previous sections, where a percentage of
+ * the names were replaced, and of replaying the diff as flat position updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SectionDiffBenchmark {
+
+    private static final SectionDiff.Callback IGNORE_UPDATES = new SectionDiff.Callback() {
+        @Override
+        public void onInserted(int position, int count) {
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+        }
+    };
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"0", "1", "10"})
+    public int changedPercent;
+
+    private List<IndexableList<String, String>> mOldSections;
+    private List<IndexableList<String, String>> mNewSections;
+    private SectionDiff mDiff;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+
+        String[] names = new String[size];
+        for (int index = 0; index < size; index++) {
+            names[index] = randomName(random);
+        }
+
+        String[] refreshed = names.clone();
+        for (int index = 0; index < size; index++) {
+            if (random.nextInt(100) < changedPercent) {
+                refreshed[index] = randomName(random);
+            }
+        }
+
+        CountingSectionBuilder<String, String> builder =
+            new CountingSectionBuilder<String, String>(new FirstCharacterBucketer<String>('A', 'Z'));
+        mOldSections = builder.build(names);
+        mNewSections = builder.build(refreshed);
+        mDiff = SectionDiff.calculate(mOldSections, mNewSections, true);
+    }
+
+    @Benchmark
+    public SectionDiff calculate() {
+        return SectionDiff.calculate(mOldSections, mNewSections, true);
+    }
+
+    @Benchmark
+    public void dispatchUpdates(Blackhole blackhole) {
+        mDiff.dispatchUpdates(IGNORE_UPDATES);
+        blackhole.consume(mDiff);
+    }
+
+    private static String randomName(Random random) {
+        char[] name = new char[8];
+        name[0] = (char) ('A' + random.nextInt(26));
+        for (int letter = 1; letter < name.length; letter++) {
+            name[letter] = (char) ('a' + random.nextInt(26));
+        }
+
+        return new String(name);
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import java.util.Random;
+
+/**
+ * Generates section sizes and lookup positions for benchmarks.
+ */
+final class SectionSizes {
+
+    /**
+     * Every section gets the same number of elements.
+     */
+    static final String UNIFORM = "uniform";
+
+    /**
+     * Section sizes follow a Zipf distribution with exponent 1, so a few sections hold most elements.
+     */
+    static final String ZIPF = "zipf";
+
+    /**
+     * Number of lookups made per benchmark invocation.
+     */
+    static final int LOOKUPS = 1024;
+
+    private static final long SEED = 42L;
+
+    private SectionSizes() {
+    }
+
+    /**
+     * Splits the given number of elements across the given number of sections.
+     * @param distribution {@link #UNIFORM} or {@link #ZIPF}.
+     * @param elements Total number of elements.
+     * @param sections Number of sections.
+     * @return Size of each section, summing to the given number of elements.
+     */
+    static int[] generate(String distribution, int elements, int sections) {
+        double[] weights = new double[sections];
+        double totalWeight = 0;
+        for (int index = 0; index < sections; index++) {
+            weights[index] = ZIPF.equals(distribution) ? 1.0 / (index + 1) : 1.0;
+            totalWeight += weights[index];
+        }
+
+        int[] sizes = new int[sections];
+        int assigned = 0;
+        for (int index = 0; index < sections; index++) {
+            sizes[index] = (int) (elements * weights[index] / totalWeight);
+            assigned += sizes[index];
+        }
+
+        // Rounding leftovers go to the largest sections first
+        for (int index = 0; assigned < elements; index = (index + 1) % sections) {
+            sizes[index]++;
+            assigned++;
+        }
+
+        // Shuffle so the largest section isn't always the first one
+        Random random = new Random(SEED);
+        for (int index = sections - 1; index > 0; index--) {
+            int swap = random.nextInt(index + 1);
+            int size = sizes[index];
+            sizes[index] = sizes[swap];
+            sizes[swap] = size;
+        }
+
+        return sizes;
+    }
+
+    /**
+     * Generates {@link #LOOKUPS} random values in [0, bound).
+     * @param bound Exclusive upper bound.
+     * @return Random lookup values.
+     */
+    static int[] lookups(int bound) {
+        Random random = new Random(SEED);
+        int[] lookups = new int[LOOKUPS];
+        for (int index = 0; index < lookups.length; index++) {
+            lookups[index] = random.nextInt(bound);
+        }
+
+        return lookups;
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import com.lillicoder.demo.sectionedlist.list.IndexableList;
+import com.lillicoder.demo.sectionedlist.list.KeySelector;
+import com.lillicoder.demo.sectionedlist.list.SectionIndex;
+import com.lillicoder.demo.sectionedlist.list.SortedSections;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     Cost of turning a {@link Map} of sections into {@link IndexableList} sections, as the adapters'
+ *     {@code convertToList} does, of splitting one sorted array into range sections with
+ *     {@link SortedSections}, and of resolving flat adapter positions against them.
+ * </p>
+ *
+ * <p>
+ *     The adapters no longer materialize a flattened list; {@link #resolvePosition()} measures the
+ *     virtual flattening that replaced it, mapping a position to a header or element the same way
+ *     {@code IndexableListAdapter.getItem} does.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SectioningBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"26", "1000"})
+    public int sections;
+
+    @Param({SectionSizes.UNIFORM, SectionSizes.ZIPF})
+    public String distribution;
+
+    private static final KeySelector<Integer, Integer> IDENTITY = new KeySelector<Integer, Integer>() {
+        @Override
+        public Integer getKey(Integer element) {
+            return element;
+        }
+    };
+
+    private Map<String, List<Integer>> mSectionsByKey;
+    private Integer[] mSorted;
+    private List<IndexableList<String, Integer>> mSections;
+    private SectionIndex mIndex;
+    private int[] mPositionLookups;
+
+    @Setup
+    public void setUp() {
+        int[] sizes = SectionSizes.generate(distribution, size, sections);
+
+        mSectionsByKey = new TreeMap<String, List<Integer>>();
+        mSorted = new Integer[size];
+        int value = 0;
+        for (int index = 0; index < sizes.length; index++) {
+            List<Integer> elements = new ArrayList<Integer>(sizes[index]);
+            for (int count = 0; count < sizes[index]; count++) {
+                // Sorted elements are their own section key
+                mSorted[value] = index;
+                elements.add(value++);
+            }
+
+            mSectionsByKey.put(String.format("S%05d", index), elements);
+        }
+
+        mSections = convertToList();
+        mIndex = SectionIndex.forSections(mSections, true);
+        mPositionLookups = SectionSizes.lookups(mIndex.getPositionCount());
+    }
+
+    @Benchmark
+    public List<IndexableList<String, Integer>> convertToList() {
+        Set<String> keys = mSectionsByKey.keySet();
+        List<IndexableList<String, Integer>> sectionsList = new ArrayList<IndexableList<String, Integer>>(keys.size());
+
+        for (String sectionKey : keys) {
+            Collection<Integer> sectionItems = mSectionsByKey.get(sectionKey);
+
+            IndexableList<String, Integer> section =
+                new IndexableList<String, Integer>(sectionKey, sectionKey, sectionItems.size());
+            section.addAll(sectionItems);
+
+            sectionsList.add(section);
+        }
+
+        return sectionsList;
+    }
+
+    @Benchmark
+    public List<IndexableList<Integer, Integer>> splitSorted() {
+        return SortedSections.split(mSorted, IDENTITY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SectionSizes.LOOKUPS)
+    public int resolvePosition() {
+        int hash = 0;
+        for (int position : mPositionLookups) {
+            int sectionIndex = mIndex.getSectionForPosition(position);
+            IndexableList<String, Integer> section = mSections.get(sectionIndex);
+
+            int offset = position - mIndex.getPositionForSection(sectionIndex);
+            Object item = offset == 0 ? section : section.get(offset - 1);
+            hash += System.identityHashCode(item);
+        }
+
+        return hash;
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.benchmark;
+
+import com.lillicoder.demo.sectionedlist.list.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start cost of building sections from names with a {@link CountingSectionBuilder} versus
+ * memory-mapping a snapshot of the same sections with {@link MappedSnapshot}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnapshotBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private String[] mNames;
+    private CountingSectionBuilder<String, String> mBuilder;
+    private File mSnapshotFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        int[] sizes = SectionSizes.generate(SectionSizes.UNIFORM, size, 26);
+
+        mNames = new String[size];
+        int position = 0;
+        for (int letter = 0; letter < sizes.length; letter++) {
+            for (int count = 0; count < sizes[letter]; count++) {
+                mNames[position++] = (char) ('A' + letter) + "name" + count;
+            }
+        }
+
+        Collections.shuffle(Arrays.asList(mNames), new Random(42L));
+
+        mBuilder = new CountingSectionBuilder<String, String>(new FirstCharacterBucketer<String>('A', 'Z'));
+
+        mSnapshotFile = File.createTempFile("sections", ".snapshot");
+        SnapshotWriter.write(mBuilder.build(mNames), mSnapshotFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mSnapshotFile.delete();
+    }
+
+    @Benchmark
+    public SectionIndex build() {
+        return SectionIndex.forSections(mBuilder.build(mNames), true);
+    }
+
+    @Benchmark
+    public SectionIndex openSnapshot() throws IOException {
+        return MappedSnapshot.open(mSnapshotFile).createIndex(true);
+    }
+
+}
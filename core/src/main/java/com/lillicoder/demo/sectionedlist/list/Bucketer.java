@@ -0,0 +1,55 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+/**
+ * <p>
+ *     Interface describing an object that maps elements onto a small, dense range of buckets.
+ * </p>
+ *
+ * <p>
+ *     Each bucket corresponds to one section key. Buckets are numbered in key order, so
+ *     sections built from buckets come out sorted. Bucket lookups are made once or twice
+ *     per element and should be cheap.
+ * </p>
+ * @param <K> Type of section key.
+ * @param <E> Type of element.
+ */
+public interface Bucketer<K extends Comparable<K>, E> {
+
+    /**
+     * Gets the number of buckets.
+     * @return Number of buckets.
+     */
+    public int getBucketCount();
+
+    /**
+     * Gets the bucket for the given element.
+     * @param element Element to get a bucket for.
+     * @return Bucket of the element, in [0, getBucketCount()).
+     */
+    public int getBucket(E element);
+
+    /**
+     * Gets the section key for the given bucket.
+     * @param bucket Bucket to get a key for.
+     * @return Section key of the bucket.
+     */
+    public K getKey(int bucket);
+
+}
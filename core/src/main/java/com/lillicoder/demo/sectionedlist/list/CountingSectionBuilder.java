@@ -0,0 +1,127 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>
+ *     Groups elements into sections with a counting sort over a {@link Bucketer}.
+ * </p>
+ *
+ * <p>
+ *     The first pass counts the elements in each bucket. The second pass places each element
+ *     at its final offset in one exactly sized backing array. Each non-empty bucket then becomes
+ *     an {@link IndexableList} over its range of that array, so there are no map lookups and no
+ *     array regrowth. Elements keep their input order within a section.
+ * </p>
+ *
+ * <p>
+ *     A builder can be reused for any number of builds but is not thread safe.
+ * </p>
+ * @param <K> Type of section key.
+ * @param <E> Type of element.
+ */
+public class CountingSectionBuilder<K extends Comparable<K>, E> {
+
+    private static final String PRECONDITION_NULL_BUCKETER =
+        "Cannot instantiate a section builder with a null bucketer.";
+    private static final String PRECONDITION_NULL_ELEMENTS =
+        "Cannot build sections from null elements.";
+
+    private Bucketer<K, E> mBucketer;
+    private int[] mOffsets;
+
+    /**
+     * Instantiates this builder with the given {@link Bucketer}.
+     * @param bucketer Bucketer that maps elements to sections.
+     */
+    public CountingSectionBuilder(Bucketer<K, E> bucketer) {
+        if (bucketer == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_BUCKETER);
+        }
+
+        mBucketer = bucketer;
+        mOffsets = new int[bucketer.getBucketCount() + 1];
+    }
+
+    /**
+     * Groups the given array of elements into sections.
+     * @param elements Elements to group.
+     * @return List of indexable lists, one per non-empty bucket, in bucket order.
+     */
+    public List<IndexableList<K, E>> build(E[] elements) {
+        if (elements == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_ELEMENTS);
+        }
+
+        return build(Arrays.asList(elements));
+    }
+
+    /**
+     * Groups the given {@link Collection} of elements into sections.
+     * @param elements Elements to group.
+     * @return List of indexable lists, one per non-empty bucket, in bucket order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<IndexableList<K, E>> build(Collection<? extends E> elements) {
+        if (elements == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_ELEMENTS);
+        }
+
+        // First pass, count each bucket. Counts are kept one slot to the right
+        // so the prefix sum below leaves each bucket's start offset in place.
+        Arrays.fill(mOffsets, 0);
+        for (E element : elements) {
+            mOffsets[mBucketer.getBucket(element) + 1]++;
+        }
+
+        int sectionCount = 0;
+        for (int bucket = 1; bucket < mOffsets.length; bucket++) {
+            if (mOffsets[bucket] > 0) {
+                sectionCount++;
+            }
+
+            mOffsets[bucket] += mOffsets[bucket - 1];
+        }
+
+        // Second pass, place every element at its bucket's next free offset
+        E[] backing = (E[]) new Object[elements.size()];
+        int[] cursors = Arrays.copyOf(mOffsets, mOffsets.length - 1);
+        for (E element : elements) {
+            backing[cursors[mBucketer.getBucket(element)]++] = element;
+        }
+
+        List<E> backingList = Arrays.asList(backing);
+        List<IndexableList<K, E>> sections = new ArrayList<IndexableList<K, E>>(sectionCount);
+        for (int bucket = 0; bucket < mOffsets.length - 1; bucket++) {
+            int start = mOffsets[bucket];
+            int end = mOffsets[bucket + 1];
+            if (end > start) {
+                K key = mBucketer.getKey(bucket);
+                sections.add(new IndexableList<K, E>(key, key.toString(), backingList.subList(start, end)));
+            }
+        }
+
+        return sections;
+    }
+
+}
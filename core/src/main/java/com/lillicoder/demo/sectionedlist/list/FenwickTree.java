@@ -0,0 +1,170 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lillicoder.demo.sectionedlist.list;
+
+/**
+ * <p>
+ *     Fenwick (binary indexed) tree over a fixed number of non-negative {@code int} values.
+ * </p>
+ *
+ * <p>
+ *     Supports updating a single value, prefix sums and finding the value containing a
+ *     given offset, all in O(log n). Values are typically section sizes, in which case
+ *     prefix sums are section start positions.
+ * </p>
+ */
+public class FenwickTree {
+
+    private static final String EXCEPTION_NEGATIVE_VALUE =
+        "Cannot store negative value %d at index %d.";
+
+    // One-based tree, mTree[i] holds the sum of the values in (i - lowestOneBit(i), i]
+    private int[] mTree;
+    private int mHighestBit;
+
+    /**
+     * Instantiates this tree with the given values. Construction is O(n).
+     * @param values Initial values, must be non-negative.
+     */
+    public FenwickTree(int[] values) {
+        mTree = new int[values.length + 1];
+        mHighestBit = values.length == 0 ? 0 : Integer.highestOneBit(values.length);
+
+        for (int index = 0; index < values.length; index++) {
+            if (values[index] < 0) {
+                throw new IllegalArgumentException(String.format(EXCEPTION_NEGATIVE_VALUE, values[index], index));
+            }
+
+            mTree[index + 1] += values[index];
+
+            // Push this node's partial sum up to its parent
+            int parent = (index + 1) + Integer.lowestOneBit(index + 1);
+            if (parent < mTree.length) {
+                mTree[parent] += mTree[index + 1];
+            }
+        }
+    }
+
+    /**
+     * Instantiates this tree as a copy of the given tree. Copying is O(n), later updates to either
+     * tree do not affect the other.
+     * @param tree Tree to copy.
+     */
+    public FenwickTree(FenwickTree tree) {
+        mTree = tree.mTree.clone();
+        mHighestBit = tree.mHighestBit;
+    }
+
+    /**
+     * Gets the number of values in this tree.
+     * @return Number of values.
+     */
+    public int size() {
+        return mTree.length - 1;
+    }
+
+    /**
+     * Gets the value at the given index.
+     * @param index Index of the value to get.
+     * @return Value at the given index.
+     */
+    public int get(int index) {
+        return prefixSum(index + 1) - prefixSum(index);
+    }
+
+    /**
+     * Adds the given delta to the value at the given index.
+     * @param index Index of the value to update.
+     * @param delta Amount to add, may be negative.
+     */
+    public void add(int index, int delta) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+
+        for (int node = index + 1; node < mTree.length; node += Integer.lowestOneBit(node)) {
+            mTree[node] += delta;
+        }
+    }
+
+    /**
+     * Sets the value at the given index.
+     * @param index Index of the value to set.
+     * @param value New value, must be non-negative.
+     */
+    public void set(int index, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(String.format(EXCEPTION_NEGATIVE_VALUE, value, index));
+        }
+
+        add(index, value - get(index));
+    }
+
+    /**
+     * Gets the sum of the first {@code count} values.
+     * @param count Number of values to sum.
+     * @return Sum of the values in [0, count).
+     */
+    public int prefixSum(int count) {
+        if (count < 0 || count > size()) {
+            throw new IndexOutOfBoundsException("Count: " + count + ", size: " + size());
+        }
+
+        int sum = 0;
+        for (int node = count; node > 0; node -= Integer.lowestOneBit(node)) {
+            sum += mTree[node];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Gets the sum of all values in this tree.
+     * @return Sum of all values.
+     */
+    public int sum() {
+        return prefixSum(size());
+    }
+
+    /**
+     * Finds the index of the value that contains the given offset, that is the smallest
+     * index whose prefix sum including itself is greater than the offset. Zero values
+     * never contain an offset.
+     * @param offset Offset to find, in [0, sum()).
+     * @return Index containing the offset or -1 if the offset is out of range.
+     */
+    public int find(int offset) {
+        if (offset < 0) {
+            return -1;
+        }
+
+        // Walk down from the highest power of two, keeping the largest node
+        // whose prefix sum does not exceed the offset
+        int node = 0;
+        int remaining = offset;
+        for (int bit = mHighestBit; bit > 0; bit >>= 1) {
+            int next = node + bit;
+            if (next < mTree.length && mTree[next] <= remaining) {
+                node = next;
+                remaining -= mTree[next];
+            }
+        }
+
+        return node < size() ? node : -1;
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+/**
+ * <p>
+ *     {@link Bucketer} that buckets character sequences by their first character.
+ * </p>
+ *
+ * <p>
+ *     Each character in a given range gets its own bucket, keyed by that character as a
+ *     {@link String}. Empty sequences and sequences starting outside the range share one
+ *     overflow bucket keyed {@code "#"}, which comes first.
+ * </p>
+ * @param <E> Type of element.
+ */
+public class FirstCharacterBucketer<E extends CharSequence> implements Bucketer<String, E> {
+
+    private static final String PRECONDITION_INVALID_RANGE =
+        "Cannot bucket characters in range [%c,%c].";
+
+    private static final String KEY_OVERFLOW = "#";
+
+    private static final int BUCKET_OVERFLOW = 0;
+
+    private char mLow;
+    private char mHigh;
+
+    /**
+     * Instantiates this bucketer for the given range of first characters.
+     * @param low Lowest character with its own bucket.
+     * @param high Highest character with its own bucket.
+     */
+    public FirstCharacterBucketer(char low, char high) {
+        if (low > high) {
+            throw new IllegalArgumentException(String.format(PRECONDITION_INVALID_RANGE, low, high));
+        }
+
+        mLow = low;
+        mHigh = high;
+    }
+
+    @Override
+    public int getBucketCount() {
+        return mHigh - mLow + 2;
+    }
+
+    @Override
+    public int getBucket(E element) {
+        if (element.length() == 0) {
+            return BUCKET_OVERFLOW;
+        }
+
+        char first = element.charAt(0);
+        return first < mLow || first > mHigh ? BUCKET_OVERFLOW : first - mLow + 1;
+    }
+
+    @Override
+    public String getKey(int bucket) {
+        return bucket == BUCKET_OVERFLOW ? KEY_OVERFLOW : String.valueOf((char) (mLow + bucket - 1));
+    }
+
+}
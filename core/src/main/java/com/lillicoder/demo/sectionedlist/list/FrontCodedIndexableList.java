@@ -0,0 +1,249 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ *     Read-only {@link IndexableList} of strings stored with front coding.
+ * </p>
+ *
+ * <p>
+ *     Elements are encoded as UTF-8 and split into fixed-size blocks. The first element of each
+ *     block is stored whole; every other element is stored as the length of the prefix it shares
+ *     with the element before it plus its remaining suffix. Reading an element decodes at most one
+ *     block, so {@link #get(int)} stays random access. Sorted elements share long prefixes and
+ *     compress best, but any order is supported.
+ * </p>
+ *
+ * <p>
+ *     Each {@link #get(int)} creates a new {@link String}. Callers that read the same element
+ *     repeatedly should keep the result. As with {@link String#getBytes(Charset)}, unpaired
+ *     surrogates are replaced when encoding.
+ * </p>
+ * @param <K> Type of object this list is indexable by.
+ */
+public class FrontCodedIndexableList<K extends Comparable<K>> extends IndexableList<K, String> {
+
+    /**
+     * Default number of elements per block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 16;
+
+    private static final String PRECONDITION_NULL_ELEMENTS =
+        "Cannot instantiate a front-coded list with null elements.";
+    private static final String PRECONDITION_INVALID_BLOCK_SIZE =
+        "Cannot instantiate a front-coded list with block size %d, block size must be positive.";
+
+    private FrontCodedStrings mElements;
+
+    /**
+     * Instantiates this list with the given key, label {@link CharSequence} and elements, using
+     * the {@link #DEFAULT_BLOCK_SIZE}.
+     * @param key Key for this list.
+     * @param label Label for this list.
+     * @param elements Elements for this list, preferably sorted.
+     */
+    public FrontCodedIndexableList(K key, CharSequence label, Collection<? extends CharSequence> elements) {
+        this(key, label, elements, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Instantiates this list with the given key, label {@link CharSequence}, elements and block size.
+     * Larger blocks compress better but make each {@link #get(int)} decode more elements.
+     * @param key Key for this list.
+     * @param label Label for this list.
+     * @param elements Elements for this list, preferably sorted.
+     * @param blockSize Number of elements per block.
+     */
+    public FrontCodedIndexableList(K key, CharSequence label, Collection<? extends CharSequence> elements, int blockSize) {
+        this(key, label, new FrontCodedStrings(elements, blockSize));
+    }
+
+    private FrontCodedIndexableList(K key, CharSequence label, FrontCodedStrings elements) {
+        super(key, label, elements);
+        mElements = elements;
+    }
+
+    /**
+     * Gets the number of bytes used to store this list's elements.
+     * @return Size of the encoded elements, in bytes.
+     */
+    public int getEncodedSize() {
+        return mElements.getEncodedSize();
+    }
+
+    /**
+     * Front-coded strings exposed as a read-only {@link java.util.List} of {@link String}.
+     */
+    private static class FrontCodedStrings extends AbstractList<String> implements RandomAccess {
+
+        private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+        private byte[] mData;
+        private int[] mBlockOffsets;
+        private int mBlockSize;
+        private int mMaxLength;
+        private int mSize;
+
+        /**
+         * Encodes the given elements.
+         * @param elements Elements to encode.
+         * @param blockSize Number of elements per block.
+         */
+        public FrontCodedStrings(Collection<? extends CharSequence> elements, int blockSize) {
+            if (elements == null) {
+                throw new IllegalArgumentException(PRECONDITION_NULL_ELEMENTS);
+            }
+
+            if (blockSize <= 0) {
+                throw new IllegalArgumentException(String.format(PRECONDITION_INVALID_BLOCK_SIZE, blockSize));
+            }
+
+            mBlockSize = blockSize;
+            mSize = elements.size();
+            mBlockOffsets = new int[(mSize + blockSize - 1) / blockSize];
+            mData = new byte[Math.max(16, mSize * 4)];
+
+            int length = 0;
+            byte[] previous = null;
+            int index = 0;
+            for (CharSequence element : elements) {
+                byte[] bytes = element.toString().getBytes(UTF_8);
+                mMaxLength = Math.max(mMaxLength, bytes.length);
+
+                if (index % blockSize == 0) {
+                    mBlockOffsets[index / blockSize] = length;
+                    length = writeVarInt(length, bytes.length);
+                    length = writeBytes(length, bytes, 0, bytes.length);
+                } else {
+                    int prefix = getCommonPrefixLength(previous, bytes);
+                    length = writeVarInt(length, prefix);
+                    length = writeVarInt(length, bytes.length - prefix);
+                    length = writeBytes(length, bytes, prefix, bytes.length - prefix);
+                }
+
+                previous = bytes;
+                index++;
+            }
+
+            mData = Arrays.copyOf(mData, length);
+        }
+
+        /**
+         * Gets the number of bytes used to store the encoded elements.
+         * @return Encoded size, in bytes.
+         */
+        public int getEncodedSize() {
+            return mData.length + mBlockOffsets.length * 4;
+        }
+
+        @Override
+        public String get(int location) {
+            if (location < 0 || location >= mSize) {
+                throw new IndexOutOfBoundsException("Index: " + location + ", Size: " + mSize);
+            }
+
+            // Decode forward from the start of the block, rebuilding each element over the last one
+            byte[] element = new byte[mMaxLength];
+            int[] cursor = { mBlockOffsets[location / mBlockSize] };
+            int length = readVarInt(cursor);
+            System.arraycopy(mData, cursor[0], element, 0, length);
+            cursor[0] += length;
+
+            for (int remaining = location % mBlockSize; remaining > 0; remaining--) {
+                int prefix = readVarInt(cursor);
+                int suffix = readVarInt(cursor);
+                System.arraycopy(mData, cursor[0], element, prefix, suffix);
+                cursor[0] += suffix;
+                length = prefix + suffix;
+            }
+
+            return new String(element, 0, length, UTF_8);
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+        private static int getCommonPrefixLength(byte[] lhs, byte[] rhs) {
+            int limit = Math.min(lhs.length, rhs.length);
+            int length = 0;
+            while (length < limit && lhs[length] == rhs[length]) {
+                length++;
+            }
+
+            return length;
+        }
+
+        /**
+         * Reads an unsigned variable-length integer at the given cursor and advances the cursor past it.
+         * @param cursor Single element array holding the read position.
+         * @return Value read.
+         */
+        private int readVarInt(int[] cursor) {
+            int value = 0;
+            int shift = 0;
+            byte next;
+            do {
+                next = mData[cursor[0]++];
+                value |= (next & 0x7F) << shift;
+                shift += 7;
+            } while ((next & 0x80) != 0);
+
+            return value;
+        }
+
+        /**
+         * Writes the given value as an unsigned variable-length integer, seven bits per byte.
+         * @param position Position to write at.
+         * @param value Value to write.
+         * @return Position after the written bytes.
+         */
+        private int writeVarInt(int position, int value) {
+            ensureCapacity(position + 5);
+            while ((value & ~0x7F) != 0) {
+                mData[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            mData[position++] = (byte) value;
+            return position;
+        }
+
+        private int writeBytes(int position, byte[] bytes, int offset, int count) {
+            ensureCapacity(position + count);
+            System.arraycopy(bytes, offset, mData, position, count);
+            return position + count;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > mData.length) {
+                mData = Arrays.copyOf(mData, Math.max(capacity, mData.length + (mData.length >> 1)));
+            }
+        }
+
+    }
+
+}
@@ -65,6 +65,20 @@ public class IndexableList<K extends Comparable<K>, E> implements Indexable<K>,
         mItems = new ArrayList<E>(capacity);
     }
 
+    /**
+     * Instantiates this list with the given key, label {@link CharSequence} and backing {@link List}.
+     * The given list is used directly as this list's storage and is not copied.
+     * @param key Key for this list.
+     * @param label Label for this list.
+     * @param items Backing list for this list.
+     */
+    public IndexableList(K key, CharSequence label, List<E> items) {
+        mKey = key;
+        mLabel = label;
+
+        mItems = items;
+    }
+
     /**
      * Gets the {@link Class} type for this list's key.
      * @return Class type for this list's key.
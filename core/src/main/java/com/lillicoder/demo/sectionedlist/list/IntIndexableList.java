@@ -0,0 +1,187 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ *     {@link IndexableList} of {@code int} values backed by a primitive array.
+ * </p>
+ *
+ * <p>
+ *     The {@link java.util.List} methods of this list box values as usual. Callers that
+ *     want to avoid boxing should use {@link #getInt(int)}, {@link #setInt(int, int)}
+ *     and {@link #addInt(int)} instead.
+ * </p>
+ * @param <K> Type of object this list is indexable by.
+ */
+public class IntIndexableList<K extends Comparable<K>> extends IndexableList<K, Integer> {
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private IntArray mElements;
+
+    /**
+     * Instantiates this list with the given key and label {@link CharSequence}.
+     * @param key Key for this list.
+     * @param label Label for this list.
+     */
+    public IntIndexableList(K key, CharSequence label) {
+        this(key, label, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates this list with the given key, label {@link CharSequence} and initial capacity.
+     * @param key Key for this list.
+     * @param label Label for this list.
+     * @param capacity Initial capacity for this list.
+     */
+    public IntIndexableList(K key, CharSequence label, int capacity) {
+        this(key, label, new IntArray(capacity));
+    }
+
+    private IntIndexableList(K key, CharSequence label, IntArray elements) {
+        super(key, label, elements);
+        mElements = elements;
+    }
+
+    /**
+     * Gets the value at the given location without boxing.
+     * @param location Location of the value to get.
+     * @return Value at the given location.
+     */
+    public int getInt(int location) {
+        return mElements.getInt(location);
+    }
+
+    /**
+     * Replaces the value at the given location without boxing.
+     * @param location Location of the value to replace.
+     * @param value Value to set.
+     * @return Previous value at the given location.
+     */
+    public int setInt(int location, int value) {
+        return mElements.setInt(location, value);
+    }
+
+    /**
+     * Appends the given value to the end of this list without boxing.
+     * @param value Value to append.
+     */
+    public void addInt(int value) {
+        mElements.addInt(value);
+    }
+
+    /**
+     * Growable {@code int} array exposed as a {@link java.util.List} of {@link Integer}.
+     */
+    private static class IntArray extends AbstractList<Integer> implements RandomAccess {
+
+        private int[] mValues;
+        private int mSize;
+
+        /**
+         * Instantiates this array with the given initial capacity.
+         * @param capacity Initial capacity.
+         */
+        public IntArray(int capacity) {
+            mValues = new int[capacity];
+        }
+
+        public int getInt(int location) {
+            checkLocation(location);
+            return mValues[location];
+        }
+
+        public int setInt(int location, int value) {
+            checkLocation(location);
+            int previous = mValues[location];
+            mValues[location] = value;
+
+            return previous;
+        }
+
+        public void addInt(int value) {
+            ensureCapacity(mSize + 1);
+            mValues[mSize++] = value;
+            modCount++;
+        }
+
+        @Override
+        public Integer get(int location) {
+            return getInt(location);
+        }
+
+        @Override
+        public Integer set(int location, Integer object) {
+            return setInt(location, object);
+        }
+
+        @Override
+        public void add(int location, Integer object) {
+            if (location < 0 || location > mSize) {
+                throw new IndexOutOfBoundsException("Location: " + location + ", size: " + mSize);
+            }
+
+            ensureCapacity(mSize + 1);
+            System.arraycopy(mValues, location, mValues, location + 1, mSize - location);
+            mValues[location] = object;
+            mSize++;
+            modCount++;
+        }
+
+        @Override
+        public Integer remove(int location) {
+            checkLocation(location);
+            int previous = mValues[location];
+            System.arraycopy(mValues, location + 1, mValues, location, mSize - location - 1);
+            mSize--;
+            modCount++;
+
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            mSize = 0;
+            modCount++;
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+        private void checkLocation(int location) {
+            if (location < 0 || location >= mSize) {
+                throw new IndexOutOfBoundsException("Location: " + location + ", size: " + mSize);
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > mValues.length) {
+                int newCapacity = Math.max(capacity, mValues.length + (mValues.length >> 1) + 1);
+                mValues = Arrays.copyOf(mValues, newCapacity);
+            }
+        }
+
+    }
+
+}
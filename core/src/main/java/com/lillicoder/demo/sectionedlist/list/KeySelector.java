@@ -0,0 +1,34 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+/**
+ * Interface describing an object that picks the section key for an element.
+ * @param <K> Type of section key.
+ * @param <E> Type of element.
+ */
+public interface KeySelector<K extends Comparable<K>, E> {
+
+    /**
+     * Gets the section key for the given element.
+     * @param element Element to get a key for.
+     * @return Section key of the element.
+     */
+    public K getKey(E element);
+
+}
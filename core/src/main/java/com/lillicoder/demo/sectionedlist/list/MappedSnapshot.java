@@ -0,0 +1,307 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ *     Read-only sections of strings backed by a memory-mapped snapshot file.
+ * </p>
+ *
+ * <p>
+ *     Opening a snapshot reads only the header and the section table, so it is O(S) for S sections
+ *     no matter how many elements the file holds. Elements are decoded from the mapped string pool
+ *     each time they are read. Snapshot files are written by {@link SnapshotWriter}.
+ * </p>
+ *
+ * <p>
+ *     All integers are big-endian. The file is laid out as:
+ * </p>
+ * <ol>
+ *     <li>Header: magic, version, section count, element count and string pool length.</li>
+ *     <li>Section table: per section, the pool offset and length of its key and of its label,
+ *     then the index of its first element and its element count.</li>
+ *     <li>Element offsets: element count + 1 pool offsets, the prefix sums of each element's
+ *     encoded length, so element i spans [offsets[i], offsets[i + 1]).</li>
+ *     <li>String pool: every key, label and element encoded as UTF-8.</li>
+ * </ol>
+ *
+ * <p>
+ *     Opening a snapshot checks that every section's element range and string lies inside the file and
+ *     that sections cover the elements back to back, so a corrupt or truncated file fails with an
+ *     {@link IOException} up front. Element offsets are only checked at section boundaries when opening,
+ *     keeping it O(S); each element's own range is checked when it is read.
+ * </p>
+ */
+public class MappedSnapshot {
+
+    static final int MAGIC = 0x534C5331; // "SLS1"
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 5 * 4;
+    static final int SECTION_ENTRY_SIZE = 6 * 4;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String PRECONDITION_NULL_FILE =
+        "Cannot open a snapshot from a null file.";
+
+    private static final String ERROR_BAD_MAGIC =
+        "File %s is not a section snapshot.";
+    private static final String ERROR_BAD_VERSION =
+        "Snapshot %s has version %d, only version %d is supported.";
+    private static final String ERROR_TRUNCATED =
+        "Snapshot %s is %d bytes, its header requires %d bytes.";
+    private static final String ERROR_BAD_SECTION_STRING =
+        "Snapshot %s has a key or label for section %d outside its %d byte string pool.";
+    private static final String ERROR_BAD_SECTION_RANGE =
+        "Snapshot %s has elements [%d, %d) for section %d, expected a range starting at %d within %d elements.";
+    private static final String ERROR_BAD_ELEMENT_COUNT =
+        "Snapshot %s has sections covering %d elements, its header declares %d.";
+    private static final String ERROR_BAD_ELEMENT_OFFSETS =
+        "Snapshot %s has element offsets for section %d outside its %d byte string pool.";
+    private static final String ERROR_BAD_ELEMENT =
+        "Snapshot element %d spans [%d, %d) outside its %d byte string pool.";
+
+    private List<IndexableList<String, String>> mSections;
+
+    /**
+     * Instantiates this snapshot with the given sections.
+     * @param sections Sections read from the snapshot file.
+     */
+    private MappedSnapshot(List<IndexableList<String, String>> sections) {
+        mSections = sections;
+    }
+
+    /**
+     * Memory-maps the given snapshot {@link File}. The file is not read beyond its section table.
+     * @param file Snapshot file to open.
+     * @return Snapshot for the given file.
+     * @throws IOException If the file cannot be mapped or is not a valid snapshot.
+     */
+    public static MappedSnapshot open(File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_FILE);
+        }
+
+        // The mapping stays valid after its channel is closed
+        MappedByteBuffer buffer;
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            input.close();
+        }
+
+        return read(file, buffer);
+    }
+
+    /**
+     * Reads the header and section table of the given mapped snapshot.
+     * @param file File the buffer was mapped from, used for error messages.
+     * @param buffer Mapped snapshot.
+     * @return Snapshot for the given buffer.
+     * @throws IOException If the buffer is not a valid snapshot.
+     */
+    private static MappedSnapshot read(File file, ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(String.format(ERROR_BAD_MAGIC, file));
+        }
+
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException(String.format(ERROR_BAD_VERSION, file, version, VERSION));
+        }
+
+        int sectionCount = buffer.getInt(8);
+        int elementCount = buffer.getInt(12);
+        int poolLength = buffer.getInt(16);
+
+        // Sizes are computed in longs so corrupt counts cannot overflow past the checks
+        long offsetsStart = HEADER_SIZE + (long) sectionCount * SECTION_ENTRY_SIZE;
+        long poolStart = offsetsStart + ((long) elementCount + 1) * 4;
+        long requiredSize = poolStart + poolLength;
+        if (sectionCount < 0 || elementCount < 0 || poolLength < 0 || buffer.capacity() < requiredSize) {
+            throw new IOException(String.format(ERROR_TRUNCATED, file, buffer.capacity(), requiredSize));
+        }
+
+        List<IndexableList<String, String>> sections = new ArrayList<IndexableList<String, String>>(sectionCount);
+        int expectedStart = 0;
+        for (int section = 0; section < sectionCount; section++) {
+            int entry = HEADER_SIZE + section * SECTION_ENTRY_SIZE;
+            int keyOffset = buffer.getInt(entry);
+            int keyLength = buffer.getInt(entry + 4);
+            int labelOffset = buffer.getInt(entry + 8);
+            int labelLength = buffer.getInt(entry + 12);
+            if (!isInPool(keyOffset, keyLength, poolLength) || !isInPool(labelOffset, labelLength, poolLength)) {
+                throw new IOException(String.format(ERROR_BAD_SECTION_STRING, file, section, poolLength));
+            }
+
+            // Sections cover the elements back to back, in order
+            int start = buffer.getInt(entry + 16);
+            int count = buffer.getInt(entry + 20);
+            if (start != expectedStart || count < 0 || (long) start + count > elementCount) {
+                throw new IOException(String.format(ERROR_BAD_SECTION_RANGE,
+                                                    file,
+                                                    start,
+                                                    (long) start + count,
+                                                    section,
+                                                    expectedStart,
+                                                    elementCount));
+            }
+
+            int firstOffset = buffer.getInt((int) offsetsStart + start * 4);
+            int endOffset = buffer.getInt((int) offsetsStart + (start + count) * 4);
+            if (!isInPool(firstOffset, endOffset - firstOffset, poolLength)) {
+                throw new IOException(String.format(ERROR_BAD_ELEMENT_OFFSETS, file, section, poolLength));
+            }
+
+            String key = decode(buffer, (int) poolStart + keyOffset, keyLength);
+            String label = decode(buffer, (int) poolStart + labelOffset, labelLength);
+            StringPoolList elements =
+                new StringPoolList(buffer, (int) offsetsStart, start, (int) poolStart, poolLength, count);
+            sections.add(new IndexableList<String, String>(key, label, elements));
+
+            expectedStart = start + count;
+        }
+
+        if (expectedStart != elementCount) {
+            throw new IOException(String.format(ERROR_BAD_ELEMENT_COUNT, file, expectedStart, elementCount));
+        }
+
+        return new MappedSnapshot(sections);
+    }
+
+    /**
+     * Determines if the given range lies inside a string pool of the given length.
+     * @param offset Offset of the range in the pool.
+     * @param length Length of the range.
+     * @param poolLength Length of the pool.
+     * @return {@code true} if the range is inside the pool, {@code false} otherwise.
+     */
+    private static boolean isInPool(int offset, int length, int poolLength) {
+        return offset >= 0 && length >= 0 && (long) offset + length <= poolLength;
+    }
+
+    /**
+     * Decodes the UTF-8 string at the given absolute position of the given buffer.
+     * @param buffer Buffer to decode from.
+     * @param position Position of the first byte.
+     * @param length Number of bytes.
+     * @return Decoded string.
+     */
+    private static String decode(ByteBuffer buffer, int position, int length) {
+        // Absolute gets keep the shared buffer's position untouched, so reads are thread safe
+        byte[] bytes = new byte[length];
+        for (int index = 0; index < length; index++) {
+            bytes[index] = buffer.get(position + index);
+        }
+
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Gets the sections of this snapshot. Sections and their elements are read-only.
+     * @return Unmodifiable list of indexable lists, where each indexable list represents a section.
+     */
+    public List<IndexableList<String, String>> getSections() {
+        return Collections.unmodifiableList(mSections);
+    }
+
+    /**
+     * Creates a new {@link SectionIndex} for this snapshot's sections. This is O(S) for S sections.
+     * @param headers {@code true} if each section starts with a header position, {@code false} otherwise.
+     * @return Index for this snapshot's sections.
+     */
+    public SectionIndex createIndex(boolean headers) {
+        return SectionIndex.forSections(mSections, headers);
+    }
+
+    /**
+     * Read-only {@link List} of strings that decodes each element from the string pool when read.
+     */
+    private static class StringPoolList extends AbstractList<String> implements RandomAccess {
+
+        private ByteBuffer mBuffer;
+        private int mOffsetsStart;
+        private int mFirstElement;
+        private int mPoolStart;
+        private int mPoolLength;
+        private int mSize;
+
+        /**
+         * Instantiates this list over a run of element offsets.
+         * @param buffer Mapped snapshot.
+         * @param offsetsStart Position of the element offsets.
+         * @param firstElement Index of this list's first element among every element of the snapshot.
+         * @param poolStart Position of the string pool.
+         * @param poolLength Length of the string pool.
+         * @param size Number of elements.
+         */
+        public StringPoolList(ByteBuffer buffer,
+                              int offsetsStart,
+                              int firstElement,
+                              int poolStart,
+                              int poolLength,
+                              int size) {
+            mBuffer = buffer;
+            mOffsetsStart = offsetsStart;
+            mFirstElement = firstElement;
+            mPoolStart = poolStart;
+            mPoolLength = poolLength;
+            mSize = size;
+        }
+
+        @Override
+        public String get(int location) {
+            if (location < 0 || location >= mSize) {
+                throw new IndexOutOfBoundsException("Index: " + location + ", Size: " + mSize);
+            }
+
+            int element = mFirstElement + location;
+            int offset = mOffsetsStart + element * 4;
+            int start = mBuffer.getInt(offset);
+            int end = mBuffer.getInt(offset + 4);
+            if (!isInPool(start, end - start, mPoolLength)) {
+                throw new IllegalStateException(String.format(ERROR_BAD_ELEMENT, element, start, end, mPoolLength));
+            }
+
+            return decode(mBuffer, mPoolStart + start, end - start);
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+    }
+
+}
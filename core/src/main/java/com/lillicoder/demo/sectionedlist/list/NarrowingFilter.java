@@ -0,0 +1,391 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ *     Filters sections by a query, reusing the previous result when the query is extended.
+ * </p>
+ *
+ * <p>
+ *     Elements are numbered by their flat index across all sections. The indices matching the last
+ *     query are kept in an ascending int array. When a new query starts with the last one, such as
+ *     "cat" after "ca", only those survivors are tested again; any other query scans every element.
+ *     This relies on the {@link Matcher} never matching an element for a query that it rejected for
+ *     a prefix of that query, which holds for prefix and substring matching.
+ * </p>
+ *
+ * <p>
+ *     Each result is a new list of read-only sections, one per section with at least one match.
+ *     Sections are views over the original sections, so building a result, and a section index for
+ *     it, is O(m + k log S) for m matches in k of S sections. Results are not affected by later
+ *     queries. A filter must be created again if the original sections change.
+ * </p>
+ * @param <K> Type of object each indexable list is indexable by.
+ * @param <E> Type of object each indexable list contains.
+ */
+public class NarrowingFilter<K extends Comparable<K>, E> {
+
+    private static final String PRECONDITION_NULL_SECTIONS =
+        "Cannot instantiate a narrowing filter with null sections.";
+    private static final String PRECONDITION_NULL_MATCHER =
+        "Cannot instantiate a narrowing filter with a null matcher.";
+    private static final String PRECONDITION_PAGED_SECTION =
+        "Cannot instantiate a narrowing filter with paged section %d, filtering reads every element.";
+    private static final String PRECONDITION_NULL_QUERY =
+        "Cannot filter with a null query.";
+
+    // Number of elements tested between checks for cancellation
+    private static final int CANCELLATION_CHECK_INTERVAL = 1024;
+
+    private static final CancellationSignal NEVER_CANCELED = new CancellationSignal() {
+        @Override
+        public boolean isCanceled() {
+            return false;
+        }
+    };
+
+    private List<IndexableList<K, E>> mSections;
+    private int[] mSectionStarts;
+    private int mElementCount;
+    private Matcher<? super E> mMatcher;
+
+    private String mQuery;
+    private int[] mMatches;
+
+    /**
+     * <p>
+     *     Interface describing an object that tests elements against a filter query.
+     * </p>
+     *
+     * <p>
+     *     Matchers are called once per tested element and may be called from a worker thread.
+     * </p>
+     * @param <E> Type of element.
+     */
+    public interface Matcher<E> {
+
+        /**
+         * Determines if the given element matches the given query.
+         * @param element Element to test.
+         * @param query Query to test against, never empty.
+         * @return {@code true} if the element matches, {@code false} otherwise.
+         */
+        public boolean matches(E element, String query);
+
+    }
+
+    /**
+     * <p>
+     *     Interface describing an object that reports when an in-flight filter should stop.
+     * </p>
+     *
+     * <p>
+     *     Signals are checked from the filtering thread every few hundred elements and should be cheap.
+     * </p>
+     */
+    public interface CancellationSignal {
+
+        /**
+         * Determines if filtering should stop.
+         * @return {@code true} if filtering should stop, {@code false} otherwise.
+         */
+        public boolean isCanceled();
+
+    }
+
+    /**
+     * Instantiates this filter for the given sections, matching elements whose {@link String#valueOf(Object)}
+     * form contains the query, ignoring case.
+     * @param sections List of indexable lists, where each indexable list represents a section.
+     */
+    public NarrowingFilter(List<IndexableList<K, E>> sections) {
+        this(sections, new ContainsIgnoreCaseMatcher());
+    }
+
+    /**
+     * Instantiates this filter for the given sections and {@link Matcher}.
+     * @param sections List of indexable lists, where each indexable list represents a section.
+     * @param matcher Matcher to test elements with.
+     */
+    public NarrowingFilter(List<IndexableList<K, E>> sections, Matcher<? super E> matcher) {
+        if (sections == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_SECTIONS);
+        }
+
+        if (matcher == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_MATCHER);
+        }
+
+        mSections = new ArrayList<IndexableList<K, E>>(sections);
+        mMatcher = matcher;
+
+        mSectionStarts = new int[mSections.size()];
+        for (int section = 0; section < mSectionStarts.length; section++) {
+            if (PagedIndexableList.isPaged(mSections.get(section))) {
+                throw new IllegalArgumentException(String.format(PRECONDITION_PAGED_SECTION, section));
+            }
+
+            mSectionStarts[section] = mElementCount;
+            mElementCount += mSections.get(section).size();
+        }
+    }
+
+    /**
+     * Filters the sections of this filter by the given query. An empty query matches every element
+     * and returns the original sections.
+     * @param query Query to filter by.
+     * @return List of sections with at least one matching element, holding only matching elements.
+     */
+    public List<IndexableList<K, E>> filter(CharSequence query) {
+        return filter(query, NEVER_CANCELED);
+    }
+
+    /**
+     * Filters the sections of this filter by the given query, stopping early if the given
+     * {@link CancellationSignal} is canceled. A canceled filter leaves the last result in place,
+     * so a later query can still narrow it.
+     * @param query Query to filter by.
+     * @param signal Signal to check for cancellation.
+     * @return List of sections with at least one matching element, holding only matching elements,
+     *         or {@code null} if filtering was canceled.
+     */
+    public synchronized List<IndexableList<K, E>> filter(CharSequence query, CancellationSignal signal) {
+        if (query == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_QUERY);
+        }
+
+        String queryString = query.toString();
+        if (queryString.isEmpty()) {
+            mQuery = null;
+            mMatches = null;
+            return new ArrayList<IndexableList<K, E>>(mSections);
+        }
+
+        int[] matches;
+        if (mQuery != null && queryString.startsWith(mQuery)) {
+            matches = narrow(mMatches, queryString, signal);
+        } else {
+            matches = scan(queryString, signal);
+        }
+
+        if (matches == null) {
+            return null;
+        }
+
+        mQuery = queryString;
+        mMatches = matches;
+        return buildSections(mMatches);
+    }
+
+    /**
+     * Gets the number of elements that matched the last query.
+     * @return Number of matches or the total number of elements if there is no query.
+     */
+    public synchronized int getMatchCount() {
+        return mMatches == null ? mElementCount : mMatches.length;
+    }
+
+    /**
+     * Tests every element against the given query.
+     * @param query Query to test against.
+     * @param signal Signal to check for cancellation.
+     * @return Ascending flat indices of matching elements or {@code null} if canceled.
+     */
+    private int[] scan(String query, CancellationSignal signal) {
+        int[] matches = new int[16];
+        int matchCount = 0;
+        int element = 0;
+        for (IndexableList<K, E> section : mSections) {
+            for (E item : section) {
+                if (element % CANCELLATION_CHECK_INTERVAL == 0 && signal.isCanceled()) {
+                    return null;
+                }
+
+                if (mMatcher.matches(item, query)) {
+                    if (matchCount == matches.length) {
+                        matches = Arrays.copyOf(matches, matchCount * 2);
+                    }
+
+                    matches[matchCount++] = element;
+                }
+
+                element++;
+            }
+        }
+
+        return Arrays.copyOf(matches, matchCount);
+    }
+
+    /**
+     * Tests the given previous matches against the given query.
+     * @param previousMatches Ascending flat indices that matched a prefix of the query.
+     * @param query Query to test against.
+     * @param signal Signal to check for cancellation.
+     * @return Ascending flat indices of matching elements, a new array, or {@code null} if canceled.
+     */
+    private int[] narrow(int[] previousMatches, String query, CancellationSignal signal) {
+        int[] matches = new int[previousMatches.length];
+        int matchCount = 0;
+
+        int section = -1;
+        int sectionEnd = 0;
+        IndexableList<K, E> items = null;
+        for (int match = 0; match < previousMatches.length; match++) {
+            if (match % CANCELLATION_CHECK_INTERVAL == 0 && signal.isCanceled()) {
+                return null;
+            }
+
+            int element = previousMatches[match];
+            if (element >= sectionEnd) {
+                section = findSection(element);
+                sectionEnd = getSectionEnd(section);
+                items = mSections.get(section);
+            }
+
+            if (mMatcher.matches(items.get(element - mSectionStarts[section]), query)) {
+                matches[matchCount++] = element;
+            }
+        }
+
+        return Arrays.copyOf(matches, matchCount);
+    }
+
+    /**
+     * Groups the given matches into filtered sections.
+     * @param matches Ascending flat indices of matching elements.
+     * @return List of filtered sections.
+     */
+    private List<IndexableList<K, E>> buildSections(int[] matches) {
+        List<IndexableList<K, E>> sections = new ArrayList<IndexableList<K, E>>();
+
+        int from = 0;
+        while (from < matches.length) {
+            int section = findSection(matches[from]);
+            int sectionEnd = getSectionEnd(section);
+
+            int to = from + 1;
+            while (to < matches.length && matches[to] < sectionEnd) {
+                to++;
+            }
+
+            IndexableList<K, E> original = mSections.get(section);
+            FilteredElements<E> elements =
+                new FilteredElements<E>(original, matches, from, to, mSectionStarts[section]);
+            sections.add(new IndexableList<K, E>(original.getKey(), original.getLabel(), elements));
+
+            from = to;
+        }
+
+        return sections;
+    }
+
+    /**
+     * Gets the section containing the given flat index. This is O(log S) for S sections.
+     * @param element Flat index of an element.
+     * @return Index of the section containing the element.
+     */
+    private int findSection(int element) {
+        int section = Arrays.binarySearch(mSectionStarts, element);
+        if (section < 0) {
+            return -section - 2;
+        }
+
+        // Empty sections share their start with the next section, take the last of them
+        while (section + 1 < mSectionStarts.length && mSectionStarts[section + 1] == element) {
+            section++;
+        }
+
+        return section;
+    }
+
+    private int getSectionEnd(int section) {
+        return section + 1 < mSectionStarts.length ? mSectionStarts[section + 1] : mElementCount;
+    }
+
+    /**
+     * Read-only {@link List} view of the matching elements of one section.
+     * @param <E> Type of element.
+     */
+    private static class FilteredElements<E> extends AbstractList<E> implements RandomAccess {
+
+        private List<E> mSection;
+        private int[] mMatches;
+        private int mFrom;
+        private int mSize;
+        private int mSectionStart;
+
+        /**
+         * Instantiates this view.
+         * @param section Original section.
+         * @param matches Ascending flat indices of matching elements.
+         * @param from First match in the section, inclusive.
+         * @param to Last match in the section, exclusive.
+         * @param sectionStart Flat index of the section's first element.
+         */
+        public FilteredElements(List<E> section, int[] matches, int from, int to, int sectionStart) {
+            mSection = section;
+            mMatches = matches;
+            mFrom = from;
+            mSize = to - from;
+            mSectionStart = sectionStart;
+        }
+
+        @Override
+        public E get(int location) {
+            if (location < 0 || location >= mSize) {
+                throw new IndexOutOfBoundsException("Index: " + location + ", Size: " + mSize);
+            }
+
+            return mSection.get(mMatches[mFrom + location] - mSectionStart);
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+    }
+
+    /**
+     * {@link Matcher} that matches elements whose string form contains the query, ignoring case.
+     */
+    private static class ContainsIgnoreCaseMatcher implements Matcher<Object> {
+
+        @Override
+        public boolean matches(Object element, String query) {
+            String string = String.valueOf(element);
+            int last = string.length() - query.length();
+            for (int offset = 0; offset <= last; offset++) {
+                if (string.regionMatches(true, offset, query, 0, query.length())) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.List;
+
+/**
+ * <p>
+ *     Interface describing an object that loads contiguous runs of a section's elements on demand.
+ * </p>
+ *
+ * <p>
+ *     Pages are requested by a {@link PagedIndexableList} when an element that is not cached is read,
+ *     which may be on the UI thread. Implementations backed by slow storage should keep pages small.
+ *     Different pages may be requested from several threads at once, but each page is only loaded by
+ *     one thread at a time.
+ * </p>
+ * @param <E> Type of element.
+ */
+public interface PageSource<E> {
+
+    /**
+     * Loads the elements in the given range of a section.
+     * @param start Location of the first element to load.
+     * @param count Number of elements to load.
+     * @return List of exactly {@code count} elements, starting at {@code start}.
+     */
+    public List<E> loadPage(int start, int count);
+
+}
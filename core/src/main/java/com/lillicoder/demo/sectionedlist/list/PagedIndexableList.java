@@ -0,0 +1,266 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * <p>
+ *     Read-only {@link IndexableList} whose elements are loaded in pages from a {@link PageSource}.
+ * </p>
+ *
+ * <p>
+ *     The size of this list is known up front, so adapters can index it without loading anything.
+ *     Reading an element loads its whole page if that page is not already cached. Loaded pages are
+ *     kept in a least recently used cache of fixed capacity, so at most
+ *     {@code pageSize * maxPages} elements are resident at once however large the list is.
+ * </p>
+ *
+ * <p>
+ *     Pages are loaded outside the list's lock, so reads of loaded pages never wait on I/O. Threads
+ *     reading a page that is already being loaded wait for that load instead of starting another, even
+ *     if interrupted; the interrupt is kept for the caller.
+ * </p>
+ *
+ * <p>
+ *     Only the elements that are shown should be read. Walking every element would load every page,
+ *     once per pass, and evict the pages being shown while doing so, so {@link NarrowingFilter},
+ *     {@link PrefixIndex} and {@link SectionDiff} reject paged sections, see {@link #isPaged(List)}.
+ *     Inserting and removing elements by position through {@link PatchedIndexableList} and item IDs
+ *     of the rows being shown never read other elements, so adapters support those as usual.
+ * </p>
+ * @param <K> Type of object this list is indexable by.
+ * @param <E> Type of object this list contains.
+ */
+public class PagedIndexableList<K extends Comparable<K>, E> extends IndexableList<K, E> {
+
+    private static final String PRECONDITION_NULL_SOURCE =
+        "Cannot instantiate a paged list with a null page source.";
+    private static final String PRECONDITION_NEGATIVE_SIZE =
+        "Cannot instantiate a paged list with negative size %d.";
+    private static final String PRECONDITION_INVALID_PAGE_SIZE =
+        "Cannot instantiate a paged list with page size %d, page size must be positive.";
+    private static final String PRECONDITION_INVALID_MAX_PAGES =
+        "Cannot instantiate a paged list with %d max pages, max pages must be positive.";
+
+    private static final String ERROR_WRONG_PAGE_SIZE =
+        "Page source returned %d elements for page [%d,%d), expected %d.";
+
+    private PagedElements<E> mElements;
+
+    /**
+     * Instantiates this list with the given key, label {@link CharSequence} and page source.
+     * @param key Key for this list.
+     * @param label Label for this list.
+     * @param size Number of elements in this list.
+     * @param pageSize Number of elements per page.
+     * @param maxPages Maximum number of pages to keep loaded.
+     * @param source Source to load pages from.
+     */
+    public PagedIndexableList(K key, CharSequence label, int size, int pageSize, int maxPages, PageSource<E> source) {
+        this(key, label, new PagedElements<E>(size, pageSize, maxPages, source));
+    }
+
+    private PagedIndexableList(K key, CharSequence label, PagedElements<E> elements) {
+        super(key, label, elements);
+        mElements = elements;
+    }
+
+    /**
+     * Determines if the given list reads its elements from a {@link PageSource}, either because it is a
+     * paged list or because it patches one, see {@link PatchedIndexableList#getBase()}.
+     * @param list List to check.
+     * @return {@code true} if the list is paged, {@code false} otherwise.
+     */
+    public static boolean isPaged(List<?> list) {
+        if (list instanceof PatchedIndexableList) {
+            list = ((PatchedIndexableList<?, ?>) list).getBase();
+        }
+
+        return list instanceof PagedIndexableList;
+    }
+
+    /**
+     * Drops all loaded pages, so later reads load fresh pages from the page source.
+     */
+    public void invalidate() {
+        mElements.invalidate();
+    }
+
+    /**
+     * Gets the number of pages currently loaded.
+     * @return Number of loaded pages.
+     */
+    public int getLoadedPageCount() {
+        return mElements.getLoadedPageCount();
+    }
+
+    /**
+     * Paged elements exposed as a read-only {@link List}.
+     * @param <E> Type of element.
+     */
+    private static class PagedElements<E> extends AbstractList<E> implements RandomAccess {
+
+        private int mSize;
+        private int mPageSize;
+        private PageSource<E> mSource;
+        private Map<Integer, List<E>> mPages;
+
+        // Pages being loaded, and a count of invalidations so loads started before one are not cached
+        private Set<Integer> mLoadingPages = new HashSet<Integer>();
+        private int mGeneration;
+
+        /**
+         * Instantiates these elements.
+         * @param size Number of elements.
+         * @param pageSize Number of elements per page.
+         * @param maxPages Maximum number of pages to keep loaded.
+         * @param source Source to load pages from.
+         */
+        public PagedElements(int size, int pageSize, final int maxPages, PageSource<E> source) {
+            if (source == null) {
+                throw new IllegalArgumentException(PRECONDITION_NULL_SOURCE);
+            }
+
+            if (size < 0) {
+                throw new IllegalArgumentException(String.format(PRECONDITION_NEGATIVE_SIZE, size));
+            }
+
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException(String.format(PRECONDITION_INVALID_PAGE_SIZE, pageSize));
+            }
+
+            if (maxPages <= 0) {
+                throw new IllegalArgumentException(String.format(PRECONDITION_INVALID_MAX_PAGES, maxPages));
+            }
+
+            mSize = size;
+            mPageSize = pageSize;
+            mSource = source;
+
+            // Access ordered, so the eldest entry is always the least recently read page
+            mPages = new LinkedHashMap<Integer, List<E>>(maxPages + 1, 1.0f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<E>> eldest) {
+                    return size() > maxPages;
+                }
+            };
+        }
+
+        @Override
+        public E get(int location) {
+            if (location < 0 || location >= mSize) {
+                throw new IndexOutOfBoundsException("Index: " + location + ", Size: " + mSize);
+            }
+
+            int page = location / mPageSize;
+            int generation;
+            synchronized (this) {
+                List<E> elements = awaitPage(page);
+                if (elements != null) {
+                    return elements.get(location - page * mPageSize);
+                }
+
+                mLoadingPages.add(page);
+                generation = mGeneration;
+            }
+
+            // The page source is only called without the lock held
+            List<E> elements = null;
+            try {
+                elements = loadPage(page);
+            } finally {
+                synchronized (this) {
+                    mLoadingPages.remove(page);
+                    if (elements != null && generation == mGeneration) {
+                        mPages.put(page, elements);
+                    }
+
+                    notifyAll();
+                }
+            }
+
+            return elements.get(location - page * mPageSize);
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+        public synchronized void invalidate() {
+            mPages.clear();
+            mGeneration++;
+        }
+
+        public synchronized int getLoadedPageCount() {
+            return mPages.size();
+        }
+
+        /**
+         * Gets the given page if it is loaded, waiting for it first if another thread is loading it.
+         * Interrupts do not end the wait, they are kept for the caller. Called with the lock held.
+         * @param page Index of the page.
+         * @return Loaded page, or {@code null} if the caller should load it because no other thread is.
+         */
+        private List<E> awaitPage(int page) {
+            boolean interrupted = false;
+            List<E> elements = mPages.get(page);
+            while (elements == null && mLoadingPages.contains(page)) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // Loading the page here as well would race the load in flight, so keep waiting
+                    interrupted = true;
+                }
+
+                elements = mPages.get(page);
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            return elements;
+        }
+
+        private List<E> loadPage(int page) {
+            int start = page * mPageSize;
+            int count = Math.min(mPageSize, mSize - start);
+
+            List<E> elements = mSource.loadPage(start, count);
+            if (elements == null || elements.size() != count) {
+                throw new IllegalStateException(String.format(ERROR_WRONG_PAGE_SIZE,
+                                                               elements == null ? 0 : elements.size(),
+                                                               start,
+                                                               start + count,
+                                                               count));
+            }
+
+            return elements;
+        }
+
+    }
+
+}
@@ -0,0 +1,318 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ *     Groups and sorts large inputs into sections on a {@link ForkJoinPool}.
+ * </p>
+ *
+ * <p>
+ *     This is the parallel form of {@link CountingSectionBuilder}. The input is split into chunks,
+ *     and each chunk counts its buckets locally. Per-chunk counts are merged into one offset table.
+ *     Each chunk then places its elements into disjoint slots of one shared backing array. Finally
+ *     each section is sorted with a parallel, stable merge sort. Because every step is stable and
+ *     writes to fixed slots, the output is the same as a sequential build regardless of scheduling.
+ * </p>
+ *
+ * <p>
+ *     The {@link Bucketer} and {@link Comparator} are called from several threads at once and
+ *     must be safe to share. {@link java.util.concurrent.ForkJoinPool} requires API level 21 on
+ *     Android; this builder is meant for JVM use such as precomputing sections on a server.
+ * </p>
+ * @param <K> Type of section key.
+ * @param <E> Type of element.
+ */
+public class ParallelSectionBuilder<K extends Comparable<K>, E> {
+
+    private static final String PRECONDITION_NULL_BUCKETER =
+        "Cannot instantiate a section builder with a null bucketer.";
+    private static final String PRECONDITION_NULL_POOL =
+        "Cannot instantiate a section builder with a null fork/join pool.";
+    private static final String PRECONDITION_NULL_ELEMENTS =
+        "Cannot build sections from null elements.";
+
+    // Smallest chunk worth handing to its own task when grouping
+    private static final int MIN_CHUNK_SIZE = 8192;
+
+    // Ranges at or below this size are sorted sequentially
+    private static final int SORT_THRESHOLD = 8192;
+
+    // Chunks per unit of parallelism, so uneven chunks can be balanced by work stealing
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private Bucketer<K, E> mBucketer;
+    private Comparator<? super E> mComparator;
+    private ForkJoinPool mPool;
+
+    /**
+     * Instantiates this builder with the given {@link Bucketer} and {@link Comparator}.
+     * @param bucketer Bucketer that maps elements to sections.
+     * @param comparator Comparator used to sort each section, or {@code null} to keep input order.
+     * @param pool Pool to run on.
+     */
+    public ParallelSectionBuilder(Bucketer<K, E> bucketer, Comparator<? super E> comparator, ForkJoinPool pool) {
+        if (bucketer == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_BUCKETER);
+        }
+
+        if (pool == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_POOL);
+        }
+
+        mBucketer = bucketer;
+        mComparator = comparator;
+        mPool = pool;
+    }
+
+    /**
+     * Groups and sorts the given {@link Collection} of elements into sections.
+     * @param elements Elements to group.
+     * @return List of indexable lists, one per non-empty bucket, in bucket order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<IndexableList<K, E>> build(Collection<? extends E> elements) {
+        if (elements == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_ELEMENTS);
+        }
+
+        return build((E[]) elements.toArray());
+    }
+
+    /**
+     * Groups and sorts the given array of elements into sections. The given array is only read.
+     * @param elements Elements to group.
+     * @return List of indexable lists, one per non-empty bucket, in bucket order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<IndexableList<K, E>> build(final E[] elements) {
+        if (elements == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_ELEMENTS);
+        }
+
+        final int bucketCount = mBucketer.getBucketCount();
+        final int chunkCount = getChunkCount(elements.length);
+
+        // Count each chunk's buckets in parallel
+        final int[][] offsets = new int[chunkCount][bucketCount];
+        mPool.invoke(new ForEachTask(0, chunkCount, new ForEachTask.Body() {
+            @Override
+            public void compute(int chunk) {
+                int[] counts = offsets[chunk];
+                int end = getChunkEnd(elements.length, chunkCount, chunk);
+                for (int position = getChunkStart(elements.length, chunkCount, chunk); position < end; position++) {
+                    counts[mBucketer.getBucket(elements[position])]++;
+                }
+            }
+        }));
+
+        // Merge counts into per-chunk starting offsets, bucket by bucket then chunk by chunk,
+        // which places every element exactly where a sequential stable pass would
+        final int[] bucketStarts = new int[bucketCount + 1];
+        int offset = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketStarts[bucket] = offset;
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                int count = offsets[chunk][bucket];
+                offsets[chunk][bucket] = offset;
+                offset += count;
+            }
+        }
+
+        bucketStarts[bucketCount] = offset;
+
+        // Scatter each chunk into its slots of the backing array in parallel
+        final E[] backing = (E[]) new Object[elements.length];
+        mPool.invoke(new ForEachTask(0, chunkCount, new ForEachTask.Body() {
+            @Override
+            public void compute(int chunk) {
+                int[] cursors = offsets[chunk];
+                int end = getChunkEnd(elements.length, chunkCount, chunk);
+                for (int position = getChunkStart(elements.length, chunkCount, chunk); position < end; position++) {
+                    E element = elements[position];
+                    backing[cursors[mBucketer.getBucket(element)]++] = element;
+                }
+            }
+        }));
+
+        // Sort every section in parallel, large sections are split further by the sort itself
+        if (mComparator != null) {
+            final Object[] buffer = new Object[elements.length];
+            mPool.invoke(new ForEachTask(0, bucketCount, new ForEachTask.Body() {
+                @Override
+                public void compute(int bucket) {
+                    new SortTask<E>(backing, buffer, bucketStarts[bucket], bucketStarts[bucket + 1], mComparator)
+                        .invoke();
+                }
+            }));
+        }
+
+        List<E> backingList = Arrays.asList(backing);
+        List<IndexableList<K, E>> sections = new ArrayList<IndexableList<K, E>>();
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            int start = bucketStarts[bucket];
+            int end = bucketStarts[bucket + 1];
+            if (end > start) {
+                K key = mBucketer.getKey(bucket);
+                sections.add(new IndexableList<K, E>(key, key.toString(), backingList.subList(start, end)));
+            }
+        }
+
+        return sections;
+    }
+
+    /**
+     * Gets the number of chunks to split the given number of elements into.
+     * @param size Number of elements.
+     * @return Number of chunks, at least 1.
+     */
+    private int getChunkCount(int size) {
+        int maxChunks = mPool.getParallelism() * CHUNKS_PER_THREAD;
+        return Math.max(1, Math.min(maxChunks, size / MIN_CHUNK_SIZE));
+    }
+
+    private static int getChunkStart(int size, int chunkCount, int chunk) {
+        return (int) ((long) size * chunk / chunkCount);
+    }
+
+    private static int getChunkEnd(int size, int chunkCount, int chunk) {
+        return getChunkStart(size, chunkCount, chunk + 1);
+    }
+
+    /**
+     * {@link RecursiveAction} that runs a {@link Body} for every index in a range, splitting the range
+     * in half until single indices remain. Both halves share the same body, so splitting only allocates
+     * the two subtasks.
+     */
+    private static final class ForEachTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Work done for each index of a {@link ForEachTask}, called from several threads at once.
+         */
+        public interface Body {
+
+            /**
+             * Does the work for the given index.
+             * @param index Index to work on.
+             */
+            public void compute(int index);
+
+        }
+
+        private int mFrom;
+        private int mTo;
+        private Body mBody;
+
+        /**
+         * Instantiates this task for the given range of indices.
+         * @param from First index, inclusive.
+         * @param to Last index, exclusive.
+         * @param body Work to do for each index.
+         */
+        public ForEachTask(int from, int to, Body body) {
+            mFrom = from;
+            mTo = to;
+            mBody = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom == 1) {
+                mBody.compute(mFrom);
+            } else if (mTo > mFrom) {
+                int middle = (mFrom + mTo) >>> 1;
+                invokeAll(new ForEachTask(mFrom, middle, mBody), new ForEachTask(middle, mTo, mBody));
+            }
+        }
+
+    }
+
+    /**
+     * {@link RecursiveAction} that stably sorts a range of an array with a parallel merge sort.
+     * @param <E> Type of element.
+     */
+    private static class SortTask<E> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private E[] mElements;
+        private Object[] mBuffer;
+        private int mFrom;
+        private int mTo;
+        private Comparator<? super E> mComparator;
+
+        /**
+         * Instantiates this task for the given range.
+         * @param elements Array to sort in place.
+         * @param buffer Scratch array at least as large as the elements array.
+         * @param from First position, inclusive.
+         * @param to Last position, exclusive.
+         * @param comparator Comparator to sort with.
+         */
+        public SortTask(E[] elements, Object[] buffer, int from, int to, Comparator<? super E> comparator) {
+            mElements = elements;
+            mBuffer = buffer;
+            mFrom = from;
+            mTo = to;
+            mComparator = comparator;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void compute() {
+            if (mTo - mFrom <= SORT_THRESHOLD) {
+                Arrays.sort(mElements, mFrom, mTo, mComparator);
+                return;
+            }
+
+            int middle = (mFrom + mTo) >>> 1;
+            invokeAll(new SortTask<E>(mElements, mBuffer, mFrom, middle, mComparator),
+                      new SortTask<E>(mElements, mBuffer, middle, mTo, mComparator));
+
+            // Already ordered halves need no merge
+            if (mComparator.compare(mElements[middle - 1], mElements[middle]) <= 0) {
+                return;
+            }
+
+            // Merge both halves through the buffer, taking from the left half on ties to stay stable
+            System.arraycopy(mElements, mFrom, mBuffer, mFrom, mTo - mFrom);
+            int left = mFrom;
+            int right = middle;
+            for (int position = mFrom; position < mTo; position++) {
+                if (right >= mTo
+                    || (left < middle && mComparator.compare((E) mBuffer[left], (E) mBuffer[right]) <= 0)) {
+                    mElements[position] = (E) mBuffer[left++];
+                } else {
+                    mElements[position] = (E) mBuffer[right++];
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,311 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ *     Read-only {@link IndexableList} that applies single element inserts and removals to another
+ *     section without copying or changing it.
+ * </p>
+ *
+ * <p>
+ *     Elements are laid out as a table of runs, each either a range of the base section or one inserted
+ *     element. {@link #get(int)} finds its run by binary search, O(log r) for r runs. Each edit creates a
+ *     new list sharing the base section and copies only the run table, O(r), so editing a section of any
+ *     size, including primitive, front-coded, mapped or paged sections, never reads or copies its
+ *     elements. Editing a patched list patches its base section again rather than stacking patches.
+ * </p>
+ *
+ * <p>
+ *     Each edit adds at most two runs, and removing an inserted element merges the runs around it again.
+ *     A section edited many times is best replaced by a freshly built one, such as a new snapshot from
+ *     a loader. The base section must not be changed while patched lists over it are in use.
+ * </p>
+ * @param <K> Type of object this list is indexable by.
+ * @param <E> Type of object this list contains.
+ */
+public class PatchedIndexableList<K extends Comparable<K>, E> extends IndexableList<K, E> {
+
+    private static final String PRECONDITION_NULL_SECTION =
+        "Cannot patch a null section.";
+
+    private IndexableList<K, E> mBase;
+    private Runs<E> mRuns;
+
+    private PatchedIndexableList(IndexableList<K, E> base, Runs<E> runs) {
+        super(base.getKey(), base.getLabel(), runs);
+        mBase = base;
+        mRuns = runs;
+    }
+
+    /**
+     * Creates a list like the given section with the given element inserted at the given location.
+     * @param section Section to patch.
+     * @param location Location to insert at, from 0 to the section's size.
+     * @param element Element to insert.
+     * @return Patched list with the section's key and label.
+     */
+    public static <K extends Comparable<K>, E> PatchedIndexableList<K, E> withInserted(IndexableList<K, E> section,
+                                                                                      int location,
+                                                                                      E element) {
+        PatchedIndexableList<K, E> patched = patch(section);
+        return new PatchedIndexableList<K, E>(patched.mBase, patched.mRuns.withInserted(location, element));
+    }
+
+    /**
+     * Creates a list like the given section without the element at the given location.
+     * @param section Section to patch.
+     * @param location Location of the element to remove.
+     * @return Patched list with the section's key and label.
+     */
+    public static <K extends Comparable<K>, E> PatchedIndexableList<K, E> withRemoved(IndexableList<K, E> section,
+                                                                                     int location) {
+        PatchedIndexableList<K, E> patched = patch(section);
+        return new PatchedIndexableList<K, E>(patched.mBase, patched.mRuns.withRemoved(location));
+    }
+
+    /**
+     * Gets the section this list patches.
+     * @return Base section.
+     */
+    public IndexableList<K, E> getBase() {
+        return mBase;
+    }
+
+    /**
+     * Gets the location in the base section of the element at the given location, so callers can read
+     * it through the base section's own accessors, such as {@link IntIndexableList#getInt(int)}.
+     * @param location Location in this list.
+     * @return Location in the base section, or -1 if the element was inserted into this list.
+     */
+    public int getBaseLocation(int location) {
+        return mRuns.getBaseLocation(location);
+    }
+
+    /**
+     * Gets the number of runs this list is laid out in.
+     * @return Number of runs.
+     */
+    public int getRunCount() {
+        return mRuns.mRunCount;
+    }
+
+    /**
+     * Gets the given section as a patched list, wrapping it in a list with no edits if it isn't one.
+     * @param section Section to patch.
+     * @return Patched list.
+     */
+    private static <K extends Comparable<K>, E> PatchedIndexableList<K, E> patch(IndexableList<K, E> section) {
+        if (section == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_SECTION);
+        }
+
+        if (section instanceof PatchedIndexableList) {
+            return (PatchedIndexableList<K, E>) section;
+        }
+
+        Runs<E> runs = new Runs<E>(section, 1);
+        runs.append(0, section.size(), null);
+
+        return new PatchedIndexableList<K, E>(section, runs);
+    }
+
+    /**
+     * Run table over a base {@link List}, exposed as a read-only list.
+     * @param <E> Type of element.
+     */
+    private static class Runs<E> extends AbstractList<E> implements RandomAccess {
+
+        private static final int INSERTED = -1;
+
+        private List<E> mBase;
+        // Run r covers [mStarts[r], mStarts[r + 1]), from mBaseStarts[r] in the base or mInserted[r] if INSERTED
+        private int[] mStarts;
+        private int[] mBaseStarts;
+        private Object[] mInserted;
+        private int mRunCount;
+
+        /**
+         * Instantiates an empty run table with room for the given number of runs.
+         * @param base Base list.
+         * @param capacity Number of runs to make room for.
+         */
+        public Runs(List<E> base, int capacity) {
+            mBase = base;
+            mStarts = new int[capacity + 1];
+            mBaseStarts = new int[capacity];
+            mInserted = new Object[capacity];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int location) {
+            int run = findRun(location);
+            int baseStart = mBaseStarts[run];
+
+            return baseStart == INSERTED ? (E) mInserted[run] : mBase.get(baseStart + location - mStarts[run]);
+        }
+
+        @Override
+        public int size() {
+            return mStarts[mRunCount];
+        }
+
+        public int getBaseLocation(int location) {
+            int run = findRun(location);
+            int baseStart = mBaseStarts[run];
+
+            return baseStart == INSERTED ? INSERTED : baseStart + location - mStarts[run];
+        }
+
+        /**
+         * Creates a run table like this one with the given element inserted at the given location.
+         * @param location Location to insert at.
+         * @param element Element to insert.
+         * @return New run table.
+         */
+        public Runs<E> withInserted(int location, E element) {
+            if (location < 0 || location > size()) {
+                throw new IndexOutOfBoundsException("Location: " + location + ", size: " + size());
+            }
+
+            Runs<E> runs = new Runs<E>(mBase, mRunCount + 2);
+            boolean inserted = false;
+            for (int run = 0; run < mRunCount; run++) {
+                int start = mStarts[run];
+                int length = mStarts[run + 1] - start;
+                if (!inserted && location < start + length) {
+                    // Split the run around the new element, an inserted run holds one element so it is never split
+                    int offset = location - start;
+                    if (mBaseStarts[run] != INSERTED) {
+                        runs.append(mBaseStarts[run], offset, null);
+                        runs.append(INSERTED, 1, element);
+                        runs.append(mBaseStarts[run] + offset, length - offset, null);
+                    } else {
+                        runs.append(INSERTED, 1, element);
+                        runs.append(INSERTED, 1, mInserted[run]);
+                    }
+
+                    inserted = true;
+                } else {
+                    runs.append(mBaseStarts[run], length, mInserted[run]);
+                }
+            }
+
+            if (!inserted) {
+                runs.append(INSERTED, 1, element);
+            }
+
+            return runs;
+        }
+
+        /**
+         * Creates a run table like this one without the element at the given location.
+         * @param location Location of the element to remove.
+         * @return New run table.
+         */
+        public Runs<E> withRemoved(int location) {
+            if (location < 0 || location >= size()) {
+                throw new IndexOutOfBoundsException("Location: " + location + ", size: " + size());
+            }
+
+            Runs<E> runs = new Runs<E>(mBase, mRunCount + 1);
+            for (int run = 0; run < mRunCount; run++) {
+                int start = mStarts[run];
+                int length = mStarts[run + 1] - start;
+                if (location >= start && location < start + length) {
+                    // Inserted runs hold one element and are dropped whole
+                    if (mBaseStarts[run] != INSERTED) {
+                        int offset = location - start;
+                        runs.append(mBaseStarts[run], offset, null);
+                        runs.append(mBaseStarts[run] + offset + 1, length - offset - 1, null);
+                    }
+                } else {
+                    runs.append(mBaseStarts[run], length, mInserted[run]);
+                }
+            }
+
+            return runs;
+        }
+
+        /**
+         * Appends a run, merging it into the last run if both are contiguous ranges of the base list.
+         * Empty runs are skipped.
+         * @param baseStart Start of the run in the base list, or {@link #INSERTED}.
+         * @param length Length of the run, 1 for inserted runs.
+         * @param element Inserted element, ignored for base runs.
+         */
+        private void append(int baseStart, int length, Object element) {
+            if (length == 0) {
+                return;
+            }
+
+            int last = mRunCount - 1;
+            if (baseStart != INSERTED
+                && last >= 0
+                && mBaseStarts[last] != INSERTED
+                && mBaseStarts[last] + mStarts[mRunCount] - mStarts[last] == baseStart) {
+                mStarts[mRunCount] += length;
+                return;
+            }
+
+            if (mRunCount == mBaseStarts.length) {
+                mStarts = Arrays.copyOf(mStarts, mRunCount * 2 + 1);
+                mBaseStarts = Arrays.copyOf(mBaseStarts, mRunCount * 2);
+                mInserted = Arrays.copyOf(mInserted, mRunCount * 2);
+            }
+
+            mBaseStarts[mRunCount] = baseStart;
+            mInserted[mRunCount] = baseStart == INSERTED ? element : null;
+            mStarts[mRunCount + 1] = mStarts[mRunCount] + length;
+            mRunCount++;
+        }
+
+        /**
+         * Finds the run containing the given location, in O(log r) for r runs.
+         * @param location Location to find.
+         * @return Index of the run.
+         */
+        private int findRun(int location) {
+            if (location < 0 || location >= size()) {
+                throw new IndexOutOfBoundsException("Location: " + location + ", size: " + size());
+            }
+
+            // Last run starting at or before the location, runs are never empty
+            int low = 0;
+            int high = mRunCount - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (mStarts[middle] <= location) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            return low;
+        }
+
+    }
+
+}
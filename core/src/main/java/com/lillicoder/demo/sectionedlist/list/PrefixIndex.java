@@ -0,0 +1,405 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <p>
+ *     Finds the flat list positions of every element that starts with a given prefix.
+ * </p>
+ *
+ * <p>
+ *     Every element's string form is lower cased and sorted once, along with its flat list position.
+ *     Elements sharing a prefix are then contiguous, so a lookup is two binary searches, O(log n) for
+ *     n elements, plus O(m) to copy out m matches. Building the index is O(n log n) and is meant to be
+ *     done off the UI thread alongside the sections.
+ * </p>
+ *
+ * <p>
+ *     Positions are only valid for the section sizes the index was built from. When a run of positions
+ *     changes, such as one section's elements, {@link #replace(int, int, int, List, int)} creates an
+ *     updated index in O(n + m log m) for m new elements by merging them into the sorted elements,
+ *     rather than sorting everything again. A single element is added or dropped with
+ *     {@link #insert(int, Object)} or {@link #remove(int)}, which only normalize that element.
+ * </p>
+ */
+public class PrefixIndex {
+
+    private static final String PRECONDITION_NULL_SECTIONS =
+        "Cannot instantiate a prefix index with null sections.";
+    private static final String PRECONDITION_PAGED_SECTION =
+        "Cannot index paged elements, indexing reads every element.";
+    private static final String PRECONDITION_NULL_PREFIX =
+        "Cannot search a prefix index for a null prefix.";
+    private static final String PRECONDITION_NULL_ELEMENTS =
+        "Cannot replace positions in a prefix index with null elements.";
+    private static final String PRECONDITION_INVALID_RANGE =
+        "Cannot replace %d positions with %d positions at position %d in a prefix index.";
+
+    private String[] mElements;
+    private int[] mPositions;
+
+    /**
+     * Instantiates this index with the given elements and positions, already sorted by element.
+     * @param elements Normalized elements.
+     * @param positions Flat list position of each element.
+     */
+    private PrefixIndex(String[] elements, int[] positions) {
+        mElements = elements;
+        mPositions = positions;
+    }
+
+    /**
+     * Creates an index of the given {@link List} of {@link IndexableList}. Each element is indexed
+     * by its {@link String#valueOf(Object)} form.
+     * @param sections List of indexable lists, where each indexable list represents a section.
+     * @param headers {@code true} if each section starts with a header position, {@code false} otherwise.
+     * @return Index for the given sections.
+     */
+    public static PrefixIndex forSections(List<? extends IndexableList<?, ?>> sections, boolean headers) {
+        if (sections == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_SECTIONS);
+        }
+
+        int elementCount = 0;
+        for (IndexableList<?, ?> section : sections) {
+            if (PagedIndexableList.isPaged(section)) {
+                throw new IllegalArgumentException(PRECONDITION_PAGED_SECTION);
+            }
+
+            elementCount += section.size();
+        }
+
+        String[] elements = new String[elementCount];
+        int[] positions = new int[elementCount];
+        int element = 0;
+        int position = 0;
+        for (IndexableList<?, ?> section : sections) {
+            if (headers) {
+                position++;
+            }
+
+            for (Object item : section) {
+                elements[element] = normalize(String.valueOf(item));
+                positions[element] = position++;
+                element++;
+            }
+        }
+
+        return sort(elements, positions);
+    }
+
+    /**
+     * Creates an index like this one after a run of flat list positions was replaced, such as when
+     * elements are added to or removed from a section. Indexed elements in the replaced run are dropped,
+     * positions after it are shifted by the difference in length, and the given elements are merged in.
+     * This is O(n + m log m) for n indexed elements and m given elements; this index is left as is.
+     * @param position First position replaced.
+     * @param removedCount Number of positions replaced, including any header positions.
+     * @param insertedCount Number of positions put in their place, including any header positions.
+     * @param elements Elements to index, each by its {@link String#valueOf(Object)} form.
+     * @param elementsPosition Position of the first of the given elements. The elements take consecutive
+     *                         positions, which must lie within the inserted run.
+     * @return Updated index.
+     */
+    public PrefixIndex replace(int position,
+                               int removedCount,
+                               int insertedCount,
+                               List<?> elements,
+                               int elementsPosition) {
+        if (elements == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_ELEMENTS);
+        }
+
+        if (PagedIndexableList.isPaged(elements)) {
+            throw new IllegalArgumentException(PRECONDITION_PAGED_SECTION);
+        }
+
+        if (position < 0 || removedCount < 0 || insertedCount < 0
+            || elementsPosition < position || elementsPosition + elements.size() > position + insertedCount) {
+            throw new IllegalArgumentException(
+                String.format(PRECONDITION_INVALID_RANGE, removedCount, insertedCount, position));
+        }
+
+        String[] addedElements = new String[elements.size()];
+        int[] addedPositions = new int[addedElements.length];
+        for (int index = 0; index < addedElements.length; index++) {
+            addedElements[index] = normalize(String.valueOf(elements.get(index)));
+            addedPositions[index] = elementsPosition + index;
+        }
+
+        PrefixIndex added = sort(addedElements, addedPositions);
+
+        int removedEnd = position + removedCount;
+        int keptCount = 0;
+        for (int oldPosition : mPositions) {
+            if (oldPosition < position || oldPosition >= removedEnd) {
+                keptCount++;
+            }
+        }
+
+        // Merge the kept elements, already sorted, with the sorted new elements
+        int shift = insertedCount - removedCount;
+        String[] mergedElements = new String[keptCount + addedElements.length];
+        int[] mergedPositions = new int[mergedElements.length];
+        int merged = 0;
+        int addedIndex = 0;
+        for (int index = 0; index < mElements.length; index++) {
+            int oldPosition = mPositions[index];
+            if (oldPosition >= position && oldPosition < removedEnd) {
+                continue;
+            }
+
+            while (addedIndex < added.mElements.length && added.mElements[addedIndex].compareTo(mElements[index]) < 0) {
+                mergedElements[merged] = added.mElements[addedIndex];
+                mergedPositions[merged++] = added.mPositions[addedIndex++];
+            }
+
+            mergedElements[merged] = mElements[index];
+            mergedPositions[merged++] = oldPosition >= removedEnd ? oldPosition + shift : oldPosition;
+        }
+
+        while (addedIndex < added.mElements.length) {
+            mergedElements[merged] = added.mElements[addedIndex];
+            mergedPositions[merged++] = added.mPositions[addedIndex++];
+        }
+
+        return new PrefixIndex(mergedElements, mergedPositions);
+    }
+
+    /**
+     * Creates an index like this one after a single element was inserted at the given flat list position,
+     * shifting every later position up by one. Only the new element is normalized; the rest of the index
+     * is copied with one shift per position, O(n) for n indexed elements, and this index is left as is.
+     * @param position Position of the new element.
+     * @param element Element to index, by its {@link String#valueOf(Object)} form.
+     * @return Updated index.
+     */
+    public PrefixIndex insert(int position, Object element) {
+        if (position < 0) {
+            throw new IllegalArgumentException(String.format(PRECONDITION_INVALID_RANGE, 0, 1, position));
+        }
+
+        String normalized = normalize(String.valueOf(element));
+        int insertion = insertionPoint(normalized);
+
+        String[] elements = new String[mElements.length + 1];
+        int[] positions = new int[elements.length];
+        System.arraycopy(mElements, 0, elements, 0, insertion);
+        System.arraycopy(mElements, insertion, elements, insertion + 1, mElements.length - insertion);
+        elements[insertion] = normalized;
+
+        for (int index = 0, oldIndex = 0; index < positions.length; index++) {
+            if (index == insertion) {
+                positions[index] = position;
+            } else {
+                int oldPosition = mPositions[oldIndex++];
+                positions[index] = oldPosition >= position ? oldPosition + 1 : oldPosition;
+            }
+        }
+
+        return new PrefixIndex(elements, positions);
+    }
+
+    /**
+     * Creates an index like this one after the element at the given flat list position was removed,
+     * shifting every later position down by one. If no element is indexed at the position, only later
+     * positions are shifted. This is O(n) for n indexed elements; this index is left as is.
+     * @param position Position of the removed element.
+     * @return Updated index.
+     */
+    public PrefixIndex remove(int position) {
+        if (position < 0) {
+            throw new IllegalArgumentException(String.format(PRECONDITION_INVALID_RANGE, 1, 0, position));
+        }
+
+        int removed = -1;
+        for (int index = 0; index < mPositions.length && removed < 0; index++) {
+            if (mPositions[index] == position) {
+                removed = index;
+            }
+        }
+
+        int count = removed < 0 ? mElements.length : mElements.length - 1;
+        String[] elements = new String[count];
+        int[] positions = new int[count];
+        for (int index = 0, newIndex = 0; index < mElements.length; index++) {
+            if (index != removed) {
+                int oldPosition = mPositions[index];
+                elements[newIndex] = mElements[index];
+                positions[newIndex++] = oldPosition > position ? oldPosition - 1 : oldPosition;
+            }
+        }
+
+        return new PrefixIndex(elements, positions);
+    }
+
+    /**
+     * Gets the number of elements that start with the given prefix, ignoring case. This is O(log n).
+     * @param prefix Prefix to search for.
+     * @return Number of matching elements.
+     */
+    public int getMatchCount(CharSequence prefix) {
+        String normalizedPrefix = normalizePrefix(prefix);
+        return upperBound(normalizedPrefix) - lowerBound(normalizedPrefix);
+    }
+
+    /**
+     * Gets the flat list positions of every element that starts with the given prefix, ignoring case.
+     * Positions are ordered by element, not by position. An empty prefix matches every element.
+     * @param prefix Prefix to search for.
+     * @return Positions of the matching elements, empty if there are none.
+     */
+    public int[] getPositions(CharSequence prefix) {
+        String normalizedPrefix = normalizePrefix(prefix);
+        return Arrays.copyOfRange(mPositions, lowerBound(normalizedPrefix), upperBound(normalizedPrefix));
+    }
+
+    /**
+     * Gets the number of elements in this index.
+     * @return Number of elements.
+     */
+    public int size() {
+        return mElements.length;
+    }
+
+    /**
+     * Creates an index of the given normalized elements and positions by sorting an ordering of the
+     * elements, then laying both arrays out in that order.
+     * @param elements Normalized elements.
+     * @param positions Flat list position of each element.
+     * @return Index of the given elements.
+     */
+    private static PrefixIndex sort(final String[] elements, int[] positions) {
+        Integer[] order = new Integer[elements.length];
+        for (int index = 0; index < order.length; index++) {
+            order[index] = index;
+        }
+
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer lhs, Integer rhs) {
+                return elements[lhs].compareTo(elements[rhs]);
+            }
+        });
+
+        String[] sortedElements = new String[order.length];
+        int[] sortedPositions = new int[order.length];
+        for (int index = 0; index < order.length; index++) {
+            sortedElements[index] = elements[order[index]];
+            sortedPositions[index] = positions[order[index]];
+        }
+
+        return new PrefixIndex(sortedElements, sortedPositions);
+    }
+
+    private static String normalize(String element) {
+        return element.toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizePrefix(CharSequence prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_PREFIX);
+        }
+
+        return normalize(prefix.toString());
+    }
+
+    /**
+     * Gets the index of the first element that is not before the given prefix.
+     * @param prefix Normalized prefix.
+     * @return Index of the first element starting with or after the prefix.
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = mElements.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mElements[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Gets the index to insert the given element at, after every element equal to it.
+     * @param element Normalized element.
+     * @return Index of the first element after the given one.
+     */
+    private int insertionPoint(String element) {
+        int low = 0;
+        int high = mElements.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mElements[middle].compareTo(element) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Gets the index of the first element after every element starting with the given prefix.
+     * @param prefix Normalized prefix.
+     * @return Index of the first element after the prefix's matches.
+     */
+    private int upperBound(String prefix) {
+        int low = 0;
+        int high = mElements.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareToPrefix(mElements[middle], prefix) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Compares the given element to the given prefix, treating elements that start with the prefix as equal.
+     * @param element Element to compare.
+     * @param prefix Prefix to compare to.
+     * @return Negative, zero or positive as the element is before, starts with or is after the prefix.
+     */
+    private static int compareToPrefix(String element, String prefix) {
+        int length = Math.min(element.length(), prefix.length());
+        for (int index = 0; index < length; index++) {
+            int difference = element.charAt(index) - prefix.charAt(index);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+
+        return element.length() < prefix.length() ? -1 : 0;
+    }
+
+}
@@ -0,0 +1,737 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.*;
+
+/**
+ * <p>
+ *     Differences between two snapshots of sections, as insert, remove and move operations.
+ * </p>
+ *
+ * <p>
+ *     Sections are matched by {@link Indexable#getKey()} and elements within matched sections by
+ *     {@link Object#equals(Object)}. Common leading and trailing elements are matched directly; the
+ *     rest are matched by hash, and the longest run of matches that kept their relative order stays
+ *     in place while every other match is a move. Sections and elements are likewise kept or moved
+ *     by the longest increasing run of old section indices. A refresh that changes m of n elements
+ *     is diffed in O(n + S + m log m) for S sections, so diffs are meant to be calculated on a worker
+ *     thread. Equal elements are never reported as changed, and an element whose section key changed
+ *     is a remove from one section and an insert into another.
+ * </p>
+ *
+ * <p>
+ *     Changes are reported two ways. {@link #getOperations()} lists section and element operations
+ *     against the old and new sections, for callers that patch their own structures.
+ *     {@link #dispatchUpdates(Callback)} replays the same changes as flat list position updates
+ *     that can be applied one after another. Flat positions cover every element and, optionally,
+ *     one header at the start of each section, like {@link SectionIndex}.
+ * </p>
+ */
+public final class SectionDiff {
+
+    private static final String PRECONDITION_NULL_SECTIONS =
+        "Cannot diff null sections.";
+    private static final String PRECONDITION_PAGED_SECTION =
+        "Cannot diff paged sections, diffing reads every element.";
+
+    private static final int NO_POSITION = -1;
+
+    private final int[] mOldToNew;
+    private final int[] mNewToOld;
+    private final BitSet mMoved;
+    private final List<Operation> mOperations;
+    private int mMaxUpdateCount;
+
+    /**
+     * <p>
+     *     Interface describing an object that receives flat list position updates.
+     * </p>
+     *
+     * <p>
+     *     Updates are delivered in order, and each one is relative to the list as left by the updates
+     *     before it.
+     * </p>
+     */
+    public interface Callback {
+
+        /**
+         * Called when positions are inserted.
+         * @param position Position of the first inserted row.
+         * @param count Number of inserted rows.
+         */
+        public void onInserted(int position, int count);
+
+        /**
+         * Called when positions are removed.
+         * @param position Position of the first removed row.
+         * @param count Number of removed rows.
+         */
+        public void onRemoved(int position, int count);
+
+        /**
+         * Called when a row moves.
+         * @param fromPosition Position of the row before the move.
+         * @param toPosition Position of the row after the move.
+         */
+        public void onMoved(int fromPosition, int toPosition);
+
+    }
+
+    /**
+     * <p>
+     *     One section or element operation.
+     * </p>
+     *
+     * <p>
+     *     Sections and positions before a change are indices into the old sections and those after a
+     *     change are indices into the new sections, so operations are independent of each other and
+     *     are not meant to be applied in sequence. Element positions are child positions within their
+     *     section, not counting headers. Each operation covers {@link #getCount()} consecutive sections
+     *     or elements, consecutive on both sides for moves.
+     * </p>
+     */
+    public static final class Operation {
+
+        /**
+         * Sections were inserted.
+         */
+        public static final int TYPE_INSERT_SECTION = 0;
+
+        /**
+         * Sections were removed.
+         */
+        public static final int TYPE_REMOVE_SECTION = 1;
+
+        /**
+         * Sections moved.
+         */
+        public static final int TYPE_MOVE_SECTION = 2;
+
+        /**
+         * Elements were inserted into a section.
+         */
+        public static final int TYPE_INSERT = 3;
+
+        /**
+         * Elements were removed from a section.
+         */
+        public static final int TYPE_REMOVE = 4;
+
+        /**
+         * Elements moved within a section.
+         */
+        public static final int TYPE_MOVE = 5;
+
+        private final int mType;
+        private final int mFromSection;
+        private final int mFromPosition;
+        private final int mToSection;
+        private final int mToPosition;
+        private int mCount;
+
+        private Operation(int type, int fromSection, int fromPosition, int toSection, int toPosition) {
+            mType = type;
+            mFromSection = fromSection;
+            mFromPosition = fromPosition;
+            mToSection = toSection;
+            mToPosition = toPosition;
+            mCount = 1;
+        }
+
+        /**
+         * Gets the type of this operation, one of the {@code TYPE_} constants.
+         * @return Type of this operation.
+         */
+        public int getType() {
+            return mType;
+        }
+
+        /**
+         * Gets the index of the first old section affected by this operation.
+         * @return Old section index or -1 for inserts.
+         */
+        public int getFromSection() {
+            return mFromSection;
+        }
+
+        /**
+         * Gets the first old child position affected by this operation.
+         * @return Old child position or -1 for section operations and inserts.
+         */
+        public int getFromPosition() {
+            return mFromPosition;
+        }
+
+        /**
+         * Gets the index of the first new section affected by this operation.
+         * @return New section index or -1 for removes.
+         */
+        public int getToSection() {
+            return mToSection;
+        }
+
+        /**
+         * Gets the first new child position affected by this operation.
+         * @return New child position or -1 for section operations and removes.
+         */
+        public int getToPosition() {
+            return mToPosition;
+        }
+
+        /**
+         * Gets the number of sections or elements covered by this operation.
+         * @return Number of sections or elements.
+         */
+        public int getCount() {
+            return mCount;
+        }
+
+        /**
+         * Determines if the given operation continues this one, so the two can be merged.
+         * @param type Type of the next operation.
+         * @param fromSection Old section index of the next operation.
+         * @param fromPosition Old child position of the next operation.
+         * @param toSection New section index of the next operation.
+         * @param toPosition New child position of the next operation.
+         * @return {@code true} if the next operation continues this one, {@code false} otherwise.
+         */
+        private boolean isContinuedBy(int type, int fromSection, int fromPosition, int toSection, int toPosition) {
+            if (type != mType) {
+                return false;
+            }
+
+            if (type <= TYPE_MOVE_SECTION) {
+                return follows(mFromSection, fromSection) && follows(mToSection, toSection);
+            }
+
+            return fromSection == mFromSection
+                   && toSection == mToSection
+                   && follows(mFromPosition, fromPosition)
+                   && follows(mToPosition, toPosition);
+        }
+
+        /**
+         * Determines if the given index directly follows the range of this operation starting at the given index.
+         * @param start Start of the range, or -1 if the range is unused.
+         * @param next Index to check.
+         * @return {@code true} if the index follows the range, {@code false} otherwise.
+         */
+        private boolean follows(int start, int next) {
+            return start == NO_POSITION ? next == NO_POSITION : next == start + mCount;
+        }
+
+    }
+
+    private SectionDiff(int oldCount, int newCount) {
+        mOldToNew = new int[oldCount];
+        mNewToOld = new int[newCount];
+        Arrays.fill(mOldToNew, NO_POSITION);
+        Arrays.fill(mNewToOld, NO_POSITION);
+
+        mMoved = new BitSet(newCount);
+        mOperations = new ArrayList<Operation>();
+    }
+
+    /**
+     * Calculates the differences between the given old and new sections. Section keys are expected to
+     * be unique within each list of sections; a repeated key is treated as a new section.
+     * @param oldSections Sections before the change.
+     * @param newSections Sections after the change.
+     * @param headers {@code true} if each section starts with a header position, {@code false} otherwise.
+     * @return Differences between the sections.
+     */
+    public static <K extends Comparable<K>, E> SectionDiff calculate(List<? extends IndexableList<K, E>> oldSections,
+                                                                   List<? extends IndexableList<K, E>> newSections,
+                                                                   boolean headers) {
+        if (oldSections == null || newSections == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_SECTIONS);
+        }
+
+        if (hasPagedSection(oldSections) || hasPagedSection(newSections)) {
+            throw new IllegalArgumentException(PRECONDITION_PAGED_SECTION);
+        }
+
+        int headerCount = headers ? 1 : 0;
+        int[] oldStarts = getSectionStarts(oldSections, headerCount);
+        int[] newStarts = getSectionStarts(newSections, headerCount);
+
+        SectionDiff diff = new SectionDiff(oldStarts[oldSections.size()], newStarts[newSections.size()]);
+
+        // Match sections by key, the first new section with a key takes the old section with that key
+        Map<K, Integer> oldIndices = new HashMap<K, Integer>(oldSections.size() * 2);
+        for (int section = oldSections.size() - 1; section >= 0; section--) {
+            oldIndices.put(oldSections.get(section).getKey(), section);
+        }
+
+        int[] matchedSections = new int[newSections.size()];
+        for (int section = 0; section < matchedSections.length; section++) {
+            Integer oldSection = oldIndices.remove(newSections.get(section).getKey());
+            matchedSections[section] = oldSection == null ? NO_POSITION : oldSection;
+        }
+
+        boolean[] keptSections = getIncreasingRun(matchedSections, matchedSections.length);
+
+        // Old sections still in the map were not matched
+        boolean[] removedSections = new boolean[oldSections.size()];
+        for (Integer oldSection : oldIndices.values()) {
+            removedSections[oldSection] = true;
+        }
+
+        for (int section = 0; section < removedSections.length; section++) {
+            if (removedSections[section]) {
+                diff.addOperation(Operation.TYPE_REMOVE_SECTION, section, NO_POSITION, NO_POSITION, NO_POSITION);
+            }
+        }
+
+        for (int section = 0; section < matchedSections.length; section++) {
+            int oldSection = matchedSections[section];
+            if (oldSection == NO_POSITION) {
+                diff.addOperation(Operation.TYPE_INSERT_SECTION, NO_POSITION, NO_POSITION, section, NO_POSITION);
+            } else if (!keptSections[section]) {
+                diff.addOperation(Operation.TYPE_MOVE_SECTION, oldSection, NO_POSITION, section, NO_POSITION);
+            }
+        }
+
+        for (int section = 0; section < matchedSections.length; section++) {
+            int oldSection = matchedSections[section];
+            if (oldSection == NO_POSITION) {
+                continue;
+            }
+
+            if (headers) {
+                diff.match(oldStarts[oldSection], newStarts[section], !keptSections[section]);
+            }
+
+            diff.diffSection(oldSections.get(oldSection),
+                             newSections.get(section),
+                             oldSection,
+                             section,
+                             oldStarts[oldSection] + headerCount,
+                             newStarts[section] + headerCount,
+                             !keptSections[section]);
+        }
+
+        diff.mMaxUpdateCount = diff.countMaxUpdates();
+
+        return diff;
+    }
+
+    /**
+     * Gets the section and element operations of this diff. Section operations come first.
+     * @return Unmodifiable list of operations.
+     */
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(mOperations);
+    }
+
+    /**
+     * Determines if the old and new sections differ.
+     * @return {@code true} if anything was inserted, removed or moved, {@code false} otherwise.
+     */
+    public boolean hasChanges() {
+        return !mOperations.isEmpty();
+    }
+
+    /**
+     * Gets the most updates {@link #dispatchUpdates(Callback)} reports, counting each run of inserts or
+     * removes once and each moved row twice. This is computed once, when the diff is calculated, so callers
+     * can choose between item updates and one data set change without replaying the diff.
+     * @return Upper bound on the number of updates.
+     */
+    public int getMaxUpdateCount() {
+        return mMaxUpdateCount;
+    }
+
+    /**
+     * Gets the number of flat positions in the old sections.
+     * @return Number of old positions.
+     */
+    public int getOldCount() {
+        return mOldToNew.length;
+    }
+
+    /**
+     * Gets the number of flat positions in the new sections.
+     * @return Number of new positions.
+     */
+    public int getNewCount() {
+        return mNewToOld.length;
+    }
+
+    /**
+     * Gets the new flat position of the row at the given old flat position.
+     * @param oldPosition Old position.
+     * @return New position or -1 if the row was removed or the position is out of range.
+     */
+    public int getNewPosition(int oldPosition) {
+        if (oldPosition < 0 || oldPosition >= mOldToNew.length) {
+            return NO_POSITION;
+        }
+
+        return mOldToNew[oldPosition];
+    }
+
+    /**
+     * Gets the old flat position of the row at the given new flat position.
+     * @param newPosition New position.
+     * @return Old position or -1 if the row was inserted or the position is out of range.
+     */
+    public int getOldPosition(int newPosition) {
+        if (newPosition < 0 || newPosition >= mNewToOld.length) {
+            return NO_POSITION;
+        }
+
+        return mNewToOld[newPosition];
+    }
+
+    /**
+     * Gets the new flat position to keep a list scrolled to after the change, given the old flat position
+     * it was scrolled to. This is the new position of that row or, if it was removed, of the nearest row
+     * before it that was kept.
+     * @param oldPosition Old position the list was scrolled to.
+     * @return New position to scroll to, or -1 if there are no new positions.
+     */
+    public int getAnchorPosition(int oldPosition) {
+        if (mNewToOld.length == 0) {
+            return NO_POSITION;
+        }
+
+        for (int position = Math.min(oldPosition, mOldToNew.length - 1); position >= 0; position--) {
+            if (mOldToNew[position] != NO_POSITION) {
+                return mOldToNew[position];
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * <p>
+     *     Replays this diff as flat list position updates on the given {@link Callback}.
+     * </p>
+     *
+     * <p>
+     *     Removed rows are removed back to front, then every moved row is moved to the end of the list,
+     *     leaving kept rows in their new order. Walking the new positions front to back then inserts
+     *     new rows and moves each moved row into place, so a moved row takes at most two moves. Runs of
+     *     inserts and removes are reported as one update. This is O(n + m log m) for n positions and
+     *     m moved rows.
+     * </p>
+     * @param callback Callback to receive the updates.
+     */
+    public void dispatchUpdates(Callback callback) {
+        int removedCount = 0;
+        for (int position = mOldToNew.length - 1; position >= 0; position--) {
+            if (mOldToNew[position] == NO_POSITION) {
+                int end = position;
+                while (position > 0 && mOldToNew[position - 1] == NO_POSITION) {
+                    position--;
+                }
+
+                callback.onRemoved(position, end - position + 1);
+                removedCount += end - position + 1;
+            }
+        }
+
+        // Moved rows go to the end in old order, each one's ordinal is its place in that tail
+        int size = mOldToNew.length - removedCount;
+        int[] movedOrdinals = new int[mOldToNew.length];
+        int movedCount = 0;
+        int removedBefore = 0;
+        for (int position = 0; position < mOldToNew.length; position++) {
+            int newPosition = mOldToNew[position];
+            if (newPosition == NO_POSITION) {
+                removedBefore++;
+            } else if (mMoved.get(newPosition)) {
+                int current = position - removedBefore - movedCount;
+                if (current != size - 1) {
+                    callback.onMoved(current, size - 1);
+                }
+
+                movedOrdinals[position] = movedCount++;
+            }
+        }
+
+        int[] tailCounts = new int[movedCount];
+        Arrays.fill(tailCounts, 1);
+        FenwickTree tail = new FenwickTree(tailCounts);
+
+        // Rows before the current position are final, kept rows follow in order, then the tail
+        int keptRemaining = size - movedCount;
+        int position = 0;
+        while (position < mNewToOld.length) {
+            int oldPosition = mNewToOld[position];
+            if (oldPosition == NO_POSITION) {
+                int start = position;
+                while (position < mNewToOld.length && mNewToOld[position] == NO_POSITION) {
+                    position++;
+                }
+
+                callback.onInserted(start, position - start);
+                continue;
+            }
+
+            if (mMoved.get(position)) {
+                int ordinal = movedOrdinals[oldPosition];
+                int current = position + keptRemaining + tail.prefixSum(ordinal);
+                if (current != position) {
+                    callback.onMoved(current, position);
+                }
+
+                tail.add(ordinal, -1);
+            } else {
+                keptRemaining--;
+            }
+
+            position++;
+        }
+    }
+
+    /**
+     * Diffs the elements of two sections with the same key.
+     * @param oldSection Section before the change.
+     * @param newSection Section after the change.
+     * @param oldIndex Index of the old section.
+     * @param newIndex Index of the new section.
+     * @param oldBase Flat position of the old section's first element.
+     * @param newBase Flat position of the new section's first element.
+     * @param sectionMoved {@code true} if the section itself moved, so all its rows moved.
+     */
+    private <E> void diffSection(List<E> oldSection,
+                                 List<E> newSection,
+                                 int oldIndex,
+                                 int newIndex,
+                                 int oldBase,
+                                 int newBase,
+                                 boolean sectionMoved) {
+        int oldSize = oldSection.size();
+        int newSize = newSection.size();
+
+        // Leading and trailing runs of equal elements are kept without hashing
+        int start = 0;
+        int shorter = Math.min(oldSize, newSize);
+        while (start < shorter && equal(oldSection.get(start), newSection.get(start))) {
+            match(oldBase + start, newBase + start, sectionMoved);
+            start++;
+        }
+
+        int oldEnd = oldSize;
+        int newEnd = newSize;
+        while (oldEnd > start && newEnd > start && equal(oldSection.get(oldEnd - 1), newSection.get(newEnd - 1))) {
+            oldEnd--;
+            newEnd--;
+            match(oldBase + oldEnd, newBase + newEnd, sectionMoved);
+        }
+
+        if (start == oldEnd && start == newEnd) {
+            return;
+        }
+
+        // Chain old elements by value, so repeated elements match in order
+        int oldLength = oldEnd - start;
+        int[] nextSame = new int[oldLength];
+        Map<E, Integer> firstIndices = new HashMap<E, Integer>(oldLength * 2);
+        for (int index = oldLength - 1; index >= 0; index--) {
+            Integer next = firstIndices.put(oldSection.get(start + index), index);
+            nextSame[index] = next == null ? NO_POSITION : next;
+        }
+
+        int newLength = newEnd - start;
+        int[] matches = new int[newLength];
+        boolean[] oldMatched = new boolean[oldLength];
+        for (int index = 0; index < newLength; index++) {
+            E element = newSection.get(start + index);
+            Integer oldMatch = firstIndices.get(element);
+            if (oldMatch == null) {
+                matches[index] = NO_POSITION;
+                continue;
+            }
+
+            matches[index] = oldMatch;
+            oldMatched[oldMatch] = true;
+            if (nextSame[oldMatch] == NO_POSITION) {
+                firstIndices.remove(element);
+            } else {
+                firstIndices.put(element, nextSame[oldMatch]);
+            }
+        }
+
+        for (int index = 0; index < oldLength; index++) {
+            if (!oldMatched[index]) {
+                addOperation(Operation.TYPE_REMOVE, oldIndex, start + index, NO_POSITION, NO_POSITION);
+            }
+        }
+
+        boolean[] kept = getIncreasingRun(matches, newLength);
+        for (int index = 0; index < newLength; index++) {
+            int oldMatch = matches[index];
+            if (oldMatch == NO_POSITION) {
+                addOperation(Operation.TYPE_INSERT, NO_POSITION, NO_POSITION, newIndex, start + index);
+                continue;
+            }
+
+            if (!kept[index]) {
+                addOperation(Operation.TYPE_MOVE, oldIndex, start + oldMatch, newIndex, start + index);
+            }
+
+            match(oldBase + start + oldMatch, newBase + start + index, sectionMoved || !kept[index]);
+        }
+    }
+
+    /**
+     * Records that the row at the given old flat position is the row at the given new flat position.
+     * @param oldPosition Old position.
+     * @param newPosition New position.
+     * @param moved {@code true} if the row moved relative to the kept rows, {@code false} otherwise.
+     */
+    private void match(int oldPosition, int newPosition, boolean moved) {
+        mOldToNew[oldPosition] = newPosition;
+        mNewToOld[newPosition] = oldPosition;
+        if (moved) {
+            mMoved.set(newPosition);
+        }
+    }
+
+    /**
+     * Counts the runs of removed and inserted positions, plus two moves per moved row, which bounds
+     * the updates reported by {@link #dispatchUpdates(Callback)}.
+     * @return Upper bound on the number of updates.
+     */
+    private int countMaxUpdates() {
+        int count = 2 * mMoved.cardinality();
+        for (int position = 0; position < mOldToNew.length; position++) {
+            if (mOldToNew[position] == NO_POSITION && (position == 0 || mOldToNew[position - 1] != NO_POSITION)) {
+                count++;
+            }
+        }
+
+        for (int position = 0; position < mNewToOld.length; position++) {
+            if (mNewToOld[position] == NO_POSITION && (position == 0 || mNewToOld[position - 1] != NO_POSITION)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds an operation, merging it into the last one when it continues it.
+     * @param type Type of the operation.
+     * @param fromSection Old section index or -1.
+     * @param fromPosition Old child position or -1.
+     * @param toSection New section index or -1.
+     * @param toPosition New child position or -1.
+     */
+    private void addOperation(int type, int fromSection, int fromPosition, int toSection, int toPosition) {
+        if (!mOperations.isEmpty()) {
+            Operation last = mOperations.get(mOperations.size() - 1);
+            if (last.isContinuedBy(type, fromSection, fromPosition, toSection, toPosition)) {
+                last.mCount++;
+                return;
+            }
+        }
+
+        mOperations.add(new Operation(type, fromSection, fromPosition, toSection, toPosition));
+    }
+
+    /**
+     * Determines if any of the given sections is paged, see {@link PagedIndexableList#isPaged(List)}.
+     * @param sections Sections to check.
+     * @return {@code true} if a section is paged, {@code false} otherwise.
+     */
+    private static boolean hasPagedSection(List<? extends IndexableList<?, ?>> sections) {
+        for (IndexableList<?, ?> section : sections) {
+            if (PagedIndexableList.isPaged(section)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the flat start position of each of the given sections, followed by the total number of positions.
+     * @param sections Sections to measure.
+     * @param headerCount Number of header positions per section.
+     * @return Start positions, one more than the number of sections.
+     */
+    private static int[] getSectionStarts(List<? extends IndexableList<?, ?>> sections, int headerCount) {
+        int[] starts = new int[sections.size() + 1];
+        for (int section = 0; section < sections.size(); section++) {
+            starts[section + 1] = starts[section] + sections.get(section).size() + headerCount;
+        }
+
+        return starts;
+    }
+
+    /**
+     * Finds a longest strictly increasing run of the non-negative values in the given array by patience
+     * sorting, in O(n log n).
+     * @param values Values to search, -1 entries are skipped.
+     * @param length Number of values to search.
+     * @return Flags marking the values on the run.
+     */
+    private static boolean[] getIncreasingRun(int[] values, int length) {
+        // tails[k] is the index of the smallest value ending a run of length k + 1
+        int[] tails = new int[length];
+        int[] previous = new int[length];
+        int runLength = 0;
+        for (int index = 0; index < length; index++) {
+            int value = values[index];
+            if (value == NO_POSITION) {
+                continue;
+            }
+
+            int low = 0;
+            int high = runLength;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[tails[middle]] < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            previous[index] = low > 0 ? tails[low - 1] : NO_POSITION;
+            tails[low] = index;
+            if (low == runLength) {
+                runLength++;
+            }
+        }
+
+        boolean[] run = new boolean[length];
+        for (int index = runLength > 0 ? tails[runLength - 1] : NO_POSITION; index != NO_POSITION; index = previous[index]) {
+            run[index] = true;
+        }
+
+        return run;
+    }
+
+    /**
+     * Determines if the given elements are equal, allowing {@code null}.
+     * @param first First element.
+     * @param second Second element.
+     * @return {@code true} if the elements are equal, {@code false} otherwise.
+     */
+    private static boolean equal(Object first, Object second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+}
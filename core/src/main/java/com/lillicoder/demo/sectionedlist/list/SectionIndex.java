@@ -0,0 +1,317 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * <p>
+ *     Maps between flat list positions and sections for a collection of sections.
+ * </p>
+ *
+ * <p>
+ *     Each section covers its elements plus, optionally, one header position at its start.
+ *     Section sizes are kept in a {@link FenwickTree}, so lookups and size updates are
+ *     O(log S) for S sections. This class mirrors {@code android.widget.SectionIndexer}
+ *     without depending on it, so it can be used off Android and wrapped by widgets.
+ * </p>
+ *
+ * <p>
+ *     Sections can be collapsed, which hides their elements but keeps their header. Collapsed sections
+ *     are kept in a {@link BitSet} and covered by the same tree, so collapsing or expanding a section is
+ *     O(log S) and positions, sizes and lookups always reflect the current state. A second tree keeps
+ *     every section's full size, so positions computed as if every section were expanded can still be
+ *     mapped, see {@link #getPositionForExpandedPosition(int)}.
+ * </p>
+ */
+public class SectionIndex {
+
+    private static final String PRECONDITION_NULL_SECTIONS =
+        "Cannot instantiate a section index with null sections.";
+    private static final String PRECONDITION_MISMATCHED_SIZES =
+        "Cannot instantiate a section index with %d sections and %d section sizes.";
+
+    private static final int INVALID_POSITION = -1;
+    private static final int INVALID_SECTION = -1;
+
+    private Object[] mSections;
+    // Positions shown per section, and positions per section as if every section were expanded
+    private FenwickTree mSectionCounts;
+    private FenwickTree mExpandedCounts;
+    private BitSet mCollapsed;
+    private int mHeaderCount;
+
+    /**
+     * Instantiates this index with the given section objects and sizes.
+     * @param sections Section objects, typically labels, reported by {@link #getSections()}.
+     * @param sectionSizes Number of elements in each section, not counting headers.
+     * @param headers {@code true} if each section starts with a header position, {@code false} otherwise.
+     */
+    public SectionIndex(Object[] sections, int[] sectionSizes, boolean headers) {
+        if (sections == null || sectionSizes == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_SECTIONS);
+        }
+
+        if (sections.length != sectionSizes.length) {
+            throw new IllegalArgumentException(
+                String.format(PRECONDITION_MISMATCHED_SIZES, sections.length, sectionSizes.length));
+        }
+
+        mSections = sections;
+        mHeaderCount = headers ? 1 : 0;
+
+        int[] sectionCounts = new int[sectionSizes.length];
+        for (int index = 0; index < sectionSizes.length; index++) {
+            sectionCounts[index] = sectionSizes[index] + mHeaderCount;
+        }
+
+        mSectionCounts = new FenwickTree(sectionCounts);
+        mExpandedCounts = new FenwickTree(sectionCounts);
+        mCollapsed = new BitSet(sectionSizes.length);
+    }
+
+    /**
+     * Instantiates this index as a copy of the given index, including which sections are collapsed.
+     * Copying is O(S) for S sections and never touches the sections themselves; the section objects
+     * are shared. Later updates to either index do not affect the other.
+     * @param index Index to copy.
+     */
+    public SectionIndex(SectionIndex index) {
+        mSections = index.mSections;
+        mHeaderCount = index.mHeaderCount;
+        mSectionCounts = new FenwickTree(index.mSectionCounts);
+        mExpandedCounts = new FenwickTree(index.mExpandedCounts);
+        mCollapsed = (BitSet) index.mCollapsed.clone();
+    }
+
+    /**
+     * Creates an index for the given {@link List} of {@link IndexableList}. Each list's label is
+     * used as its section object.
+     * @param sections List of indexable lists, where each indexable list represents a section.
+     * @param headers {@code true} if each section starts with a header position, {@code false} otherwise.
+     * @return Index for the given sections.
+     */
+    public static SectionIndex forSections(List<? extends IndexableList<?, ?>> sections, boolean headers) {
+        if (sections == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_SECTIONS);
+        }
+
+        Object[] labels = new Object[sections.size()];
+        int[] sizes = new int[labels.length];
+        for (int index = 0; index < labels.length; index++) {
+            IndexableList<?, ?> section = sections.get(index);
+            labels[index] = section.getLabel();
+            sizes[index] = section.size();
+        }
+
+        return new SectionIndex(labels, sizes, headers);
+    }
+
+    /**
+     * Determines if each section in this index starts with a header position.
+     * @return {@code true} if sections have headers, {@code false} otherwise.
+     */
+    public boolean hasHeaders() {
+        return mHeaderCount > 0;
+    }
+
+    /**
+     * Gets the section objects for this index.
+     * @return Section objects.
+     */
+    public Object[] getSections() {
+        return mSections;
+    }
+
+    /**
+     * Gets the number of sections in this index.
+     * @return Number of sections.
+     */
+    public int getSectionCount() {
+        return mSections.length;
+    }
+
+    /**
+     * Gets the total number of positions covered by this index, including any headers. Elements of
+     * collapsed sections are not counted.
+     * @return Number of positions.
+     */
+    public int getPositionCount() {
+        return mSectionCounts.sum();
+    }
+
+    /**
+     * Gets the number of positions covered by every section as if every section were expanded.
+     * @return Number of expanded positions.
+     */
+    public int getExpandedPositionCount() {
+        return mExpandedCounts.sum();
+    }
+
+    /**
+     * Gets the number of elements in the given section, not counting its header.
+     * @param section Index of the section.
+     * @return Number of elements in the section.
+     */
+    public int getSectionSize(int section) {
+        return mExpandedCounts.get(section) - mHeaderCount;
+    }
+
+    /**
+     * Gets the number of elements shown for the given section, not counting its header.
+     * @param section Index of the section.
+     * @return Number of elements in the section, or 0 if it is collapsed.
+     */
+    public int getVisibleSectionSize(int section) {
+        return mSectionCounts.get(section) - mHeaderCount;
+    }
+
+    /**
+     * Updates the number of elements in the given section in O(log S). The section stays collapsed
+     * or expanded.
+     * @param section Index of the section to update.
+     * @param size New number of elements in the section, not counting its header.
+     */
+    public void setSectionSize(int section, int size) {
+        mExpandedCounts.set(section, size + mHeaderCount);
+        if (!mCollapsed.get(section)) {
+            mSectionCounts.set(section, size + mHeaderCount);
+        }
+    }
+
+    /**
+     * Determines if the given section is collapsed.
+     * @param section Index of the section.
+     * @return {@code true} if the section's elements are hidden, {@code false} otherwise.
+     */
+    public boolean isCollapsed(int section) {
+        return mCollapsed.get(section);
+    }
+
+    /**
+     * Gets the number of collapsed sections.
+     * @return Number of collapsed sections.
+     */
+    public int getCollapsedCount() {
+        return mCollapsed.cardinality();
+    }
+
+    /**
+     * Collapses or expands the given section in O(log S). A collapsed section only covers its header
+     * position, if any.
+     * @param section Index of the section.
+     * @param collapsed {@code true} to hide the section's elements, {@code false} to show them.
+     */
+    public void setCollapsed(int section, boolean collapsed) {
+        if (mCollapsed.get(section) == collapsed) {
+            return;
+        }
+
+        mCollapsed.set(section, collapsed);
+        mSectionCounts.set(section, collapsed ? mHeaderCount : mExpandedCounts.get(section));
+    }
+
+    /**
+     * Collapses or expands every section. The tree is rebuilt in O(S) rather than updated once per section.
+     * @param collapsed {@code true} to hide every section's elements, {@code false} to show them.
+     */
+    public void setAllCollapsed(boolean collapsed) {
+        int[] sectionCounts = new int[mSections.length];
+        for (int section = 0; section < sectionCounts.length; section++) {
+            sectionCounts[section] = collapsed ? mHeaderCount : mExpandedCounts.get(section);
+        }
+
+        mSectionCounts = new FenwickTree(sectionCounts);
+        if (collapsed) {
+            mCollapsed.set(0, mSections.length);
+        } else {
+            mCollapsed.clear();
+        }
+    }
+
+    /**
+     * Maps a position computed as if every section were expanded to the position it is shown at, in O(log S).
+     * @param expandedPosition Position as if every section were expanded.
+     * @return Shown position, or -1 if the position is in a collapsed section or out of range.
+     */
+    public int getPositionForExpandedPosition(int expandedPosition) {
+        int section = mExpandedCounts.find(expandedPosition);
+        if (section < 0) {
+            return INVALID_POSITION;
+        }
+
+        int offset = expandedPosition - mExpandedCounts.prefixSum(section);
+        if (mCollapsed.get(section) && offset >= mHeaderCount) {
+            return INVALID_POSITION;
+        }
+
+        return mSectionCounts.prefixSum(section) + offset;
+    }
+
+    /**
+     * Maps a shown position to the position it would have if every section were expanded, in O(log S).
+     * @param position Shown position.
+     * @return Position as if every section were expanded, or -1 if the position is out of range.
+     */
+    public int getExpandedPositionForPosition(int position) {
+        int section = mSectionCounts.find(position);
+        if (section < 0) {
+            return INVALID_POSITION;
+        }
+
+        return mExpandedCounts.prefixSum(section) + position - mSectionCounts.prefixSum(section);
+    }
+
+    /**
+     * Gets the first position of the given section. If sections have headers, this is the header position.
+     * @param section Index of the section.
+     * @return Starting position of the section or -1 if the section is out of range.
+     */
+    public int getPositionForSection(int section) {
+        if (section < 0 || section >= mSections.length) {
+            return INVALID_POSITION;
+        }
+
+        return mSectionCounts.prefixSum(section);
+    }
+
+    /**
+     * Gets the first position of the given section as if every section were expanded, in O(log S).
+     * @param section Index of the section.
+     * @return Expanded starting position of the section or -1 if the section is out of range.
+     */
+    public int getExpandedPositionForSection(int section) {
+        if (section < 0 || section >= mSections.length) {
+            return INVALID_POSITION;
+        }
+
+        return mExpandedCounts.prefixSum(section);
+    }
+
+    /**
+     * Gets the section containing the given position.
+     * @param position Position to find.
+     * @return Index of the section or -1 if the position is out of range.
+     */
+    public int getSectionForPosition(int position) {
+        int section = mSectionCounts.find(position);
+        return section >= 0 ? section : INVALID_SECTION;
+    }
+
+}
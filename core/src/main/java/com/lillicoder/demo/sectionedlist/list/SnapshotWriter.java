@@ -0,0 +1,166 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * <p>
+ *     Writes sections of strings to a snapshot file that can be memory-mapped by {@link MappedSnapshot}.
+ * </p>
+ *
+ * <p>
+ *     Each section's key and label are written with {@link Object#toString()}. See {@link MappedSnapshot}
+ *     for the file layout.
+ * </p>
+ */
+public final class SnapshotWriter {
+
+    private static final String PRECONDITION_NULL_SECTIONS =
+        "Cannot write a snapshot of null sections.";
+    private static final String PRECONDITION_NULL_FILE =
+        "Cannot write a snapshot to a null file.";
+
+    private static final String ERROR_DELETE_FAILED =
+        "Cannot replace snapshot %s, it could not be deleted.";
+    private static final String ERROR_RENAME_FAILED =
+        "Cannot rename %s to %s.";
+
+    private SnapshotWriter() {
+    }
+
+    /**
+     * Writes the given sections to the given {@link File}. The snapshot is written to a temporary
+     * file next to the target and then renamed, so readers never see a partial snapshot. An existing
+     * file is deleted just before the rename, since {@link File#renameTo(File)} does not replace files
+     * on every platform; the temporary file is left in place if that fails.
+     * @param sections Sections to write.
+     * @param file File to write to.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public static void write(List<? extends IndexableList<?, ? extends CharSequence>> sections, File file)
+        throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_FILE);
+        }
+
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        OutputStream output = new FileOutputStream(temporaryFile);
+        try {
+            write(sections, output);
+        } finally {
+            output.close();
+        }
+
+        if (file.exists() && !file.delete()) {
+            throw new IOException(String.format(ERROR_DELETE_FAILED, file));
+        }
+
+        if (!temporaryFile.renameTo(file)) {
+            throw new IOException(String.format(ERROR_RENAME_FAILED, temporaryFile, file));
+        }
+    }
+
+    /**
+     * Writes the given sections to the given {@link OutputStream}. The stream is not closed.
+     * @param sections Sections to write.
+     * @param output Stream to write to.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public static void write(List<? extends IndexableList<?, ? extends CharSequence>> sections, OutputStream output)
+        throws IOException {
+        if (sections == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_SECTIONS);
+        }
+
+        int sectionCount = sections.size();
+        int elementCount = 0;
+        for (IndexableList<?, ? extends CharSequence> section : sections) {
+            elementCount += section.size();
+        }
+
+        // Encode every string up front, keys and labels first so the pool can be written in one pass
+        byte[][] sectionStrings = new byte[sectionCount * 2][];
+        byte[][] elements = new byte[elementCount][];
+        int poolLength = 0;
+        for (int section = 0; section < sectionCount; section++) {
+            IndexableList<?, ? extends CharSequence> list = sections.get(section);
+            sectionStrings[section * 2] = encode(list.getKey());
+            sectionStrings[section * 2 + 1] = encode(list.getLabel());
+            poolLength += sectionStrings[section * 2].length + sectionStrings[section * 2 + 1].length;
+        }
+
+        int elementPoolStart = poolLength;
+        int element = 0;
+        for (IndexableList<?, ? extends CharSequence> section : sections) {
+            for (CharSequence item : section) {
+                elements[element] = encode(item);
+                poolLength += elements[element].length;
+                element++;
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+        data.writeInt(MappedSnapshot.MAGIC);
+        data.writeInt(MappedSnapshot.VERSION);
+        data.writeInt(sectionCount);
+        data.writeInt(elementCount);
+        data.writeInt(poolLength);
+
+        // Section table
+        int stringOffset = 0;
+        int start = 0;
+        for (int section = 0; section < sectionCount; section++) {
+            for (int string = section * 2; string <= section * 2 + 1; string++) {
+                data.writeInt(stringOffset);
+                data.writeInt(sectionStrings[string].length);
+                stringOffset += sectionStrings[string].length;
+            }
+
+            int count = sections.get(section).size();
+            data.writeInt(start);
+            data.writeInt(count);
+            start += count;
+        }
+
+        // Element offsets, as prefix sums of encoded lengths
+        int elementOffset = elementPoolStart;
+        data.writeInt(elementOffset);
+        for (byte[] bytes : elements) {
+            elementOffset += bytes.length;
+            data.writeInt(elementOffset);
+        }
+
+        // String pool
+        for (byte[] bytes : sectionStrings) {
+            data.write(bytes);
+        }
+
+        for (byte[] bytes : elements) {
+            data.write(bytes);
+        }
+
+        data.flush();
+    }
+
+    private static byte[] encode(Object value) {
+        return String.valueOf(value).getBytes(MappedSnapshot.UTF_8);
+    }
+
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ *     Splits pre-sorted elements into sections without copying them.
+ * </p>
+ *
+ * <p>
+ *     Each section is an {@link IndexableList} backed by a {@link List#subList(int, int)} view over
+ *     one shared backing list, so a section is only a start and end range. Section boundaries are
+ *     found by exponential search, so splitting n elements into S sections takes O(S log(n / S))
+ *     key lookups rather than one per element.
+ * </p>
+ *
+ * <p>
+ *     Sections share the backing list, so it must not be changed while they are in use. Changing one
+ *     section in place would shift every later section, so adapters treat these sections as read-only
+ *     and copy a section before adding or removing its elements.
+ * </p>
+ */
+public final class SortedSections {
+
+    private static final String PRECONDITION_NULL_ELEMENTS =
+        "Cannot split null elements into sections.";
+    private static final String PRECONDITION_NULL_SELECTOR =
+        "Cannot split elements into sections with a null key selector.";
+
+    private SortedSections() {
+    }
+
+    /**
+     * Splits the given array into sections. The array is wrapped, not copied.
+     * @param sorted Elements sorted by their section key.
+     * @param selector Selector for each element's section key.
+     * @return List of indexable lists, one per distinct key, in key order.
+     */
+    public static <K extends Comparable<K>, E> List<IndexableList<K, E>> split(E[] sorted, KeySelector<K, E> selector) {
+        if (sorted == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_ELEMENTS);
+        }
+
+        return split(Arrays.asList(sorted), selector);
+    }
+
+    /**
+     * Splits the given list into sections. Each section is a view over a range of the given list,
+     * which should support fast random access and must not be structurally modified afterwards.
+     * @param sorted Elements sorted by their section key.
+     * @param selector Selector for each element's section key.
+     * @return List of indexable lists, one per distinct key, in key order.
+     */
+    public static <K extends Comparable<K>, E> List<IndexableList<K, E>> split(List<E> sorted,
+                                                                             KeySelector<K, E> selector) {
+        if (sorted == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_ELEMENTS);
+        }
+
+        if (selector == null) {
+            throw new IllegalArgumentException(PRECONDITION_NULL_SELECTOR);
+        }
+
+        List<IndexableList<K, E>> sections = new ArrayList<IndexableList<K, E>>();
+
+        int start = 0;
+        while (start < sorted.size()) {
+            K key = selector.getKey(sorted.get(start));
+            int end = findSectionEnd(sorted, selector, key, start);
+
+            sections.add(new IndexableList<K, E>(key, key.toString(), sorted.subList(start, end)));
+            start = end;
+        }
+
+        return sections;
+    }
+
+    /**
+     * Finds the end of the section with the given key.
+     * @param sorted Elements sorted by their section key.
+     * @param selector Selector for each element's section key.
+     * @param key Key of the section.
+     * @param start Position of the section's first element.
+     * @return Position after the section's last element.
+     */
+    private static <K extends Comparable<K>, E> int findSectionEnd(List<E> sorted,
+                                                                 KeySelector<K, E> selector,
+                                                                 K key,
+                                                                 int start) {
+        // Gallop forward until we pass the section, positions in (low, high) are left to search
+        int low = start;
+        int step = 1;
+        int high = start + step;
+        while (high < sorted.size() && key.compareTo(selector.getKey(sorted.get(high))) == 0) {
+            low = high;
+            step <<= 1;
+            high = start + step;
+        }
+
+        high = Math.min(high, sorted.size());
+
+        // Binary search for the first position whose key differs
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (key.compareTo(selector.getKey(sorted.get(middle))) == 0) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+
+        return high;
+    }
+
+}
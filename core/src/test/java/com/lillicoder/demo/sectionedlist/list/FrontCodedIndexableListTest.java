@@ -0,0 +1,109 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link FrontCodedIndexableList}.
+ */
+public class FrontCodedIndexableListTest {
+
+    @Test
+    public void roundTripsElements() {
+        List<String> elements = Arrays.asList("", "a", "ab", "abc", "abd", "b", "Übermensch", "Überzug", "日本", "日本語");
+        for (int blockSize : new int[] { 1, 2, 3, FrontCodedIndexableList.DEFAULT_BLOCK_SIZE }) {
+            FrontCodedIndexableList<String> list = new FrontCodedIndexableList<String>("k", "k", elements, blockSize);
+
+            assertEquals(elements.size(), list.size());
+            assertEquals(elements, new ArrayList<String>(list));
+        }
+    }
+
+    @Test
+    public void roundTripsRandomElements() {
+        Random random = new Random(42L);
+        List<String> elements = new ArrayList<String>();
+        for (int index = 0; index < 2000; index++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int character = 0; character < length; character++) {
+                // Mostly ASCII, with some two and three byte characters
+                builder.append(random.nextInt(8) == 0 ? (char) (0xC0 + random.nextInt(0x3000)) : (char) ('a' + random.nextInt(4)));
+            }
+
+            elements.add(builder.toString());
+        }
+
+        Collections.sort(elements);
+        FrontCodedIndexableList<String> list = new FrontCodedIndexableList<String>("k", "k", elements, 7);
+
+        // Read out of order, so each element is decoded from its block's start
+        for (int index = elements.size() - 1; index >= 0; index--) {
+            assertEquals(elements.get(index), list.get(index));
+        }
+    }
+
+    @Test
+    public void sortedElementsCompress() {
+        List<String> elements = new ArrayList<String>();
+        int rawSize = 0;
+        for (int index = 0; index < 1000; index++) {
+            String element = String.format("contact-name-%06d", index);
+            elements.add(element);
+            rawSize += element.length();
+        }
+
+        FrontCodedIndexableList<String> list = new FrontCodedIndexableList<String>("k", "k", elements);
+        assertTrue(String.valueOf(list.getEncodedSize()), list.getEncodedSize() < rawSize / 2);
+    }
+
+    @Test
+    public void roundTripsNoElements() {
+        FrontCodedIndexableList<String> list =
+            new FrontCodedIndexableList<String>("k", "k", Collections.<String>emptyList());
+
+        assertEquals(0, list.size());
+        assertTrue(list.isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsPositionPastEnd() {
+        new FrontCodedIndexableList<String>("k", "k", Arrays.asList("a", "b")).get(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveBlockSize() {
+        new FrontCodedIndexableList<String>("k", "k", Arrays.asList("a"), 0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void isReadOnly() {
+        new FrontCodedIndexableList<String>("k", "k", Arrays.asList("a")).add("b");
+    }
+
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link MappedSnapshot} and {@link SnapshotWriter}.
+ */
+public class MappedSnapshotTest {
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("sections", ".snapshot");
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    @Test
+    public void roundTripsSections() throws IOException {
+        List<IndexableList<String, String>> sections = new ArrayList<IndexableList<String, String>>();
+        sections.add(section("A", "Aardvark", "Antelope"));
+        sections.add(section("B"));
+        sections.add(section("Ü", "Übermensch", "", "Ünïcödé"));
+
+        SnapshotWriter.write(sections, mFile);
+        List<IndexableList<String, String>> read = MappedSnapshot.open(mFile).getSections();
+
+        assertEquals(sections.size(), read.size());
+        for (int section = 0; section < sections.size(); section++) {
+            IndexableList<String, String> expected = sections.get(section);
+            IndexableList<String, String> actual = read.get(section);
+            assertEquals(expected.getKey(), actual.getKey());
+            assertEquals(expected.getLabel().toString(), actual.getLabel().toString());
+            assertEquals(new ArrayList<String>(expected), new ArrayList<String>(actual));
+        }
+    }
+
+    @Test
+    public void roundTripsNoSections() throws IOException {
+        SnapshotWriter.write(new ArrayList<IndexableList<String, String>>(), mFile);
+
+        assertEquals(0, MappedSnapshot.open(mFile).getSections().size());
+    }
+
+    @Test
+    public void createsIndexForSections() throws IOException {
+        SnapshotWriter.write(Arrays.asList(section("A", "Ant"), section("B", "Bee", "Bat")), mFile);
+        SectionIndex index = MappedSnapshot.open(mFile).createIndex(true);
+
+        assertEquals(5, index.getPositionCount());
+        assertEquals(2, index.getPositionForSection(1));
+    }
+
+    @Test
+    public void rejectsWrongMagic() throws IOException {
+        writeValidSnapshot();
+        overwriteInt(0, 0);
+
+        assertOpenFails();
+    }
+
+    @Test
+    public void rejectsTruncatedFile() throws IOException {
+        writeValidSnapshot();
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            file.setLength(file.length() - 1);
+        } finally {
+            file.close();
+        }
+
+        assertOpenFails();
+    }
+
+    @Test
+    public void rejectsKeyOutsidePool() throws IOException {
+        writeValidSnapshot();
+        overwriteInt(MappedSnapshot.HEADER_SIZE, Integer.MAX_VALUE);
+
+        assertOpenFails();
+    }
+
+    @Test
+    public void rejectsSectionPastElementCount() throws IOException {
+        writeValidSnapshot();
+        overwriteInt(MappedSnapshot.HEADER_SIZE + MappedSnapshot.SECTION_ENTRY_SIZE + 20, 100);
+
+        assertOpenFails();
+    }
+
+    @Test
+    public void rejectsOverlappingSections() throws IOException {
+        writeValidSnapshot();
+        overwriteInt(MappedSnapshot.HEADER_SIZE + MappedSnapshot.SECTION_ENTRY_SIZE + 16, 0);
+
+        assertOpenFails();
+    }
+
+    @Test
+    public void rejectsElementCountNotCoveredBySections() throws IOException {
+        writeValidSnapshot();
+        overwriteInt(MappedSnapshot.HEADER_SIZE + MappedSnapshot.SECTION_ENTRY_SIZE + 20, 0);
+
+        assertOpenFails();
+    }
+
+    @Test
+    public void replacesExistingSnapshot() throws IOException {
+        writeValidSnapshot();
+        SnapshotWriter.write(Arrays.asList(section("C", "Cat")), mFile);
+
+        List<IndexableList<String, String>> read = MappedSnapshot.open(mFile).getSections();
+        assertEquals(1, read.size());
+        assertEquals("Cat", read.get(0).get(0));
+        assertFalse(new File(mFile.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void reportsBadElementByGlobalIndex() throws IOException {
+        SnapshotWriter.write(Arrays.asList(section("A", "Ant"), section("B", "Bee", "Bat", "Bug")), mFile);
+        // Element 1, the first of section B, ends at offset 2, which is only checked when read
+        overwriteInt(MappedSnapshot.HEADER_SIZE + 2 * MappedSnapshot.SECTION_ENTRY_SIZE + 2 * 4, Integer.MAX_VALUE);
+
+        IndexableList<String, String> section = MappedSnapshot.open(mFile).getSections().get(1);
+        try {
+            section.get(0);
+            fail("Read an element outside the string pool.");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Snapshot element 1 "));
+        }
+    }
+
+    private static IndexableList<String, String> section(String key, String... elements) {
+        return new IndexableList<String, String>(key, key, new ArrayList<String>(Arrays.asList(elements)));
+    }
+
+    /**
+     * Writes two sections, of two and one elements.
+     */
+    private void writeValidSnapshot() throws IOException {
+        SnapshotWriter.write(Arrays.asList(section("A", "Ant", "Ape"), section("B", "Bee")), mFile);
+    }
+
+    private void overwriteInt(int position, int value) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            file.seek(position);
+            file.writeInt(value);
+        } finally {
+            file.close();
+        }
+    }
+
+    private void assertOpenFails() {
+        try {
+            MappedSnapshot.open(mFile);
+            fail("Opened a corrupt snapshot.");
+        } catch (IOException expected) {
+            // Corrupt snapshots are reported as I/O errors
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link NarrowingFilter}.
+ */
+public class NarrowingFilterTest {
+
+    @Test
+    public void keepsOnlySectionsWithMatches() {
+        NarrowingFilter<String, String> filter = new NarrowingFilter<String, String>(Arrays.asList(
+            section("A", "Alice", "Amy"), section("B", "Bob"), section("C"), section("D", "Dana", "Lia")));
+
+        List<IndexableList<String, String>> sections = filter.filter("LI");
+
+        assertEquals(2, sections.size());
+        assertSection(sections.get(0), "A", "Alice");
+        assertSection(sections.get(1), "D", "Lia");
+        assertEquals(2, filter.getMatchCount());
+    }
+
+    @Test
+    public void emptyQueryReturnsEverySection() {
+        List<IndexableList<String, String>> original = Arrays.asList(section("A", "Alice"), section("B"));
+        NarrowingFilter<String, String> filter = new NarrowingFilter<String, String>(original);
+        filter.filter("al");
+
+        assertEquals(original, filter.filter(""));
+        assertEquals(1, filter.getMatchCount());
+    }
+
+    @Test
+    public void matchesScanForRandomQueries() {
+        Random random = new Random(42L);
+        List<IndexableList<String, String>> original = new ArrayList<IndexableList<String, String>>();
+        for (int section = 0; section < 20; section++) {
+            List<String> elements = new ArrayList<String>();
+            int size = random.nextInt(30);
+            for (int element = 0; element < size; element++) {
+                elements.add(randomString(random, 1 + random.nextInt(8)));
+            }
+
+            original.add(new IndexableList<String, String>("k" + section, "k" + section, elements));
+        }
+
+        NarrowingFilter<String, String> filter = new NarrowingFilter<String, String>(original);
+        String query = "";
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            // Mostly extend the last query so results are narrowed, otherwise start over
+            int choice = random.nextInt(4);
+            if (choice == 0 || query.length() > 3) {
+                query = randomString(random, random.nextInt(2));
+            } else if (choice == 1 && query.length() > 0) {
+                query = query.substring(0, query.length() - 1);
+            } else {
+                query = query + randomString(random, 1);
+            }
+
+            assertSameSections("Case " + iteration, scan(original, query), filter.filter(query));
+        }
+    }
+
+    @Test
+    public void canceledFilterKeepsLastResult() {
+        List<String> elements = new ArrayList<String>();
+        for (int element = 0; element < 5000; element++) {
+            elements.add("item" + element);
+        }
+
+        List<IndexableList<String, String>> original =
+            Arrays.asList(new IndexableList<String, String>("k", "k", elements));
+        NarrowingFilter<String, String> filter = new NarrowingFilter<String, String>(original);
+        filter.filter("item1");
+
+        NarrowingFilter.CancellationSignal canceled = new NarrowingFilter.CancellationSignal() {
+            @Override
+            public boolean isCanceled() {
+                return true;
+            }
+        };
+
+        assertNull(filter.filter("item12", canceled));
+        assertEquals(scan(original, "item1").get(0).size(), filter.getMatchCount());
+        assertSameSections("", scan(original, "item12"), filter.filter("item12"));
+    }
+
+    @Test
+    public void usesGivenMatcher() {
+        NarrowingFilter.Matcher<String> prefixMatcher = new NarrowingFilter.Matcher<String>() {
+            @Override
+            public boolean matches(String element, String query) {
+                return element.startsWith(query);
+            }
+        };
+
+        NarrowingFilter<String, String> filter = new NarrowingFilter<String, String>(
+            Arrays.asList(section("A", "ab", "ba", "abc")), prefixMatcher);
+
+        assertSection(filter.filter("ab").get(0), "A", "ab", "abc");
+        assertSection(filter.filter("abc").get(0), "A", "abc");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullQuery() {
+        new NarrowingFilter<String, String>(Arrays.asList(section("A"))).filter(null);
+    }
+
+    private static IndexableList<String, String> section(String key, String... elements) {
+        return new IndexableList<String, String>(key, key, new ArrayList<String>(Arrays.asList(elements)));
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int character = 0; character < length; character++) {
+            // A small alphabet in mixed case, so queries match often and case is ignored
+            char next = (char) ('a' + random.nextInt(3));
+            builder.append(random.nextBoolean() ? Character.toUpperCase(next) : next);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Filters the given sections by testing every element, the way the filter is specified to behave.
+     */
+    private static List<IndexableList<String, String>> scan(List<IndexableList<String, String>> sections,
+                                                            String query) {
+        List<IndexableList<String, String>> result = new ArrayList<IndexableList<String, String>>();
+        for (IndexableList<String, String> section : sections) {
+            List<String> matches = new ArrayList<String>();
+            for (String element : section) {
+                if (query.isEmpty() || element.toLowerCase().contains(query.toLowerCase())) {
+                    matches.add(element);
+                }
+            }
+
+            if (query.isEmpty() || !matches.isEmpty()) {
+                result.add(new IndexableList<String, String>(section.getKey(), section.getLabel(), matches));
+            }
+        }
+
+        return result;
+    }
+
+    private static void assertSection(IndexableList<String, String> section, String key, String... elements) {
+        assertEquals(key, section.getKey());
+        assertEquals(Arrays.asList(elements), new ArrayList<String>(section));
+    }
+
+    private static void assertSameSections(String message,
+                                           List<IndexableList<String, String>> expected,
+                                           List<IndexableList<String, String>> actual) {
+        assertEquals(message, expected.size(), actual.size());
+        for (int section = 0; section < expected.size(); section++) {
+            assertEquals(message, expected.get(section).getKey(), actual.get(section).getKey());
+            assertEquals(message, new ArrayList<String>(expected.get(section)), new ArrayList<String>(actual.get(section)));
+        }
+    }
+
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link PagedIndexableList}.
+ */
+public class PagedIndexableListTest {
+
+    @Test
+    public void loadsPagesOnRead() {
+        CountingSource source = new CountingSource();
+        PagedIndexableList<String, Integer> list = new PagedIndexableList<String, Integer>("k", "k", 25, 10, 2, source);
+
+        assertEquals(25, list.size());
+        assertEquals(0, source.mLoads.get());
+
+        assertEquals(3, (int) list.get(3));
+        assertEquals(7, (int) list.get(7));
+        assertEquals(24, (int) list.get(24));
+        assertEquals(2, source.mLoads.get());
+        assertEquals(2, list.getLoadedPageCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyReadPage() {
+        CountingSource source = new CountingSource();
+        PagedIndexableList<String, Integer> list = new PagedIndexableList<String, Integer>("k", "k", 30, 10, 2, source);
+
+        list.get(0);
+        list.get(10);
+        list.get(0);
+        list.get(20);
+        assertEquals(3, source.mLoads.get());
+
+        // Page 1 was least recently read, page 0 is still loaded
+        list.get(0);
+        assertEquals(3, source.mLoads.get());
+        list.get(10);
+        assertEquals(4, source.mLoads.get());
+        assertEquals(2, list.getLoadedPageCount());
+    }
+
+    @Test
+    public void invalidateDropsPages() {
+        CountingSource source = new CountingSource();
+        PagedIndexableList<String, Integer> list = new PagedIndexableList<String, Integer>("k", "k", 10, 10, 1, source);
+
+        list.get(0);
+        list.invalidate();
+        assertEquals(0, list.getLoadedPageCount());
+
+        list.get(0);
+        assertEquals(2, source.mLoads.get());
+    }
+
+    @Test
+    public void interruptedReaderWaitsForLoadInFlight() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+        final PagedIndexableList<String, Integer> list =
+            new PagedIndexableList<String, Integer>("k", "k", 10, 10, 1, new PageSource<Integer>() {
+                @Override
+                public List<Integer> loadPage(int start, int count) {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+
+                    return range(start, count);
+                }
+            });
+
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                list.get(0);
+            }
+        });
+        loader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        final AtomicInteger read = new AtomicInteger(-1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                read.set(list.get(5));
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        reader.start();
+
+        // Let the reader start waiting, interrupt it, then finish the load
+        Thread.sleep(100);
+        reader.interrupt();
+        Thread.sleep(100);
+        release.countDown();
+
+        loader.join(5000);
+        reader.join(5000);
+        assertEquals(1, loads.get());
+        assertEquals(5, read.get());
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    public void detectsPagedLists() {
+        PagedIndexableList<String, Integer> list =
+            new PagedIndexableList<String, Integer>("k", "k", 10, 10, 1, new CountingSource());
+
+        assertTrue(PagedIndexableList.isPaged(list));
+        assertTrue(PagedIndexableList.isPaged(PatchedIndexableList.withInserted(list, 0, -1)));
+        assertFalse(PagedIndexableList.isPaged(new IndexableList<String, Integer>("k", "k", range(0, 10))));
+    }
+
+    @Test
+    public void patchingDoesNotLoadPages() {
+        CountingSource source = new CountingSource();
+        PagedIndexableList<String, Integer> list = new PagedIndexableList<String, Integer>("k", "k", 100, 10, 2, source);
+
+        IndexableList<String, Integer> patched = PatchedIndexableList.withInserted(list, 50, -1);
+        patched = PatchedIndexableList.withRemoved(patched, 0);
+        assertEquals(0, source.mLoads.get());
+
+        assertEquals(-1, (int) patched.get(49));
+        assertEquals(50, (int) patched.get(50));
+        assertEquals(1, source.mLoads.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void filterRejectsPagedSections() {
+        new NarrowingFilter<String, Integer>(pagedSections());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefixIndexRejectsPagedSections() {
+        PrefixIndex.forSections(pagedSections(), true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void diffRejectsPagedSections() {
+        SectionDiff.calculate(pagedSections(), pagedSections(), true);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsPagesOfWrongSize() {
+        PagedIndexableList<String, Integer> list =
+            new PagedIndexableList<String, Integer>("k", "k", 10, 10, 1, new PageSource<Integer>() {
+                @Override
+                public List<Integer> loadPage(int start, int count) {
+                    return range(start, count - 1);
+                }
+            });
+
+        list.get(0);
+    }
+
+    private static List<IndexableList<String, Integer>> pagedSections() {
+        IndexableList<String, Integer> section =
+            new PagedIndexableList<String, Integer>("k", "k", 10, 10, 1, new CountingSource());
+
+        return Collections.singletonList(section);
+    }
+
+    private static List<Integer> range(int start, int count) {
+        List<Integer> elements = new ArrayList<Integer>(count);
+        for (int element = start; element < start + count; element++) {
+            elements.add(element);
+        }
+
+        return elements;
+    }
+
+    /**
+     * Page source of the integers from 0 that counts its loads.
+     */
+    private static class CountingSource implements PageSource<Integer> {
+
+        private final AtomicInteger mLoads = new AtomicInteger();
+
+        @Override
+        public List<Integer> loadPage(int start, int count) {
+            mLoads.incrementAndGet();
+            return range(start, count);
+        }
+
+    }
+
+}
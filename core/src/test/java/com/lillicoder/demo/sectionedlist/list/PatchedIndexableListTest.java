@@ -0,0 +1,165 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import org.junit.Test;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link PatchedIndexableList}.
+ */
+public class PatchedIndexableListTest {
+
+    @Test
+    public void insertsAndRemovesElements() {
+        IndexableList<String, Integer> base = section(1, 2, 3);
+        PatchedIndexableList<String, Integer> patched = PatchedIndexableList.withInserted(base, 1, 9);
+        patched = PatchedIndexableList.withInserted(patched, 4, 10);
+        patched = PatchedIndexableList.withRemoved(patched, 0);
+
+        assertEquals(Arrays.asList(9, 2, 3, 10), new ArrayList<Integer>(patched));
+        assertEquals(Arrays.asList(1, 2, 3), new ArrayList<Integer>(base));
+        assertSame(base, patched.getBase());
+        assertEquals("k", patched.getKey());
+        assertEquals("label", patched.getLabel());
+    }
+
+    @Test
+    public void mapsLocationsToBase() {
+        PatchedIndexableList<String, Integer> patched = PatchedIndexableList.withInserted(section(1, 2, 3), 1, 9);
+
+        assertEquals(0, patched.getBaseLocation(0));
+        assertEquals(-1, patched.getBaseLocation(1));
+        assertEquals(1, patched.getBaseLocation(2));
+        assertEquals(2, patched.getBaseLocation(3));
+    }
+
+    @Test
+    public void removingInsertedElementMergesRuns() {
+        PatchedIndexableList<String, Integer> patched = PatchedIndexableList.withInserted(section(1, 2, 3), 1, 9);
+        assertEquals(3, patched.getRunCount());
+
+        patched = PatchedIndexableList.withRemoved(patched, 1);
+        assertEquals(1, patched.getRunCount());
+        assertEquals(Arrays.asList(1, 2, 3), new ArrayList<Integer>(patched));
+    }
+
+    @Test
+    public void editsNeverReadTheBase() {
+        CountingList base = new CountingList(100000);
+        IndexableList<String, Integer> section = new IndexableList<String, Integer>("k", "k", base);
+
+        PatchedIndexableList<String, Integer> patched = PatchedIndexableList.withInserted(section, 50000, -1);
+        patched = PatchedIndexableList.withRemoved(patched, 10);
+        patched = PatchedIndexableList.withInserted(patched, patched.size(), -2);
+        assertEquals(0, base.mReads);
+
+        assertEquals(-1, (int) patched.get(49999));
+        assertEquals(11, (int) patched.get(10));
+        assertEquals(1, base.mReads);
+    }
+
+    @Test
+    public void matchesArrayListForRandomEdits() {
+        Random random = new Random(42L);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            List<Integer> elements = new ArrayList<Integer>();
+            int size = random.nextInt(10);
+            for (int element = 0; element < size; element++) {
+                elements.add(element);
+            }
+
+            IndexableList<String, Integer> section = new IndexableList<String, Integer>("k", "k", elements);
+            List<Integer> expected = new ArrayList<Integer>(elements);
+            for (int edit = 0; edit < 30; edit++) {
+                if (!expected.isEmpty() && random.nextBoolean()) {
+                    int location = random.nextInt(expected.size());
+                    expected.remove(location);
+                    section = PatchedIndexableList.withRemoved(section, location);
+                } else {
+                    int location = random.nextInt(expected.size() + 1);
+                    int element = 100 + edit;
+                    expected.add(location, element);
+                    section = PatchedIndexableList.withInserted(section, location, element);
+                }
+
+                assertEquals("Case " + iteration, expected, new ArrayList<Integer>(section));
+            }
+
+            PatchedIndexableList<String, Integer> patched = (PatchedIndexableList<String, Integer>) section;
+            for (int location = 0; location < expected.size(); location++) {
+                int baseLocation = patched.getBaseLocation(location);
+                int element = baseLocation < 0 ? expected.get(location) : elements.get(baseLocation);
+                assertEquals("Case " + iteration, (int) expected.get(location), element);
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsInsertPastEnd() {
+        PatchedIndexableList.withInserted(section(1), 2, 9);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsRemovePastEnd() {
+        PatchedIndexableList.withRemoved(section(1), 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void isReadOnly() {
+        PatchedIndexableList.withInserted(section(1), 0, 9).add(3);
+    }
+
+    private static IndexableList<String, Integer> section(Integer... elements) {
+        return new IndexableList<String, Integer>("k", "label", new ArrayList<Integer>(Arrays.asList(elements)));
+    }
+
+    /**
+     * List of the integers from 0 that counts its reads.
+     */
+    private static class CountingList extends AbstractList<Integer> {
+
+        private final int mSize;
+        private int mReads;
+
+        public CountingList(int size) {
+            mSize = size;
+        }
+
+        @Override
+        public Integer get(int location) {
+            mReads++;
+            return location;
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+    }
+
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link PrefixIndex}.
+ */
+public class PrefixIndexTest {
+
+    private static final String[] PREFIXES = { "", "a", "b", "c", "aa", "ab", "ba", "cc", "abc", "Ab", "x" };
+
+    @Test
+    public void findsPositionsWithHeaders() {
+        PrefixIndex index = PrefixIndex.forSections(
+            Arrays.asList(section("A", "Anna", "alex"), section("B", "Bob", "annie")), true);
+
+        // Rows: A, Anna, alex, B, Bob, annie
+        assertEquals(4, index.size());
+        assertArrayEquals(new int[] { 2 }, index.getPositions("AL"));
+        assertArrayEquals(new int[] { 1, 5 }, index.getPositions("ann"));
+        assertEquals(3, index.getMatchCount("a"));
+        assertEquals(0, index.getMatchCount("z"));
+        assertEquals(4, index.getPositions("").length);
+    }
+
+    @Test
+    public void findsPositionsWithoutHeaders() {
+        PrefixIndex index = PrefixIndex.forSections(
+            Arrays.asList(section("A", "Anna", "alex"), section("B", "Bob", "annie")), false);
+
+        assertArrayEquals(new int[] { 0, 3 }, index.getPositions("ann"));
+        assertArrayEquals(new int[] { 2 }, index.getPositions("b"));
+    }
+
+    @Test
+    public void replaceMatchesRebuild() {
+        Random random = new Random(42L);
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            boolean headers = random.nextBoolean();
+            int header = headers ? 1 : 0;
+            List<IndexableList<String, String>> sections = new ArrayList<IndexableList<String, String>>();
+            int sectionCount = 1 + random.nextInt(5);
+            for (int section = 0; section < sectionCount; section++) {
+                sections.add(randomSection(random, "k" + section));
+            }
+
+            PrefixIndex index = PrefixIndex.forSections(sections, headers);
+            int sectionIndex = random.nextInt(sectionCount);
+            int sectionStart = getSectionStart(sections, sectionIndex, headers);
+            IndexableList<String, String> old = sections.get(sectionIndex);
+
+            switch (random.nextInt(3)) {
+                case 0: {
+                    // Replace one section's elements
+                    IndexableList<String, String> replacement = randomSection(random, old.getKey());
+                    sections.set(sectionIndex, replacement);
+                    index = index.replace(sectionStart + header,
+                                          old.size(),
+                                          replacement.size(),
+                                          replacement,
+                                          sectionStart + header);
+                    break;
+                }
+                case 1: {
+                    // Add a section before this one
+                    IndexableList<String, String> added = randomSection(random, "new");
+                    sections.add(sectionIndex, added);
+                    index = index.replace(sectionStart, 0, added.size() + header, added, sectionStart + header);
+                    break;
+                }
+                default: {
+                    // Remove this section
+                    sections.remove(sectionIndex);
+                    index = index.replace(sectionStart,
+                                          old.size() + header,
+                                          0,
+                                          Collections.emptyList(),
+                                          sectionStart);
+                    break;
+                }
+            }
+
+            assertSameIndex("Case " + iteration, PrefixIndex.forSections(sections, headers), index);
+        }
+    }
+
+    @Test
+    public void singleElementEditsMatchRebuild() {
+        Random random = new Random(7L);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            boolean headers = random.nextBoolean();
+            int header = headers ? 1 : 0;
+            List<IndexableList<String, String>> sections = new ArrayList<IndexableList<String, String>>();
+            int sectionCount = 1 + random.nextInt(4);
+            for (int section = 0; section < sectionCount; section++) {
+                sections.add(randomSection(random, "k" + section));
+            }
+
+            PrefixIndex index = PrefixIndex.forSections(sections, headers);
+            for (int edit = 0; edit < 10; edit++) {
+                int sectionIndex = random.nextInt(sectionCount);
+                IndexableList<String, String> section = sections.get(sectionIndex);
+                int sectionStart = getSectionStart(sections, sectionIndex, headers) + header;
+
+                if (!section.isEmpty() && random.nextBoolean()) {
+                    int childPosition = random.nextInt(section.size());
+                    section.remove(childPosition);
+                    index = index.remove(sectionStart + childPosition);
+                } else {
+                    int childPosition = random.nextInt(section.size() + 1);
+                    String element = PREFIXES[random.nextInt(PREFIXES.length)] + "a";
+                    section.add(childPosition, element);
+                    index = index.insert(sectionStart + childPosition, element);
+                }
+
+                assertSameIndex("Case " + iteration, PrefixIndex.forSections(sections, headers), index);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsElementsOutsideInsertedRun() {
+        PrefixIndex index = PrefixIndex.forSections(Arrays.asList(section("A", "a")), true);
+        index.replace(1, 1, 1, Arrays.asList("b", "c"), 1);
+    }
+
+    private static IndexableList<String, String> section(String key, String... elements) {
+        return new IndexableList<String, String>(key, key, new ArrayList<String>(Arrays.asList(elements)));
+    }
+
+    private static IndexableList<String, String> randomSection(Random random, String key) {
+        List<String> elements = new ArrayList<String>();
+        int size = random.nextInt(6);
+        for (int element = 0; element < size; element++) {
+            StringBuilder builder = new StringBuilder();
+            int length = 1 + random.nextInt(4);
+            for (int character = 0; character < length; character++) {
+                char next = (char) ('a' + random.nextInt(3));
+                builder.append(random.nextBoolean() ? Character.toUpperCase(next) : next);
+            }
+
+            elements.add(builder.toString());
+        }
+
+        return new IndexableList<String, String>(key, key, elements);
+    }
+
+    private static int getSectionStart(List<IndexableList<String, String>> sections, int sectionIndex, boolean headers) {
+        int start = 0;
+        for (int section = 0; section < sectionIndex; section++) {
+            start += sections.get(section).size() + (headers ? 1 : 0);
+        }
+
+        return start;
+    }
+
+    /**
+     * Asserts both indices find the same positions for every test prefix. Elements that are equal once
+     * normalized may be ordered differently, so positions are compared as sets.
+     */
+    private static void assertSameIndex(String message, PrefixIndex expected, PrefixIndex actual) {
+        assertEquals(message, expected.size(), actual.size());
+        for (String prefix : PREFIXES) {
+            int[] expectedPositions = expected.getPositions(prefix);
+            int[] actualPositions = actual.getPositions(prefix);
+            Arrays.sort(expectedPositions);
+            Arrays.sort(actualPositions);
+
+            assertArrayEquals(message + " prefix " + prefix, expectedPositions, actualPositions);
+        }
+    }
+
+}
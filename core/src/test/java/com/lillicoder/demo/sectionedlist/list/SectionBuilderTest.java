@@ -0,0 +1,132 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link CountingSectionBuilder} and {@link ParallelSectionBuilder}.
+ */
+public class SectionBuilderTest {
+
+    // Large enough that the parallel builder splits into several chunks and sort tasks
+    private static final int ELEMENT_COUNT = 100000;
+
+    // Orders by the first two characters only, so stability is observable
+    private static final Comparator<String> PREFIX_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String lhs, String rhs) {
+            return lhs.substring(0, 2).compareTo(rhs.substring(0, 2));
+        }
+    };
+
+    private ForkJoinPool mPool;
+    private String[] mElements;
+
+    @Before
+    public void setUp() {
+        mPool = new ForkJoinPool(4);
+
+        Random random = new Random(42L);
+        mElements = new String[ELEMENT_COUNT];
+        for (int index = 0; index < mElements.length; index++) {
+            // Some elements start outside A to Z and land in the overflow bucket
+            char first = (char) ('@' + random.nextInt(28));
+            char second = (char) ('a' + random.nextInt(26));
+            mElements[index] = "" + first + second + index;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mPool.shutdown();
+    }
+
+    @Test
+    public void countingBuilderGroupsInInputOrder() {
+        List<IndexableList<String, String>> sections =
+            new CountingSectionBuilder<String, String>(new FirstCharacterBucketer<String>('A', 'Z')).build(
+                Arrays.asList("Bee", "Ant", "bat", "Ape", "Bat"));
+
+        assertEquals(3, sections.size());
+        assertSection(sections.get(0), "#", "bat");
+        assertSection(sections.get(1), "A", "Ant", "Ape");
+        assertSection(sections.get(2), "B", "Bee", "Bat");
+    }
+
+    @Test
+    public void parallelBuilderMatchesCountingBuilderWithoutComparator() {
+        Bucketer<String, String> bucketer = new FirstCharacterBucketer<String>('A', 'Z');
+        List<IndexableList<String, String>> expected =
+            new CountingSectionBuilder<String, String>(bucketer).build(mElements);
+        List<IndexableList<String, String>> actual =
+            new ParallelSectionBuilder<String, String>(bucketer, null, mPool).build(mElements);
+
+        assertSameSections(expected, actual);
+    }
+
+    @Test
+    public void parallelBuilderSortsSectionsStably() {
+        Bucketer<String, String> bucketer = new FirstCharacterBucketer<String>('A', 'Z');
+        List<IndexableList<String, String>> expected =
+            new CountingSectionBuilder<String, String>(bucketer).build(mElements);
+        for (IndexableList<String, String> section : expected) {
+            Collections.sort(section, PREFIX_ORDER);
+        }
+
+        List<IndexableList<String, String>> actual =
+            new ParallelSectionBuilder<String, String>(bucketer, PREFIX_ORDER, mPool).build(mElements);
+
+        assertSameSections(expected, actual);
+    }
+
+    @Test
+    public void parallelBuilderHandlesNoElements() {
+        List<IndexableList<String, String>> sections = new ParallelSectionBuilder<String, String>(
+            new FirstCharacterBucketer<String>('A', 'Z'), PREFIX_ORDER, mPool).build(new String[0]);
+
+        assertEquals(0, sections.size());
+    }
+
+    private static void assertSection(IndexableList<String, String> section, String key, String... elements) {
+        assertEquals(key, section.getKey());
+        assertEquals(Arrays.asList(elements), new ArrayList<String>(section));
+    }
+
+    private static void assertSameSections(List<IndexableList<String, String>> expected,
+                                           List<IndexableList<String, String>> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int section = 0; section < expected.size(); section++) {
+            assertEquals(expected.get(section).getKey(), actual.get(section).getKey());
+            assertEquals(new ArrayList<String>(expected.get(section)), new ArrayList<String>(actual.get(section)));
+        }
+    }
+
+}
@@ -0,0 +1,266 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SectionDiff}. Randomized cases use fixed seeds, so failures can be reproduced.
+ */
+public class SectionDiffTest {
+
+    private static final int RANDOM_CASES = 2000;
+
+    // Marks rows inserted while replaying updates, filled in from the new rows afterwards
+    private static final Object INSERTED = new Object();
+
+    @Test
+    public void identicalSectionsHaveNoChanges() {
+        List<IndexableList<String, Integer>> sections = randomSections(new Random(1L));
+        SectionDiff diff = SectionDiff.calculate(sections, copy(sections), true);
+
+        assertFalse(diff.hasChanges());
+        assertEquals(0, diff.getMaxUpdateCount());
+        for (int position = 0; position < diff.getOldCount(); position++) {
+            assertEquals(position, diff.getNewPosition(position));
+        }
+    }
+
+    @Test
+    public void replayingUpdatesYieldsNewRows() {
+        Random random = new Random(42L);
+        for (int iteration = 0; iteration < RANDOM_CASES; iteration++) {
+            boolean headers = random.nextBoolean();
+            List<IndexableList<String, Integer>> oldSections = randomSections(random);
+            List<IndexableList<String, Integer>> newSections = mutate(oldSections, random, iteration);
+
+            SectionDiff diff = SectionDiff.calculate(oldSections, newSections, headers);
+            List<Object> newRows = flatten(newSections, headers);
+            RecordingCallback callback = new RecordingCallback(flatten(oldSections, headers));
+            diff.dispatchUpdates(callback);
+
+            List<Object> rows = callback.mRows;
+            assertEquals("Case " + iteration, newRows.size(), rows.size());
+            for (int position = 0; position < rows.size(); position++) {
+                if (rows.get(position) != INSERTED) {
+                    assertEquals("Case " + iteration, newRows.get(position), rows.get(position));
+                } else {
+                    assertEquals("Case " + iteration, -1, diff.getOldPosition(position));
+                }
+            }
+
+            assertTrue("Case " + iteration, callback.mUpdateCount <= diff.getMaxUpdateCount());
+            if (!diff.hasChanges()) {
+                // Changes to empty sections without headers leave no flat updates, so only one way holds
+                assertEquals("Case " + iteration, 0, callback.mUpdateCount);
+            }
+        }
+    }
+
+    @Test
+    public void positionMappingIsConsistent() {
+        Random random = new Random(7L);
+        for (int iteration = 0; iteration < RANDOM_CASES; iteration++) {
+            boolean headers = random.nextBoolean();
+            List<IndexableList<String, Integer>> oldSections = randomSections(random);
+            List<IndexableList<String, Integer>> newSections = mutate(oldSections, random, iteration);
+
+            SectionDiff diff = SectionDiff.calculate(oldSections, newSections, headers);
+            List<Object> oldRows = flatten(oldSections, headers);
+            List<Object> newRows = flatten(newSections, headers);
+            assertEquals(oldRows.size(), diff.getOldCount());
+            assertEquals(newRows.size(), diff.getNewCount());
+
+            for (int position = 0; position < diff.getNewCount(); position++) {
+                int oldPosition = diff.getOldPosition(position);
+                if (oldPosition >= 0) {
+                    assertEquals("Case " + iteration, position, diff.getNewPosition(oldPosition));
+                    assertEquals("Case " + iteration, oldRows.get(oldPosition), newRows.get(position));
+                }
+            }
+
+            for (int position = 0; position < diff.getOldCount(); position++) {
+                int newPosition = diff.getNewPosition(position);
+                if (newPosition >= 0) {
+                    assertEquals("Case " + iteration, position, diff.getOldPosition(newPosition));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void anchorFallsBackToPreviousKeptRow() {
+        List<IndexableList<String, Integer>> oldSections = Arrays.asList(section("a", 1, 2, 3), section("b", 4));
+        List<IndexableList<String, Integer>> newSections = Arrays.asList(section("a", 1, 3), section("b", 4));
+        SectionDiff diff = SectionDiff.calculate(oldSections, newSections, true);
+
+        // Old rows: a, 1, 2, 3, b, 4; row 2 was removed so its anchor is row 1
+        assertEquals(1, diff.getAnchorPosition(2));
+        assertEquals(2, diff.getAnchorPosition(3));
+        assertEquals(4, diff.getAnchorPosition(5));
+    }
+
+    @Test
+    public void movedSectionIsReportedOnce() {
+        List<IndexableList<String, Integer>> oldSections = Arrays.asList(section("a", 1), section("b", 2));
+        List<IndexableList<String, Integer>> newSections = Arrays.asList(section("b", 2), section("a", 1));
+        SectionDiff diff = SectionDiff.calculate(oldSections, newSections, true);
+
+        int sectionMoves = 0;
+        for (SectionDiff.Operation operation : diff.getOperations()) {
+            if (operation.getType() == SectionDiff.Operation.TYPE_MOVE_SECTION) {
+                sectionMoves++;
+            }
+        }
+
+        assertEquals(1, sectionMoves);
+    }
+
+    private static IndexableList<String, Integer> section(String key, Integer... elements) {
+        return new IndexableList<String, Integer>(key, key, new ArrayList<Integer>(Arrays.asList(elements)));
+    }
+
+    private static List<IndexableList<String, Integer>> randomSections(Random random) {
+        List<IndexableList<String, Integer>> sections = new ArrayList<IndexableList<String, Integer>>();
+        int sectionCount = random.nextInt(6);
+        for (int section = 0; section < sectionCount; section++) {
+            List<Integer> elements = new ArrayList<Integer>();
+            int size = random.nextInt(8);
+            for (int element = 0; element < size; element++) {
+                // A small range of values, so sections hold duplicates
+                elements.add(random.nextInt(20));
+            }
+
+            sections.add(new IndexableList<String, Integer>("k" + section, "k" + section, elements));
+        }
+
+        return sections;
+    }
+
+    private static List<IndexableList<String, Integer>> copy(List<IndexableList<String, Integer>> sections) {
+        List<IndexableList<String, Integer>> copy = new ArrayList<IndexableList<String, Integer>>();
+        for (IndexableList<String, Integer> section : sections) {
+            copy.add(new IndexableList<String, Integer>(section.getKey(),
+                                                        section.getLabel(),
+                                                        new ArrayList<Integer>(section)));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Removes, inserts and moves random sections and elements of a copy of the given sections.
+     */
+    private static List<IndexableList<String, Integer>> mutate(List<IndexableList<String, Integer>> sections,
+                                                               Random random,
+                                                               int iteration) {
+        List<IndexableList<String, Integer>> mutated = new ArrayList<IndexableList<String, Integer>>();
+        for (IndexableList<String, Integer> section : copy(sections)) {
+            if (random.nextInt(5) == 0) {
+                continue;
+            }
+
+            int changes = random.nextInt(4);
+            for (int change = 0; change < changes; change++) {
+                if (!section.isEmpty() && random.nextBoolean()) {
+                    section.remove(random.nextInt(section.size()));
+                } else {
+                    section.add(random.nextInt(section.size() + 1), random.nextInt(20));
+                }
+            }
+
+            if (section.size() > 1 && random.nextInt(4) == 0) {
+                Integer moved = section.remove(random.nextInt(section.size()));
+                section.add(random.nextInt(section.size() + 1), moved);
+            }
+
+            mutated.add(section);
+        }
+
+        if (random.nextBoolean()) {
+            mutated.add(section("new" + iteration, 1, 2));
+        }
+
+        if (random.nextInt(3) == 0) {
+            Collections.shuffle(mutated, random);
+        }
+
+        return mutated;
+    }
+
+    /**
+     * Lays out the given sections as flat rows, with a header row per section if asked.
+     */
+    private static List<Object> flatten(List<IndexableList<String, Integer>> sections, boolean headers) {
+        List<Object> rows = new ArrayList<Object>();
+        for (IndexableList<String, Integer> section : sections) {
+            if (headers) {
+                rows.add("header " + section.getKey());
+            }
+
+            for (Integer element : section) {
+                rows.add(section.getKey() + " " + element);
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * {@link SectionDiff.Callback} that applies each update to a list of rows and counts the updates.
+     */
+    private static class RecordingCallback implements SectionDiff.Callback {
+
+        private List<Object> mRows;
+        private int mUpdateCount;
+
+        public RecordingCallback(List<Object> rows) {
+            mRows = rows;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            mRows.addAll(position, Collections.nCopies(count, INSERTED));
+            mUpdateCount++;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mRows.subList(position, position + count).clear();
+            mUpdateCount++;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mRows.add(toPosition, mRows.remove(fromPosition));
+            mUpdateCount++;
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SectionIndex}.
+ */
+public class SectionIndexTest {
+
+    private static final Object[] LABELS = { "A", "B", "C" };
+    private static final int[] SIZES = { 2, 0, 3 };
+
+    @Test
+    public void mapsPositionsWithHeaders() {
+        SectionIndex index = new SectionIndex(LABELS, SIZES, true);
+
+        // Rows: A, a0, a1, B, C, c0, c1, c2
+        assertEquals(8, index.getPositionCount());
+        assertEquals(0, index.getPositionForSection(0));
+        assertEquals(3, index.getPositionForSection(1));
+        assertEquals(4, index.getPositionForSection(2));
+        assertEquals(-1, index.getPositionForSection(3));
+
+        assertEquals(0, index.getSectionForPosition(2));
+        assertEquals(1, index.getSectionForPosition(3));
+        assertEquals(2, index.getSectionForPosition(7));
+        assertEquals(-1, index.getSectionForPosition(8));
+    }
+
+    @Test
+    public void mapsPositionsWithoutHeaders() {
+        SectionIndex index = new SectionIndex(LABELS, SIZES, false);
+
+        assertEquals(5, index.getPositionCount());
+        assertEquals(2, index.getPositionForSection(1));
+        assertEquals(2, index.getPositionForSection(2));
+        assertEquals(2, index.getSectionForPosition(2));
+    }
+
+    @Test
+    public void resizingSectionShiftsLaterSections() {
+        SectionIndex index = new SectionIndex(LABELS, SIZES, true);
+        index.setSectionSize(1, 4);
+
+        // Rows: A, a0, a1, B, b0, b1, b2, b3, C, c0, c1, c2
+        assertEquals(12, index.getPositionCount());
+        assertEquals(4, index.getSectionSize(1));
+        assertEquals(8, index.getPositionForSection(2));
+        assertEquals(1, index.getSectionForPosition(7));
+        assertEquals(2, index.getSectionForPosition(8));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        SectionIndex index = new SectionIndex(LABELS, SIZES, true);
+        index.setCollapsed(0, true);
+        SectionIndex copy = new SectionIndex(index);
+        copy.setSectionSize(2, 1);
+        copy.setCollapsed(0, false);
+
+        assertEquals(6, index.getPositionCount());
+        assertTrue(index.isCollapsed(0));
+        assertEquals(6, copy.getPositionCount());
+        assertFalse(copy.isCollapsed(0));
+        assertEquals(1, copy.getSectionSize(2));
+    }
+
+    @Test
+    public void collapsedSectionKeepsOnlyItsHeader() {
+        SectionIndex index = new SectionIndex(LABELS, SIZES, true);
+        index.setCollapsed(0, true);
+
+        // Rows: A, B, C, c0, c1, c2
+        assertTrue(index.isCollapsed(0));
+        assertEquals(1, index.getCollapsedCount());
+        assertEquals(6, index.getPositionCount());
+        assertEquals(2, index.getSectionSize(0));
+        assertEquals(0, index.getVisibleSectionSize(0));
+        assertEquals(1, index.getPositionForSection(1));
+        assertEquals(2, index.getSectionForPosition(3));
+
+        index.setCollapsed(0, false);
+        assertFalse(index.isCollapsed(0));
+        assertEquals(8, index.getPositionCount());
+    }
+
+    @Test
+    public void resizingCollapsedSectionKeepsItCollapsed() {
+        SectionIndex index = new SectionIndex(LABELS, SIZES, true);
+        index.setCollapsed(2, true);
+        index.setSectionSize(2, 5);
+
+        // Rows: A, a0, a1, B, C
+        assertEquals(5, index.getPositionCount());
+        assertEquals(5, index.getSectionSize(2));
+        assertEquals(10, index.getExpandedPositionCount());
+
+        index.setCollapsed(2, false);
+        assertEquals(10, index.getPositionCount());
+    }
+
+    @Test
+    public void collapsingAllSectionsLeavesHeaders() {
+        SectionIndex index = new SectionIndex(LABELS, SIZES, true);
+        index.setAllCollapsed(true);
+
+        assertEquals(3, index.getPositionCount());
+        assertEquals(3, index.getCollapsedCount());
+        assertEquals(2, index.getPositionForSection(2));
+
+        index.setAllCollapsed(false);
+        assertEquals(0, index.getCollapsedCount());
+        assertEquals(8, index.getPositionCount());
+    }
+
+    @Test
+    public void mapsExpandedPositions() {
+        SectionIndex index = new SectionIndex(LABELS, SIZES, true);
+        index.setCollapsed(0, true);
+
+        // Expanded rows: A, a0, a1, B, C, c0, c1, c2
+        assertEquals(0, index.getPositionForExpandedPosition(0));
+        assertEquals(-1, index.getPositionForExpandedPosition(1));
+        assertEquals(1, index.getPositionForExpandedPosition(3));
+        assertEquals(5, index.getPositionForExpandedPosition(7));
+        assertEquals(-1, index.getPositionForExpandedPosition(8));
+
+        assertEquals(4, index.getExpandedPositionForSection(2));
+        assertEquals(3, index.getExpandedPositionForPosition(1));
+        assertEquals(-1, index.getExpandedPositionForPosition(6));
+    }
+
+    @Test
+    public void expandedPositionsRoundTrip() {
+        Random random = new Random(42L);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            int sectionCount = 1 + random.nextInt(8);
+            Object[] labels = new Object[sectionCount];
+            int[] sizes = new int[sectionCount];
+            for (int section = 0; section < sectionCount; section++) {
+                labels[section] = section;
+                sizes[section] = random.nextInt(5);
+            }
+
+            SectionIndex index = new SectionIndex(labels, sizes, random.nextBoolean());
+            for (int section = 0; section < sectionCount; section++) {
+                index.setCollapsed(section, random.nextBoolean());
+            }
+
+            for (int position = 0; position < index.getPositionCount(); position++) {
+                int expandedPosition = index.getExpandedPositionForPosition(position);
+                assertEquals("Case " + iteration, position, index.getPositionForExpandedPosition(expandedPosition));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMismatchedSizes() {
+        new SectionIndex(LABELS, new int[] { 1 }, true);
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2014 Scott Weeden-Moody
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.lillicoder.demo.sectionedlist.list;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SortedSections}.
+ */
+public class SortedSectionsTest {
+
+    @Test
+    public void splitsIntoOneSectionPerKey() {
+        List<IndexableList<Integer, Integer>> sections =
+            SortedSections.split(new Integer[] { 10, 11, 20, 30, 31, 32 }, new TensSelector());
+
+        assertEquals(3, sections.size());
+        assertSection(sections.get(0), 1, 10, 11);
+        assertSection(sections.get(1), 2, 20);
+        assertSection(sections.get(2), 3, 30, 31, 32);
+    }
+
+    @Test
+    public void splitsNoElements() {
+        assertEquals(0, SortedSections.split(new Integer[0], new TensSelector()).size());
+    }
+
+    @Test
+    public void matchesLinearSplitForRandomSectionSizes() {
+        Random random = new Random(42L);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            List<Integer> sorted = new ArrayList<Integer>();
+            List<Integer> sectionSizes = new ArrayList<Integer>();
+            int sectionCount = random.nextInt(10);
+            for (int section = 0; section < sectionCount; section++) {
+                // Mostly small sections, with the odd long one to gallop across
+                int size = 1 + (random.nextInt(4) == 0 ? random.nextInt(300) : random.nextInt(5));
+                for (int element = 0; element < size; element++) {
+                    sorted.add(section * 1000 + element);
+                }
+
+                sectionSizes.add(size);
+            }
+
+            List<IndexableList<Integer, Integer>> sections = SortedSections.split(sorted, new ThousandsSelector());
+            assertEquals("Case " + iteration, sectionCount, sections.size());
+
+            int start = 0;
+            for (int section = 0; section < sectionCount; section++) {
+                IndexableList<Integer, Integer> actual = sections.get(section);
+                int size = sectionSizes.get(section);
+                assertEquals("Case " + iteration, section, (int) actual.getKey());
+                assertEquals("Case " + iteration, sorted.subList(start, start + size), new ArrayList<Integer>(actual));
+                start += size;
+            }
+        }
+    }
+
+    @Test
+    public void gallopsAcrossLongSections() {
+        List<Integer> sorted = new ArrayList<Integer>();
+        for (int section = 0; section < 4; section++) {
+            for (int element = 0; element < 10000; element++) {
+                sorted.add(section * 1000000 + element);
+            }
+        }
+
+        CountingSelector selector = new CountingSelector();
+        assertEquals(4, SortedSections.split(sorted, selector).size());
+
+        // A linear split would look up all 40000 keys, galloping takes about 4 log 10000
+        assertTrue(String.valueOf(selector.mLookups), selector.mLookups < 4 * 2 * 15);
+    }
+
+    @Test
+    public void sectionsAreViewsOverTheBackingList() {
+        Integer[] sorted = { 10, 11, 20 };
+        List<IndexableList<Integer, Integer>> sections = SortedSections.split(sorted, new TensSelector());
+
+        sorted[1] = 12;
+        assertEquals(12, (int) sections.get(0).get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullSelector() {
+        SortedSections.split(new Integer[0], null);
+    }
+
+    private static void assertSection(IndexableList<Integer, Integer> section, int key, Integer... elements) {
+        assertEquals(key, (int) section.getKey());
+        assertEquals(Arrays.asList(elements), new ArrayList<Integer>(section));
+    }
+
+    private static class TensSelector implements KeySelector<Integer, Integer> {
+
+        @Override
+        public Integer getKey(Integer element) {
+            return element / 10;
+        }
+
+    }
+
+    private static class ThousandsSelector implements KeySelector<Integer, Integer> {
+
+        @Override
+        public Integer getKey(Integer element) {
+            return element / 1000;
+        }
+
+    }
+
+    /**
+     * {@link KeySelector} that counts its lookups.
+     */
+    private static class CountingSelector implements KeySelector<Integer, Integer> {
+
+        private int mLookups;
+
+        @Override
+        public Integer getKey(Integer element) {
+            mLookups++;
+            return element / 1000000;
+        }
+
+    }
+
+}